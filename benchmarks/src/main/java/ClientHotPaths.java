@@ -0,0 +1,137 @@
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.zeromq.ZContext;
+
+import socialnetwork.bench.HotPaths;
+
+// Implementação da ponte: chama diretamente o código do cliente
+public class ClientHotPaths implements HotPaths {
+    private NotificationDecoder decoder;
+    private ClientLogger logger;
+    private ZContext standInContext;
+    private EmbeddedServer standIn;
+    private RequestEngine standInEngine;
+
+    @Override
+    public void configureDecoder(String userId, Set<String> following) {
+        TopicSet followIndex = new TopicSet();
+        followIndex.addAll(following);
+        decoder = new NotificationDecoder(userId, followIndex);
+    }
+
+    @Override
+    public Object decodeNotification(byte[] frame) {
+        return decoder.decode(frame);
+    }
+
+    @Override
+    public JSONObject buildRequest(String type, String userId, String peerId, String content,
+            long clientTimestamp) {
+        switch (type) {
+            case "create_post":
+                return Requests.createPost(userId, content, clientTimestamp);
+            case "follow_user":
+                return Requests.followUser(userId, peerId, clientTimestamp);
+            case "send_private_message":
+                return Requests.sendPrivateMessage(userId, peerId, content, clientTimestamp);
+            case "get_following":
+                return Requests.getFollowing(userId, clientTimestamp);
+            case "get_all_posts":
+                return Requests.getAllPosts(userId, clientTimestamp);
+            default:
+                throw new IllegalArgumentException("Unknown request type: " + type);
+        }
+    }
+
+    @Override
+    public void openLogger(String userId, String logFile) {
+        long startedAt = System.currentTimeMillis();
+        logger = new ClientLogger(userId, logFile, () -> startedAt);
+    }
+
+    @Override
+    public void log(String message) {
+        logger.log(message);
+    }
+
+    @Override
+    public long flushLogger() {
+        logger.flush();
+        return logger.getDroppedCount();
+    }
+
+    @Override
+    public void closeLogger() {
+        logger.close();
+        logger = null;
+    }
+
+    // Ordenação completa que o cliente fazia antes da Timeline: lê created_at uma vez por post
+    // (e não duas por comparação); estável como o List.sort. Fica aqui só como base de comparação
+    @Override
+    public void sortNewestFirst(List<JSONObject> posts) {
+        int count = posts.size();
+        long[] keys = new long[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = posts.get(i).getLong("created_at");
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[b], keys[a]));
+        JSONObject[] sorted = new JSONObject[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = posts.get(order[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            posts.set(i, sorted[i]);
+        }
+    }
+
+    @Override
+    public Object buildTimeline(List<JSONObject> posts) {
+        Timeline timeline = new Timeline();
+        for (JSONObject post : posts) {
+            timeline.add(post);
+        }
+        return timeline;
+    }
+
+    @Override
+    public List<JSONObject> newestPage(Object timeline, int pageSize) {
+        return ((Timeline) timeline).newestBefore(null, pageSize);
+    }
+
+    @Override
+    public byte[] encodeMessage(String codec, JSONObject message) {
+        return WireCodec.forName(codec).encode(message);
+    }
+
+    @Override
+    public JSONObject decodeMessage(byte[] frame) {
+        return WireCodec.decodeAny(frame);
+    }
+
+    @Override
+    public void openStandIn(String codec) {
+        standInContext = new ZContext();
+        standIn = new EmbeddedServer(standInContext, "inproc://bench-stand-in", true);
+        standInEngine = new RequestEngine(standInContext, "inproc://bench-stand-in", RequestEngine.DEFAULT_WINDOW);
+        standInEngine.negotiate(WireCodec.forName(codec)).join();
+    }
+
+    @Override
+    public JSONObject roundTrip(JSONObject request) {
+        return standInEngine.submit(request).join();
+    }
+
+    @Override
+    public void closeStandIn() {
+        standInEngine.close();
+        standIn.close();
+        standInContext.close();
+    }
+}
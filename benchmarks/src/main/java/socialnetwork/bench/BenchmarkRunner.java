@@ -0,0 +1,32 @@
+package socialnetwork.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+// Executa os benchmarks e grava o resultado em JSON em results/ para comparar execuções.
+// Aceita os mesmos argumentos da linha de comando do JMH (ex.: "NotificationDecode -p followedUsers=1000").
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        File resultsDir = new File(System.getProperty("bench.results", "results"));
+        if (!resultsDir.exists()) {
+            resultsDir.mkdirs();
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File resultFile = new File(resultsDir, "jmh-" + stamp + ".json");
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.getPath());
+
+        new Runner(options.build()).run();
+        System.out.println("Results written to " + resultFile.getPath());
+    }
+}
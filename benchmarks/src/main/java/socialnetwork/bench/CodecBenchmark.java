@@ -0,0 +1,81 @@
+package socialnetwork.bench;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// JSON contra binário: codificar uma requisição, decodificar uma notificação e uma página
+// de 50 posts, e a ida e volta completa contra o server embutido (sem o Node)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({ "json", "binary" })
+    public String codec;
+
+    private HotPaths paths;
+    private String content;
+    private long clock;
+    private byte[] notificationFrame;
+    private byte[] pageFrame;
+
+    @Setup
+    public void setUp() {
+        paths = HotPaths.load();
+        content = Fixtures.content(new Random(7));
+        clock = System.currentTimeMillis();
+
+        notificationFrame = paths.encodeMessage(codec, new JSONObject(Fixtures.post("user42", content, clock)));
+        JSONObject page = new JSONObject();
+        page.put("status", "success");
+        page.put("message", "Found 50 posts");
+        page.put("has_more", true);
+        page.put("posts", new JSONArray(Fixtures.posts(50, 11)));
+        pageFrame = paths.encodeMessage(codec, page);
+
+        paths.openStandIn(codec);
+    }
+
+    @TearDown
+    public void tearDown() {
+        paths.closeStandIn();
+    }
+
+    @Benchmark
+    public byte[] encodeCreatePost() {
+        return paths.encodeMessage(codec, paths.buildRequest("create_post", Fixtures.SELF_ID, null, content, ++clock));
+    }
+
+    @Benchmark
+    public JSONObject decodeNotification() {
+        return paths.decodeMessage(notificationFrame);
+    }
+
+    @Benchmark
+    public JSONObject decodePostsPage() {
+        return paths.decodeMessage(pageFrame);
+    }
+
+    @Benchmark
+    public JSONObject roundTripGetFollowing() {
+        return paths.roundTrip(paths.buildRequest("get_following", Fixtures.SELF_ID, null, null, ++clock));
+    }
+}
@@ -0,0 +1,56 @@
+package socialnetwork.bench;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Ordenação completa (mais recente primeiro) contra ler só uma página da Timeline já ordenada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DisplaySortBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int posts;
+
+    private HotPaths paths;
+    private List<JSONObject> unsorted;
+    private Object timeline;
+
+    @Setup
+    public void setUp() {
+        paths = HotPaths.load();
+        unsorted = Fixtures.posts(posts, 42);
+        timeline = paths.buildTimeline(unsorted);
+    }
+
+    @Benchmark
+    public List<JSONObject> sortNewestFirst() {
+        // A cópia é O(n), desprezível frente à ordenação, e mantém a entrada embaralhada
+        List<JSONObject> copy = new ArrayList<>(unsorted);
+        paths.sortNewestFirst(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public List<JSONObject> timelinePage() {
+        // O que a exibição paginada faz: O(página), independente do total de posts
+        return paths.newestPage(timeline, 10);
+    }
+}
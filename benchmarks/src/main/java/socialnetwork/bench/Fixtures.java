@@ -0,0 +1,122 @@
+package socialnetwork.bench;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+// Payloads realistas para os benchmarks, gerados a partir dos modelos em
+// src/main/resources/fixtures (mesmo formato que o server.js publica)
+public final class Fixtures {
+    public static final String SELF_ID = "7";
+
+    private static final String POST_TEMPLATE = resource("post_notification.json");
+    private static final String PM_TEMPLATE = resource("private_message_notification.json");
+    private static final String[] CONTENTS = resource("contents.txt").split("\n");
+
+    private Fixtures() {
+    }
+
+    public static String userId(int index) {
+        return "user" + index;
+    }
+
+    public static Set<String> following(int count) {
+        Set<String> following = new HashSet<>();
+        following.add(SELF_ID);
+        for (int i = 0; i < count; i++) {
+            following.add(userId(i));
+        }
+        return following;
+    }
+
+    public static String content(Random random) {
+        return CONTENTS[random.nextInt(CONTENTS.length)];
+    }
+
+    // Mistura típica vista pelo SUB: 40% posts de quem seguimos, 40% de quem não seguimos
+    // (assinaturas antigas/prefixos), 5% próprios posts, 10% PMs para nós e 5% PMs para outros
+    public static List<String> notificationFrames(int count, int followedUsers, long seed) {
+        Random random = new Random(seed);
+        List<String> frames = new ArrayList<>(count);
+        long now = 1_716_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            int roll = random.nextInt(100);
+            long createdAt = now + i * 37L;
+            if (roll < 40) {
+                String author = userId(random.nextInt(Math.max(1, followedUsers)));
+                frames.add(author + ":" + post(author, content(random), createdAt));
+            } else if (roll < 80) {
+                String author = userId(followedUsers + random.nextInt(10_000));
+                frames.add(author + ":" + post(author, content(random), createdAt));
+            } else if (roll < 85) {
+                frames.add(SELF_ID + ":" + post(SELF_ID, content(random), createdAt));
+            } else if (roll < 95) {
+                String sender = userId(random.nextInt(10_000));
+                frames.add(SELF_ID + ":PM:" + privateMessage(sender, content(random), createdAt));
+            } else {
+                String sender = userId(random.nextInt(10_000));
+                String receiver = userId(random.nextInt(Math.max(1, followedUsers)));
+                frames.add(receiver + ":PM:" + privateMessage(sender, content(random), createdAt));
+            }
+        }
+        return frames;
+    }
+
+    public static String post(String author, String content, long createdAt) {
+        return POST_TEMPLATE
+                .replace("3f9c2a64-8d1e-4b7a-9f0e-5c2d7a1b6e48", UUID.randomUUID().toString())
+                .replace("{author}", author)
+                .replace("{content}", JSONObject.quote(content).replaceAll("^\"|\"$", ""))
+                .replace("{created_at}", Long.toString(createdAt))
+                .replace("{client_timestamp}", Long.toString(createdAt - 120))
+                .replace("{server_timestamp}", Long.toString(createdAt + 3));
+    }
+
+    public static String privateMessage(String sender, String content, long createdAt) {
+        return PM_TEMPLATE
+                .replace("{sender}", sender)
+                .replace("{content}", JSONObject.quote(content).replaceAll("^\"|\"$", ""))
+                .replace("{created_at}", Long.toString(createdAt))
+                .replace("{client_timestamp}", Long.toString(createdAt - 120))
+                .replace("{server_timestamp}", Long.toString(createdAt + 3));
+    }
+
+    // Posts como o get_all_posts devolve, com created_at embaralhado
+    public static List<JSONObject> posts(int count, long seed) {
+        Random random = new Random(seed);
+        List<JSONObject> posts = new ArrayList<>(count);
+        long now = 1_716_000_000_000L;
+        for (int i = 0; i < count; i++) {
+            long createdAt = now - random.nextInt(30 * 24 * 3600) * 1000L - random.nextInt(1000);
+            posts.add(new JSONObject(post(userId(random.nextInt(5_000)), content(random), createdAt))
+                    .getJSONObject("post"));
+        }
+        return posts;
+    }
+
+    private static String resource(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture: " + name);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString(StandardCharsets.UTF_8.name()).trim();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read fixture " + name, e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package socialnetwork.bench;
+
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.Set;
+
+// Ponte para as classes do cliente, que ficam no pacote padrão. O JMH exige que os
+// benchmarks tenham pacote, e código com pacote não importa classes do pacote padrão;
+// a implementação (ClientHotPaths) fica no pacote padrão e é carregada por nome.
+public interface HotPaths {
+
+    void configureDecoder(String userId, Set<String> following);
+
+    Object decodeNotification(byte[] frame);
+
+    JSONObject buildRequest(String type, String userId, String peerId, String content, long clientTimestamp);
+
+    void openLogger(String userId, String logFile);
+
+    void log(String message);
+
+    // Espera o log chegar ao disco; devolve o total de registros descartados
+    long flushLogger();
+
+    void closeLogger();
+
+    void sortNewestFirst(List<JSONObject> posts);
+
+    // Linha do tempo ordenada na inserção (Timeline) e leitura de uma página dela
+    Object buildTimeline(List<JSONObject> posts);
+
+    List<JSONObject> newestPage(Object timeline, int pageSize);
+
+    // Codificação no fio: "json" ou "binary"
+    byte[] encodeMessage(String codec, JSONObject message);
+
+    JSONObject decodeMessage(byte[] frame);
+
+    // Ida e volta completa contra o server embutido, pelo transporte inproc
+    void openStandIn(String codec);
+
+    JSONObject roundTrip(JSONObject request);
+
+    void closeStandIn();
+
+    static HotPaths load() {
+        try {
+            return (HotPaths) Class.forName("ClientHotPaths").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("ClientHotPaths not found on the classpath", e);
+        }
+    }
+}
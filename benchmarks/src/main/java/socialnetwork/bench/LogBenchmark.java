@@ -0,0 +1,80 @@
+package socialnetwork.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Vazão do log do cliente. logSingleThread/logTwoThreads medem o custo para quem chama
+// (com o ring saturado, inclui descartes); logSustained mede a vazão até o arquivo
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LogBenchmark {
+    private HotPaths paths;
+    private File logFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        paths = HotPaths.load();
+        logFile = File.createTempFile("client_bench_", "_log.txt");
+        paths.openLogger(Fixtures.SELF_ID, logFile.getPath());
+    }
+
+    // O log é assíncrono: a iteração só termina quando o que foi registrado chegou ao
+    // arquivo, e os descartes por ring cheio são informados
+    @TearDown(Level.Iteration)
+    public void flush() {
+        long dropped = paths.flushLogger();
+        if (dropped > 0) {
+            System.out.println("(log records dropped so far: " + dropped + ")");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        paths.closeLogger();
+        Files.deleteIfExists(logFile.toPath());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void logSingleThread() {
+        paths.log("Received post notification from user user42: Bom dia pessoal!");
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void logTwoThreads() {
+        paths.log("Received post notification from user user42: Bom dia pessoal!");
+    }
+
+    // Vazão sustentada até o disco: lotes menores que o ring, sem descartes
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(1024)
+    public void logSustained() {
+        for (int i = 0; i < 1024; i++) {
+            paths.log("Received post notification from user user42: Bom dia pessoal!");
+        }
+        paths.flushLogger();
+    }
+}
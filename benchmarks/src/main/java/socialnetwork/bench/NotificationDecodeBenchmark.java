@@ -0,0 +1,54 @@
+package socialnetwork.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Decodificação de notificações do listener (bytes recebidos do SUB): tópico, filtro
+// de seguidos e parse do JSON, sobre uma mistura realista de frames
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationDecodeBenchmark {
+    private static final int FRAME_COUNT = 4096;
+
+    @Param({ "10", "1000", "10000" })
+    public int followedUsers;
+
+    private HotPaths paths;
+    private byte[][] frames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        paths = HotPaths.load();
+        paths.configureDecoder(Fixtures.SELF_ID, Fixtures.following(followedUsers));
+        List<String> fixtures = Fixtures.notificationFrames(FRAME_COUNT, followedUsers, 42);
+        frames = new byte[FRAME_COUNT][];
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            frames[i] = fixtures.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public Object decodeMixed() {
+        byte[] frame = frames[next];
+        next = (next + 1) & (FRAME_COUNT - 1);
+        return paths.decodeNotification(frame);
+    }
+}
@@ -0,0 +1,66 @@
+package socialnetwork.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Montagem do envelope de cada operação até os bytes que vão para o socket
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestEnvelopeBenchmark {
+    private HotPaths paths;
+    private String content;
+    private long clock;
+
+    @Setup
+    public void setUp() {
+        paths = HotPaths.load();
+        content = Fixtures.content(new Random(7));
+        clock = System.currentTimeMillis();
+    }
+
+    private byte[] encode(String type) {
+        return paths.buildRequest(type, Fixtures.SELF_ID, "user42", content, ++clock)
+                .toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] createPost() {
+        return encode("create_post");
+    }
+
+    @Benchmark
+    public byte[] followUser() {
+        return encode("follow_user");
+    }
+
+    @Benchmark
+    public byte[] sendPrivateMessage() {
+        return encode("send_private_message");
+    }
+
+    @Benchmark
+    public byte[] getFollowing() {
+        return encode("get_following");
+    }
+
+    @Benchmark
+    public byte[] getAllPosts() {
+        return encode("get_all_posts");
+    }
+}
@@ -0,0 +1,344 @@
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// CODIFICAÇÃO BINÁRIA COMPACTA (no estilo MessagePack)
+// Frame: byte mágico 0xC1 seguido de um valor. Cada valor tem uma tag de um byte;
+// tamanhos e inteiros vão em varint (inteiros em zigzag), textos em UTF-8 prefixados
+// pelo tamanho e double em 8 bytes big-endian. Não há aspas, escapes nem números
+// em texto, então codificar e decodificar não passa por StringBuilder nem tokenizer.
+public final class BinaryCodec implements WireCodec {
+    // 0xC1 nunca é usado pelo MessagePack e não é um primeiro byte válido de JSON
+    static final byte MAGIC = (byte) 0xC1;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte OBJECT = 6;
+    private static final byte ARRAY = 7;
+
+    private static final int MAX_DEPTH = 64;
+
+    // Buffer reaproveitado por thread; só o resultado final é copiado
+    private static final ThreadLocal<Writer> WRITERS = ThreadLocal.withInitial(Writer::new);
+
+    @Override
+    public String name() {
+        return "binary";
+    }
+
+    static boolean isBinary(byte[] frame, int offset) {
+        return frame.length > offset && frame[offset] == MAGIC;
+    }
+
+    @Override
+    public byte[] encode(JSONObject message) {
+        Writer writer = WRITERS.get();
+        writer.reset();
+        writer.writeByte(MAGIC);
+        writer.writeObject(message, 0);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public JSONObject decode(byte[] frame, int offset, int length) {
+        Reader reader = new Reader(frame, offset, length);
+        reader.expectMagic();
+        if (reader.readByte() != OBJECT) {
+            throw new JSONException("Binary frame does not hold an object");
+        }
+        return reader.readObjectBody(0);
+    }
+
+    // Leitura em streaming: os elementos de "arrayKey" vão para o consumidor um a um e os
+    // demais campos para o header. Devolve quantos elementos foram entregues.
+    static int readStreaming(byte[] frame, String arrayKey, JSONObject header, Consumer<JSONObject> sink) {
+        Reader reader = new Reader(frame, 0, frame.length);
+        reader.expectMagic();
+        if (reader.readByte() != OBJECT) {
+            throw new JSONException("Binary frame does not hold an object");
+        }
+        int count = 0;
+        int fields = reader.readLength();
+        for (int i = 0; i < fields; i++) {
+            String key = reader.readString();
+            byte tag = reader.readByte();
+            if (tag == ARRAY && key.equals(arrayKey)) {
+                int elements = reader.readLength();
+                for (int j = 0; j < elements; j++) {
+                    Object value = reader.readValue(reader.readByte(), 1);
+                    if (!(value instanceof JSONObject)) {
+                        throw new JSONException("Expected an object in " + arrayKey + " but got " + value);
+                    }
+                    sink.accept((JSONObject) value);
+                    count++;
+                }
+            } else {
+                header.put(key, reader.readValue(tag, 1));
+            }
+        }
+        return count;
+    }
+
+    private static final class Writer {
+        private byte[] buffer = new byte[512];
+        private int position;
+
+        void reset() {
+            position = 0;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        void writeByte(byte value) {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        // UTF-8 escrito direto no buffer; o tamanho vai antes, então é reservado depois de medir
+        void writeString(String value) {
+            int length = value.length();
+            int utf8Length = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    utf8Length++;
+                } else if (c < 0x800) {
+                    utf8Length += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    utf8Length += 4;
+                    i++;
+                } else {
+                    utf8Length += 3;
+                }
+            }
+            writeVarint(utf8Length);
+            ensure(utf8Length);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else {
+                    // Surrogate solto vira U+FFFD, como faz o getBytes
+                    if (Character.isSurrogate(c)) {
+                        c = '�';
+                    }
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        void writeObject(JSONObject object, int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new JSONException("Message nested deeper than " + MAX_DEPTH + " levels");
+            }
+            writeByte(OBJECT);
+            writeVarint(object.length());
+            for (String key : object.keySet()) {
+                writeString(key);
+                writeValue(object.opt(key), depth);
+            }
+        }
+
+        void writeValue(Object value, int depth) {
+            if (value == null || value == JSONObject.NULL) {
+                writeByte(NULL);
+            } else if (value instanceof String) {
+                writeByte(STRING);
+                writeString((String) value);
+            } else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte) {
+                writeInt(((Number) value).longValue());
+            } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < 64) {
+                writeInt(((BigInteger) value).longValue());
+            } else if (value instanceof BigDecimal && isIntegral((BigDecimal) value)) {
+                writeInt(((BigDecimal) value).longValueExact());
+            } else if (value instanceof Number && !(value instanceof BigInteger)) {
+                writeByte(DOUBLE);
+                ensure(8);
+                long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    buffer[position++] = (byte) (bits >>> shift);
+                }
+            } else if (value instanceof JSONObject) {
+                writeObject((JSONObject) value, depth + 1);
+            } else if (value instanceof JSONArray) {
+                JSONArray array = (JSONArray) value;
+                writeByte(ARRAY);
+                writeVarint(array.length());
+                for (int i = 0; i < array.length(); i++) {
+                    writeValue(array.opt(i), depth + 1);
+                }
+            } else {
+                // BigInteger grande e tipos que o JSONObject guardaria como texto
+                writeByte(STRING);
+                writeString(value.toString());
+            }
+        }
+
+        private void writeInt(long value) {
+            writeByte(INT);
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        private static boolean isIntegral(BigDecimal value) {
+            try {
+                value.longValueExact();
+                return true;
+            } catch (ArithmeticException e) {
+                return false;
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        void expectMagic() {
+            if (readByte() != MAGIC) {
+                throw new JSONException("Not a binary frame");
+            }
+        }
+
+        byte readByte() {
+            if (position >= limit) {
+                throw new JSONException("Truncated binary frame");
+            }
+            return buffer[position++];
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new JSONException("Malformed varint in binary frame");
+        }
+
+        // Tamanhos nunca passam do que resta no frame; protege contra alocações absurdas
+        int readLength() {
+            long length = readVarint();
+            if (length < 0 || length > limit - position) {
+                throw new JSONException("Invalid length " + length + " in binary frame");
+            }
+            return (int) length;
+        }
+
+        String readString() {
+            int length = readLength();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        JSONObject readObjectBody(int depth) {
+            if (depth > MAX_DEPTH) {
+                throw new JSONException("Binary frame nested deeper than " + MAX_DEPTH + " levels");
+            }
+            int fields = readLength();
+            JSONObject object = new JSONObject();
+            for (int i = 0; i < fields; i++) {
+                String key = readString();
+                object.put(key, readValue(readByte(), depth));
+            }
+            return object;
+        }
+
+        Object readValue(byte tag, int depth) {
+            switch (tag) {
+                case NULL:
+                    return JSONObject.NULL;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case INT:
+                    long zigzag = readVarint();
+                    long value = (zigzag >>> 1) ^ -(zigzag & 1);
+                    // Mesmo tipo que o parser de JSON devolveria
+                    if (value == (int) value) {
+                        return (int) value;
+                    }
+                    return value;
+                case DOUBLE:
+                    if (limit - position < 8) {
+                        throw new JSONException("Truncated binary frame");
+                    }
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | (buffer[position++] & 0xFF);
+                    }
+                    return Double.longBitsToDouble(bits);
+                case STRING:
+                    return readString();
+                case OBJECT:
+                    return readObjectBody(depth + 1);
+                case ARRAY:
+                    if (depth > MAX_DEPTH) {
+                        throw new JSONException("Binary frame nested deeper than " + MAX_DEPTH + " levels");
+                    }
+                    int elements = readLength();
+                    JSONArray array = new JSONArray();
+                    for (int i = 0; i < elements; i++) {
+                        array.put(readValue(readByte(), depth + 1));
+                    }
+                    return array;
+                default:
+                    throw new JSONException("Unknown tag " + tag + " in binary frame");
+            }
+        }
+    }
+}
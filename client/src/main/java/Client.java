@@ -1,87 +1,474 @@
 import org.zeromq.SocketType;
 import org.zeromq.ZMQ;
 import org.zeromq.ZContext;
+import org.zeromq.ZMQException;
 import org.json.JSONObject;
 import org.json.JSONArray;
 
 import java.util.Scanner;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.ArrayList;
-import java.util.List;
-import java.io.FileInputStream;
-import java.util.Properties;
-import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.Comparator;
-import java.util.Date;
-import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 public class Client {
+    private static final long STARTUP_TIMEOUT_MILLIS = 5000;
+
     private final String userId;
     private final ZContext context;
-    private final ZMQ.Socket reqSocket;
-    private final ZMQ.Socket subSocket;
-    private final List<JSONObject> receivedPosts;
-    private final List<JSONObject> receivedMessages;
+    private final boolean ownsContext;
+    private final RequestEngine requestEngine;
+    // Leituras com hedge (null quando desligado)
+    private final HedgedReader hedgedReader;
+    // Socket SUB: criado e usado só pela thread do listener
+    private final String subAddress;
+    private final SubscriptionManager subscriptions;
+    // Posts recebidos por notificação, fora do heap e já ordenados na inserção
+    private final PostStore receivedPosts;
+    // Mensagens privadas recebidas, por remetente
+    private final MessageStore receivedMessages;
     private final ExecutorService executorService;
     private boolean isRunning;
-    private Set<String> following;
     private boolean inMenu = false;
 
-    // LOGICAL CLOCK - Relógio lógico do cliente
-    private Date logicalClock;
-    private final SimpleDateFormat timeFormat;
+    // LOGICAL CLOCK - Relógio lógico híbrido do cliente (seguro entre threads)
+    private final HybridLogicalClock logicalClock;
+    private final DateTimeFormatter timeFormat;
     private final String logFile;
+    private final ClientLogger logger;
+    private final ClientMetrics metrics;
+    private final NotificationPipeline notificationPipeline;
+    // Notificações como Flow.Publisher, para quem usa o cliente como biblioteca
+    private final ExecutorService publisherExecutor;
+    private final NotificationPublisher<JSONObject> postPublisher;
+    private final NotificationPublisher<JSONObject> messagePublisher;
+    private final NotificationPublisher<ClockSyncEvent> clockSyncPublisher;
+    // Só a thread do sink usa (null quando desligado)
+    private final DuplicateFilter duplicateFilter;
+    private final int subscriberRcvHwm;
+    private final int postsPageSize;
+    private final int batchMaxItems;
+    private final PostPager pager;
+    private final Timeline timeline;
+    // Busca local (null quando desligada)
+    private final SearchIndex searchIndex;
+    // Cache em disco (null quando desligado); a recuperação roda em segundo plano
+    private final LocalCache localCache;
+    private final CompletableFuture<Void> cacheRestored;
+    private final TimelineSync timelineSync;
+    private final boolean incrementalSync;
+    private final ExecutorService pageReaderExecutor;
+    // Decodifica as respostas e roda o tratamento delas, fora da thread de I/O do engine
+    private final ExecutorService replyExecutor;
+    private final boolean traceListener;
+    // Captura binária do tráfego (null = desligada)
+    private final TraceRecorder traceRecorder;
+
+    // INICIALIZAÇÃO: tempos por fase e futures de prontidão (listener assinado e lista de
+    // seguidos conhecida) e da conferência dos seguidos com o server
+    private final StartupTimer startup = new StartupTimer();
+    private final boolean fastStart;
+    private final Path followSnapshot;
+    private final CompletableFuture<Void> listenerReady = new CompletableFuture<>();
+    // Parada só do listener, para a reprodução de uma captura ser o único produtor do pipeline
+    private volatile boolean listenerStopRequested;
+    private final CompletableFuture<Void> listenerStopped = new CompletableFuture<>();
+    private final CompletableFuture<Void> followingSynced;
+    private final CompletableFuture<Void> ready;
 
     public Client(String userId, String brokerAddress, String subAddress) {
+        this(userId, brokerAddress, subAddress, RequestEngine.DEFAULT_WINDOW);
+    }
+
+    public Client(String userId, String brokerAddress, String subAddress, int requestWindow) {
+        this(userId, withAddresses(brokerAddress, subAddress, requestWindow));
+    }
+
+    public Client(String userId, ClientConfig config) {
+        this(userId, config, null);
+    }
+
+    // Com um ZContext compartilhado (ex.: cluster embutido em inproc://), o contexto
+    // continua aberto no close()
+    public Client(String userId, ClientConfig config, ZContext sharedContext) {
+        long phase = startup.begin();
+        String brokerAddress = config.brokerAddress;
+        String subAddress = config.subAddress;
+        int requestWindow = config.requestWindow;
         this.userId = userId;
-        this.context = new ZContext();
-        this.reqSocket = context.createSocket(SocketType.REQ);
-        this.subSocket = context.createSocket(SocketType.SUB);
-        this.receivedPosts = new ArrayList<>();
-        this.receivedMessages = new ArrayList<>();
+        this.ownsContext = sharedContext == null;
+        this.context = ownsContext ? new ZContext() : sharedContext;
+        this.subAddress = subAddress;
+        this.receivedPosts = new PostStore(config.postsStoreSegmentBytes, config.postsStoreMaxPosts,
+                config.postsStoreMaxBytes, config.postsStoreMaxAgeMinutes * 60_000);
+        this.receivedMessages = new MessageStore(config.messagesRetention);
         this.executorService = Executors.newSingleThreadExecutor();
         this.isRunning = true;
-        this.following = new HashSet<>();
-        this.timeFormat = new SimpleDateFormat("HH:mm:ss");
+        this.timeFormat = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
 
         // CONFIGURAR ARQUIVO DE LOG
         this.logFile = "logs/client_" + userId + "_log.txt";
         createLogDirectory();
+        // INICIALIZAR RELÓGIO LÓGICO - parte do horário físico na inicialização
+        this.logicalClock = new HybridLogicalClock();
+        this.logger = new ClientLogger(userId, logFile, logicalClock::currentMillis, config.logCapacity,
+                config.logMaxBytes, config.logRotateMinutes * 60_000);
+        this.metrics = new ClientMetrics(userId);
+
+        System.out.println("LOGICAL CLOCK initialized at: " + clockTime());
+        log("CLIENT STARTED - Logical clock initialized at: " + clockTime());
+
+        // Segue a si mesmo (para ver próprios posts) e assina as próprias mensagens privadas
+        this.subscriptions = new SubscriptionManager(userId);
+        this.traceListener = config.traceListener;
+        this.traceRecorder = config.traceCapture ? openTraceRecorder(config) : null;
+        this.subscriberRcvHwm = config.subscriberRcvHwm;
+        this.duplicateFilter = config.dedup ? new DuplicateFilter(config.dedupRecentWindow, config.dedupBloomBytes,
+                config.dedupFalsePositiveRate) : null;
+        this.publisherExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "notification-publisher-" + userId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        NotificationPublisher.Overflow publisherOverflow = NotificationPublisher.Overflow.forName(
+                config.publisherOverflow);
+        this.postPublisher = new NotificationPublisher<>("posts", publisherExecutor, publisherOverflow,
+                config.publisherBufferSize);
+        this.messagePublisher = new NotificationPublisher<>("private messages", publisherExecutor,
+                publisherOverflow, config.publisherBufferSize);
+        this.clockSyncPublisher = new NotificationPublisher<>("clock syncs", publisherExecutor, publisherOverflow,
+                config.publisherBufferSize);
+        this.notificationPipeline = new NotificationPipeline(userId,
+                new NotificationDecoder(userId, subscriptions.getFollowIndex()), this::deliverNotification,
+                traceListener ? listenerTracer() : null, metrics, config.notificationQueueCapacity,
+                NotificationPipeline.Overflow.forName(config.notificationQueueOverflow),
+                config.notificationSinkCapacity,
+                NotificationPipeline.Overflow.forName(config.notificationSinkOverflow));
+        metrics.attachPipeline(notificationPipeline);
+        this.postsPageSize = config.postsPageSize;
+        this.batchMaxItems = Math.max(1, Math.min(config.batchMaxItems, EmbeddedServer.MAX_BATCH_ITEMS));
+        this.pager = new PostPager(System.out, postsPageSize, subscriptions::isFollowing);
+        this.pageReaderExecutor = Executors.newSingleThreadExecutor();
+        this.replyExecutor = Executors.newSingleThreadExecutor();
+        // Mesmos limites dos posts recebidos: a linha do tempo também guarda cada post notificado
+        this.timeline = new Timeline(receivedPosts.emptyCopy());
+        // Todo post novo da linha do tempo (notificação, sincronização ou "todos os posts") entra no índice
+        this.searchIndex = config.searchIndex ? new SearchIndex(config.searchIndexBytes, timeline::get) : null;
+        timeline.setListener(this::timelinePostAdded);
+        this.incrementalSync = config.timelineSync;
+        this.timelineSync = new TimelineSync(timeline,
+                (limit, before, after, sink) -> readPostsPage(submitPostsPage(limit, before, after).join(), sink),
+                postsPageSize, config.timelineSyncMaxPages, config.timelineSyncMaxAgeMinutes * 60_000,
+                config.timelineSyncOverlapMillis);
+        // CACHE LOCAL: o checkpoint (pequeno) é lido já, os segmentos em segundo plano
+        this.localCache = config.localCache ? openLocalCache(config) : null;
+        JSONObject checkpoint = localCache != null ? localCache.readCheckpoint() : null;
+        if (checkpoint != null && checkpoint.has("high_water_mark")) {
+            timelineSync.restore(PostCursor.fromJSON(checkpoint.getJSONObject("high_water_mark")),
+                    checkpoint.optLong("last_sync_millis"));
+        }
+        this.cacheRestored = localCache != null ? CompletableFuture.runAsync(this::restoreCache, pageReaderExecutor)
+                : CompletableFuture.completedFuture(null);
+        startup.end("init", phase, null);
+
+        // INICIALIZAÇÃO RÁPIDA: seguidos do snapshot já entram nas assinaturas iniciais e o
+        // listener sobe enquanto os sockets de requisição são criados
+        this.fastStart = config.fastStart;
+        this.followSnapshot = Paths.get("logs", "following_" + userId + ".txt");
+        List<String> restored = fastStart ? restoreFollowing(checkpoint) : null;
+        if (fastStart) {
+            startMessageListener();
+        }
 
-        // INICIALIZAR RELÓGIO LÓGICO - horário fixo na inicialização
-        this.logicalClock = new Date();
-        System.out.println("LOGICAL CLOCK initialized at: " + timeFormat.format(logicalClock));
-        log("CLIENT STARTED - Logical clock initialized at: " + timeFormat.format(logicalClock));
-
-        // Adicionar a si mesmo à lista de seguindo (para ver próprios posts)
-        this.following.add(userId);
-
-        // Conectar ao broker para requests
-        reqSocket.connect(brokerAddress);
+        phase = startup.begin();
+        // Conectar ao broker para requests (DEALER com várias requisições em voo)
+        this.requestEngine = new RequestEngine(context, config.brokerAddresses(), requestWindow,
+                config.requestPolicy);
+        this.hedgedReader = config.hedgeReads
+                ? new HedgedReader(context, requestEngine, config.brokerAddresses(), requestWindow,
+                        config.requestPolicy, config.hedgePercentile, config.hedgeInitialDelayMillis,
+                        config.hedgeMinDelayMillis, config.hedgeMaxDelayMillis)
+                : null;
+        metrics.attach(requestEngine, logger);
+        if (hedgedReader != null) {
+            hedgedReader.getSecondary().setMetrics(metrics);
+        }
+        if (traceRecorder != null) {
+            requestEngine.setRecorder(traceRecorder);
+            if (hedgedReader != null) {
+                hedgedReader.getSecondary().setRecorder(traceRecorder);
+            }
+        }
+        if (config.metricsJmx) {
+            metrics.registerMBeans();
+        }
+        if (config.metricsSnapshotSeconds > 0) {
+            metrics.startSnapshots("logs/metrics_" + userId + ".txt", config.metricsSnapshotSeconds * 1000);
+        }
+        startup.end("sockets", phase, null);
         clearScreen();
         System.out.println("Client " + userId + " connected to broker at " + brokerAddress);
-        System.out.println("Client logical clock: " + timeFormat.format(logicalClock));
-        log("Connected to broker at: " + brokerAddress);
+        System.out.println("Client logical clock: " + clockTime());
+        log("Connected to broker at: " + brokerAddress + " (request window: " + requestWindow + ")");
+
+        // Codificação no fio: JSON até o server aceitar a proposta de outra
+        WireCodec preferredCodec = WireCodec.forName(config.wireCodec);
+        if (preferredCodec != WireCodec.JSON) {
+            requestEngine.negotiate(preferredCodec).thenAccept(codec ->
+                    log("Wire codec negotiated: " + codec.name() + " (proposed: " + preferredCodec.name() + ")"));
+            if (hedgedReader != null) {
+                hedgedReader.getSecondary().negotiate(preferredCodec);
+            }
+        }
 
-        // Conectar ao proxy para assinatura de posts
-        subSocket.connect(subAddress);
-        log("Connected to subscriber at: " + subAddress);
+        if (fastStart) {
+            // Lista de seguidos conferida com o server em segundo plano; com snapshot o cliente
+            // já está pronto quando o listener assina, sem ele espera a resposta do server
+            long fetch = startup.begin();
+            this.followingSynced = getFollowingAsync()
+                    .thenAccept(response -> reconcileFollowing(response, restored, fetch));
+            this.ready = restored != null ? listenerReady : CompletableFuture.allOf(listenerReady, followingSynced);
+        } else {
+            // Iniciar thread para receber posts e mensagens (conecta ao proxy e assina os tópicos)
+            startMessageListener();
+
+            // Carregar usuários que já segue
+            long fetch = startup.begin();
+            loadFollowing();
+            startup.end("following", fetch, (subscriptions.getFollowingCount() - 1) + " users");
+            this.followingSynced = CompletableFuture.completedFuture(null);
+            this.ready = listenerReady;
+        }
+    }
+
+    private static ClientConfig withAddresses(String brokerAddress, String subAddress, int requestWindow) {
+        ClientConfig config = new ClientConfig();
+        config.brokerAddress = brokerAddress;
+        config.subAddress = subAddress;
+        config.requestWindow = requestWindow;
+        return config;
+    }
+
+    // Sem arquivo de captura o cliente segue sem ela
+    private TraceRecorder openTraceRecorder(ClientConfig config) {
+        Path file = Paths.get(config.traceFile.isEmpty() ? "logs/trace_" + userId + ".bin" : config.traceFile);
+        try {
+            TraceRecorder recorder = new TraceRecorder(file, config.traceMapBytes);
+            System.out.println("Capturing traffic to " + file);
+            log("Trace capture enabled: " + file);
+            return recorder;
+        } catch (IOException e) {
+            System.out.println("Could not open trace file " + file + ": " + e.getMessage());
+            log("Trace capture disabled, could not open " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Sem diretório de cache o cliente segue sem ele
+    private LocalCache openLocalCache(ClientConfig config) {
+        Path directory = Paths.get("logs", "cache_" + userId);
+        try {
+            LocalCache cache = new LocalCache(directory, config.localCacheSegmentBytes, config.localCacheMaxBytes);
+            log("Local cache enabled: " + directory);
+            return cache;
+        } catch (IOException e) {
+            System.out.println("Could not open local cache " + directory + ": " + e.getMessage());
+            log("Local cache disabled, could not open " + directory + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Lê os segmentos da execução anterior; notificações e telas esperam por isso (awaitCache)
+    private void restoreCache() {
+        long phase = startup.begin();
+        try {
+            Set<String> peers = new HashSet<>();
+            LocalCache.Recovery recovery = localCache.recover((kind, item) -> {
+                switch (kind) {
+                    case LocalCache.RECEIVED_POST:
+                        receivedPosts.add(item);
+                        restoreTimelinePost(item);
+                        break;
+                    case LocalCache.TIMELINE_POST:
+                        restoreTimelinePost(item);
+                        break;
+                    case LocalCache.PRIVATE_MESSAGE:
+                        receivedMessages.add(item);
+                        if (searchIndex != null) {
+                            searchIndex.addMessage(item);
+                        }
+                        peers.add(item.getString("sender_id"));
+                        break;
+                    default:
+                        break;
+                }
+            });
+            // Mensagens restauradas já foram entregues na execução anterior
+            for (String peer : peers) {
+                receivedMessages.markRead(peer);
+            }
+            startup.end("cache", phase, recovery.toString());
+            log("Local cache restored: " + recovery + " (" + receivedPosts.size() + " received posts, "
+                    + timeline.size() + " timeline posts, " + receivedMessages.getReceivedCount() + " messages)");
+        } catch (IOException e) {
+            startup.end("cache", phase, "unreadable");
+            log("Could not read local cache " + localCache.getDirectory() + ": " + e.getMessage());
+        }
+    }
+
+    // Direto no store: pelo Timeline.add o listener gravaria o post no cache de novo
+    private void restoreTimelinePost(JSONObject post) {
+        if (timeline.getStore().add(post) && searchIndex != null) {
+            searchIndex.addPost(post);
+        }
+    }
+
+    // Post novo na linha do tempo: índice de busca e, se não veio por notificação (já gravado
+    // em handlePost), cache local. Uma ressincronização completa só avisa dos posts que a
+    // linha do tempo ainda não tinha (Timeline.finishRebuild), então não regrava o que já está no cache
+    private void timelinePostAdded(JSONObject post) {
+        if (searchIndex != null) {
+            searchIndex.addPost(post);
+        }
+        if (localCache != null && !receivedPosts.contains(post.getString("id"))) {
+            localCache.append(LocalCache.TIMELINE_POST, post);
+        }
+    }
+
+    // NOTIFICAÇÕES REATIVAS - posts e mensagens aceitos (sem duplicatas) e sincronizações de
+    // relógio. Cada assinante escolhe a política da própria fila:
+    // client.posts().subscribe(subscriber, NotificationPublisher.Overflow.LATEST, 1)
+    public NotificationPublisher<JSONObject> posts() {
+        return postPublisher;
+    }
+
+    public NotificationPublisher<JSONObject> privateMessages() {
+        return messagePublisher;
+    }
+
+    public NotificationPublisher<ClockSyncEvent> clockSyncs() {
+        return clockSyncPublisher;
+    }
+
+    public CompletableFuture<Void> cacheRestored() {
+        return cacheRestored;
+    }
+
+    private void awaitCache() {
+        if (!cacheRestored.isDone()) {
+            cacheRestored.join();
+        }
+    }
+
+    private void saveCheckpoint() {
+        JSONObject state = new JSONObject();
+        PostCursor mark = timelineSync.getHighWaterMark();
+        if (mark != null) {
+            state.put("high_water_mark", mark.toJSON());
+            state.put("last_sync_millis", timelineSync.getLastSyncMillis());
+        }
+        JSONArray following = new JSONArray();
+        for (String followed : subscriptions.getFollowing()) {
+            if (!followed.equals(userId)) {
+                following.put(followed);
+            }
+        }
+        state.put("following", following);
+        state.put("saved_at", System.currentTimeMillis());
+        try {
+            localCache.writeCheckpoint(state);
+        } catch (IOException e) {
+            log("Could not write local cache checkpoint: " + e.getMessage());
+        }
+    }
 
-        // Assinar os próprios posts
-        subscribeToUser(userId);
+    // REPRODUÇÃO DE UMA CAPTURA (TraceReplayer) pelo caminho real do cliente: cada frame entra
+    // no pipeline de notificações como se viesse do SUB (filtro, duplicatas, handlePost,
+    // handlePrivateMessage, relógio, cache, índice, publicadores) e as respostas de
+    // get_all_posts passam pelo mesmo tratamento das operações: as paginadas (com "limit")
+    // pela leitura em streaming de readPostsPage, as inteiras por handleAllPosts. As demais
+    // respostas só são decodificadas: os handlers delas só registram no log ou mudariam as
+    // assinaturas. O listener é parado antes, porque o pipeline aceita um produtor só (a
+    // thread que chama frame()); os autores passam a ser seguidos localmente e o console
+    // fica quieto, como com o menu aberto.
+    TraceReplayer.Target replayTarget(Collection<String> authors) {
+        listenerStopRequested = true;
+        try {
+            listenerStopped.get(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Message listener did not stop before replay", e);
+        }
+        subscriptions.followAll(authors);
+        inMenu = true;
+        // request_id -> se o get_all_posts era paginado
+        Map<String, Boolean> allPostsRequests = new HashMap<>();
+        return new TraceReplayer.Target() {
+            @Override
+            public void frame(byte[] frame, byte[] body) {
+                notificationPipeline.submit(frame, body, System.nanoTime());
+            }
 
-        // Assinar mensagens privadas dirigidas a este usuário
-        subscribeToPMs();
+            @Override
+            public void request(String requestId, byte[] payload) {
+                JSONObject request = WireCodec.decodeAny(payload);
+                if ("get_all_posts".equals(request.optString("type"))) {
+                    // Retentativas repetem o request_id
+                    allPostsRequests.putIfAbsent(requestId, request.has("limit"));
+                }
+            }
 
-        // Iniciar thread para receber posts e mensagens
-        startMessageListener();
+            @Override
+            public void reply(String requestId, byte[] payload) {
+                Boolean paged = allPostsRequests.remove(requestId);
+                if (paged == null) {
+                    WireCodec.decodeAny(payload);
+                } else if (paged) {
+                    readPostsPage(payload, timeline::add);
+                } else {
+                    handleAllPosts(WireCodec.decodeAny(payload));
+                }
+            }
+        };
+    }
+
+    NotificationPipeline getNotificationPipeline() {
+        return notificationPipeline;
+    }
 
-        // Carregar usuários que já segue
-        loadFollowing();
+    ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void closeTraceRecorder() {
+        try {
+            traceRecorder.close();
+            log("Trace capture closed: " + traceRecorder.getRecordCount() + " records, "
+                    + traceRecorder.getBytesWritten() + " bytes in " + traceRecorder.getFile());
+        } catch (IOException e) {
+            log("Error closing trace file " + traceRecorder.getFile() + ": " + e.getMessage());
+        }
     }
 
     // CRIAR DIRETÓRIO DE LOGS
@@ -99,55 +486,59 @@ public class Client {
 
     // MÉTODO DE LOG
     private void log(String message) {
-        try {
-            String timestamp = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date());
-            String clockTime = timeFormat.format(logicalClock);
-            String logMessage = String.format("[%s] [CLOCK: %s] CLIENT %s - %s%n",
-                    timestamp, clockTime, userId, message);
-
-            java.nio.file.Files.write(
-                    java.nio.file.Paths.get(logFile),
-                    logMessage.getBytes(),
-                    java.nio.file.StandardOpenOption.CREATE,
-                    java.nio.file.StandardOpenOption.APPEND);
-        } catch (Exception e) {
-            System.err.println("Error writing to log: " + e.getMessage());
-        }
+        logger.log(message);
     }
 
-    // INCREMENTAR RELÓGIO LÓGICO - adiciona 1 segundo a cada operação
-    private void incrementLogicalClock() {
-        long currentTime = logicalClock.getTime();
-        logicalClock = new Date(currentTime + 1000); // +1 segundo
-        System.out.println("Clock incremented to: " + timeFormat.format(logicalClock));
-        log("Clock incremented to: " + timeFormat.format(logicalClock));
+    // Horário atual do relógio lógico para exibição
+    private String clockTime() {
+        return formatTime(logicalClock.currentMillis());
+    }
+
+    private String formatTime(long millis) {
+        return timeFormat.format(Instant.ofEpochMilli(millis));
+    }
+
+    // TICK DO RELÓGIO LÓGICO a cada operação; devolve o timestamp (ms) que vai na requisição
+    private long tickClock() {
+        return HybridLogicalClock.millis(logicalClock.tick());
     }
 
     // AJUSTAR RELÓGIO MANUALMENTE
     private void adjustClock(int seconds) {
-        long currentTime = logicalClock.getTime();
-        Date oldTime = new Date(currentTime);
-        logicalClock = new Date(currentTime + (seconds * 1000));
+        long oldTime = logicalClock.currentMillis();
+        logicalClock.adjust(seconds * 1000L);
         String adjustment = seconds > 0 ? "advanced" : "delayed";
         System.out.println("Clock " + adjustment + " by " + Math.abs(seconds) + " seconds");
-        System.out.println("New clock time: " + timeFormat.format(logicalClock));
+        System.out.println("New clock time: " + clockTime());
         log("Manual clock adjustment: " + adjustment + " by " + Math.abs(seconds) + "s. Old: " +
-                timeFormat.format(oldTime) + ", New: " + timeFormat.format(logicalClock));
+                formatTime(oldTime) + ", New: " + clockTime());
     }
 
-    // SINCRONIZAR COM SERVIDOR quando remetente está no futuro
-    private void synchronizeWithServer(long serverTime, String source) {
-        Date oldTime = new Date(logicalClock.getTime());
-        logicalClock = new Date(serverTime);
+    // SINCRONIZAR COM SERVIDOR quando remetente está no futuro: o relógio passa a ficar
+    // à frente do timestamp recebido, sem nunca voltar
+    private void synchronizeWithServer(Notification notification, String source) {
+        long oldTime = logicalClock.currentMillis();
+        long senderTime = notification.senderTime();
+        if (!notification.hasServerTimestamp()) {
+            logicalClock.merge(senderTime);
+            return;
+        }
+        long serverTime = notification.serverTimestamp();
+        logicalClock.merge(Math.max(senderTime, serverTime));
+        if (senderTime <= oldTime) {
+            return;
+        }
+        metrics.recordClockSync();
+        clockSyncPublisher.publish(new ClockSyncEvent(source, oldTime, logicalClock.currentMillis(), serverTime));
 
         System.out.println("\n*** CLOCK SYNC WITH SERVER ***");
-        System.out.println("Old time: " + timeFormat.format(oldTime));
-        System.out.println("New time: " + timeFormat.format(logicalClock));
+        System.out.println("Old time: " + formatTime(oldTime));
+        System.out.println("New time: " + clockTime());
         System.out.println("*** SYNC COMPLETE ***\n");
 
         log("CLOCK SYNCHRONIZATION - Trigger: " + source +
-                ", Server time: " + timeFormat.format(new Date(serverTime)) +
-                ", New time: " + timeFormat.format(logicalClock));
+                ", Server time: " + formatTime(serverTime) +
+                ", New time: " + clockTime());
     }
 
     // Método para limpar a tela
@@ -187,398 +578,934 @@ public class Client {
         JSONObject response = getFollowing();
         if (response.has("status") && response.getString("status").equals("success")) {
             if (response.has("following")) {
-                JSONArray followingArray = response.getJSONArray("following");
-                for (int i = 0; i < followingArray.length(); i++) {
-                    String followedUserId = followingArray.getString(i);
-                    following.add(followedUserId);
-                    subscribeToUser(followedUserId);
-                }
-                System.out.println("Loaded following list: " + following);
-                log("Loaded " + followingArray.length() + " existing following relationships: " + following);
+                List<String> followedUsers = followingOf(response);
+                // Um único lote: índice copiado uma vez e assinaturas aplicadas juntas pelo listener
+                int added = subscriptions.followAll(followedUsers);
+                System.out.println("Loaded following list: " + followedUsers.size() + " users");
+                log("Loaded " + followedUsers.size() + " existing following relationships (" + added
+                        + " new subscriptions)");
             }
         } else {
             log("No existing followers");
         }
     }
 
-    private void subscribeToUser(String targetUserId) {
-        String subscriptionTopic = targetUserId + ":";
-        subSocket.subscribe(subscriptionTopic.getBytes(ZMQ.CHARSET));
-        System.out.println("*** SUBSCRIBED to posts from user " + targetUserId + " ***");
-        System.out.println("    Topic: '" + subscriptionTopic + "'");
-        log("Subscribed to posts from user " + targetUserId + " (topic: '" + subscriptionTopic + "')");
+    private static List<String> followingOf(JSONObject response) {
+        JSONArray followingArray = response.optJSONArray("following");
+        List<String> followedUsers = new ArrayList<>(followingArray != null ? followingArray.length() : 0);
+        for (int i = 0; followingArray != null && i < followingArray.length(); i++) {
+            followedUsers.add(followingArray.getString(i));
+        }
+        return followedUsers;
     }
 
-    private void subscribeToPMs() {
-        // Assinar mensagens privadas enviadas para este usuário
-        String pmTopic = userId + ":PM:";
-        subSocket.subscribe(pmTopic.getBytes(ZMQ.CHARSET));
-        System.out.println("Subscribed to private messages");
-        log("Subscribed to private messages (topic: '" + pmTopic + "')");
+    // Seguidos da última execução; null se não há snapshot (ou se não deu para lê-lo)
+    private List<String> restoreFollowing(JSONObject checkpoint) {
+        long phase = startup.begin();
+        try {
+            List<String> restored = SubscriptionManager.readSnapshot(followSnapshot);
+            // Sem snapshot, serve a lista do checkpoint do cache local
+            if (restored == null && checkpoint != null && checkpoint.has("following")) {
+                restored = new ArrayList<>();
+                JSONArray following = checkpoint.getJSONArray("following");
+                for (int i = 0; i < following.length(); i++) {
+                    restored.add(following.getString(i));
+                }
+            }
+            if (restored == null) {
+                startup.end("snapshot", phase, "none");
+                return null;
+            }
+            subscriptions.followAll(restored);
+            startup.end("snapshot", phase, restored.size() + " users");
+            System.out.println("Restored following list from snapshot: " + restored.size() + " users");
+            log("Restored " + restored.size() + " following relationships from " + followSnapshot);
+            return restored;
+        } catch (IOException e) {
+            log("Could not read following snapshot " + followSnapshot + ": " + e.getMessage());
+            startup.end("snapshot", phase, "unreadable");
+            return null;
+        }
     }
 
-private void startMessageListener() {
-    executorService.submit(() -> {
-        System.out.println("*** MESSAGE LISTENER STARTED ***");
-        while (isRunning) {
-            try {
-                String messageStr = subSocket.recvStr();
-                System.out.println("*** RECEIVED MESSAGE: "
-                        + messageStr.substring(0, Math.min(100, messageStr.length())) + "...");
-
-                // Verificar se é mensagem privada ou post
-                if (messageStr.contains(":PM:")) {
-                    // É uma mensagem privada
-                    int prefixEnd = messageStr.indexOf(":PM:") + 4;
-                    String jsonStr = messageStr.substring(prefixEnd);
-                    JSONObject message = new JSONObject(jsonStr);
-
-                    // VERIFICAR SE A MENSAGEM É PARA ESTE CLIENTE
-                    String topicReceiverId = messageStr.substring(0, messageStr.indexOf(":PM:"));
-
-                    // Só processar se a mensagem for para este cliente
-                    if (!topicReceiverId.equals(this.userId)) {
-                        System.out.println("*** IGNORED: Private message not for this user ***");
-                        continue;
-                    }
-
-                    synchronized (receivedMessages) {
-                        receivedMessages.add(message);
-                    }
+    // Confere a lista do server com a do snapshot: assina o que faltava e desfaz só o que
+    // veio do snapshot e não está mais no server (follows feitos durante a inicialização
+    // ficam); depois grava o snapshot novo
+    private void reconcileFollowing(JSONObject response, List<String> restored, long began) {
+        if (!Requests.isSuccess(response)) {
+            startup.end("following", began, "failed");
+            log("Could not reconcile following list with server (" + response.optString("message", "No message")
+                    + "); keeping " + subscriptions.getFollowingCount() + " users");
+            return;
+        }
+        List<String> followedUsers = followingOf(response);
+        int added = subscriptions.followAll(followedUsers);
+        Set<String> stale = new HashSet<>(restored != null ? restored : Collections.emptyList());
+        stale.removeAll(followedUsers);
+        int removed = subscriptions.unfollowAll(stale);
+        startup.end("following", began, followedUsers.size() + " users, +" + added + " -" + removed);
+        log("Following list reconciled with server: " + followedUsers.size() + " users (" + added + " added, "
+                + removed + " removed). Startup: " + startup.report());
+        saveFollowSnapshot();
+    }
 
-                    log("Received private message from user " + message.getString("sender_id") +
-                            ": " + message.getString("content"));
+    private void saveFollowSnapshot() {
+        try {
+            subscriptions.writeSnapshot(followSnapshot);
+        } catch (IOException e) {
+            log("Could not write following snapshot " + followSnapshot + ": " + e.getMessage());
+        }
+    }
 
-                    // VERIFICAR SE PRECISA SINCRONIZAR RELÓGIO
-                    long senderTime = message.has("client_timestamp") ? message.getLong("client_timestamp")
-                            : message.getLong("created_at");
+    // Pronto: listener assinado e lista de seguidos conhecida (do snapshot ou do server)
+    public CompletableFuture<Void> ready() {
+        return ready;
+    }
 
-                    if (senderTime > logicalClock.getTime() && message.has("server_timestamp")) {
-                        synchronizeWithServer(message.getLong("server_timestamp"),
-                                "Private Message from " + message.getString("sender_id"));
-                    }
+    // Lista de seguidos já conferida com o server
+    public CompletableFuture<Void> followingSynced() {
+        return followingSynced;
+    }
 
-                    String notification = "New private message from User " +
-                            message.getString("sender_id") + ": " +
-                            message.getString("content");
+    // Tempo de cada fase da inicialização, ex.: "init 8ms (done at 8ms), sockets 3ms (done at 12ms), ..."
+    public String startupReport() {
+        return startup.report();
+    }
 
-                    // Se não estiver no menu, mostrar imediatamente
-                    if (!inMenu) {
-                        System.out.println("\n[NOTIFICATION] " + notification);
-                    }
+    // Espera ficar pronto (no máximo timeoutMillis) e mostra o tempo de cada fase
+    public boolean awaitReady(long timeoutMillis) {
+        try {
+            ready.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            System.out.println("Client not ready after " + timeoutMillis + "ms, continuing");
+            log("Client not ready after " + timeoutMillis + "ms. Startup so far: " + startup.report());
+            return false;
+        } catch (ExecutionException e) {
+            System.out.println("Client startup failed: " + e.getCause().getMessage());
+            log("Client startup failed: " + e.getCause().getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        String report = "Client ready in " + startup.elapsedMillis() + "ms: " + startup.report();
+        System.out.println(report);
+        log(report);
+        return true;
+    }
 
-                } else {
-                    // É um post normal
-                    int separatorIndex = messageStr.indexOf(":");
-                    if (separatorIndex > 0) {
-                        String postUserId = messageStr.substring(0, separatorIndex);
-                        String jsonPart = messageStr.substring(separatorIndex + 1);
-
-                        System.out.println("*** POST NOTIFICATION from user " + postUserId + " ***");
-
-                        JSONObject postData = new JSONObject(jsonPart);
-                        if (postData.has("type") && postData.getString("type").equals("new_post")) {
-                            JSONObject post = postData.getJSONObject("post");
-
-                            // *** CORREÇÃO: NÃO PROCESSAR PRÓPRIOS POSTS ***
-                            String postAuthor = post.getString("user_id");
-                            if (postAuthor.equals(this.userId)) {
-                                System.out.println("*** IGNORED: Own post - no self-notification ***");
-                                continue;
-                            }
-
-                            // VERIFICAR SE ESTOU SEGUINDO ESTE USUÁRIO
-                            boolean shouldProcess = following.contains(postAuthor);
-
-                            if (!shouldProcess) {
-                                System.out.println("*** IGNORED: Post from user I don't follow ***");
-                                continue;
-                            }
-
-                            synchronized (receivedPosts) {
-                                receivedPosts.add(post);
-                            }
-
-                            log("Received post notification from user " + post.getString("user_id") +
-                                    ": " + post.getString("content"));
-
-                            // VERIFICAR SE PRECISA SINCRONIZAR RELÓGIO
-                            long senderTime = post.has("client_timestamp") ? post.getLong("client_timestamp")
-                                    : post.getLong("created_at");
-
-                            if (senderTime > logicalClock.getTime() && postData.has("server_timestamp")) {
-                                synchronizeWithServer(postData.getLong("server_timestamp"),
-                                        "Post from " + post.getString("user_id"));
-                            }
-
-                            String notification = "New post from User " +
-                                    post.getString("user_id") + ": " +
-                                    post.getString("content");
-
-                            // Se não estiver no menu, mostrar imediatamente
-                            if (!inMenu) {
-                                System.out.println("\n[NOTIFICATION] " + notification);
-                            }
+    // LISTENER - dono do socket SUB: recebe notificações e aplica as mudanças de assinatura
+    // que o SubscriptionManager enfileira. Se o socket quebrar, é recriado e assina tudo de novo.
+    private void startMessageListener() {
+        long listenerStart = startup.begin();
+        executorService.submit(() -> {
+            System.out.println("*** MESSAGE LISTENER STARTED ***");
+            ZMQ.Socket subSocket;
+            try {
+                subSocket = openSubscriber();
+            } catch (RuntimeException e) {
+                listenerReady.completeExceptionally(e);
+                throw e;
+            }
+            startup.end("listener", listenerStart, "following " + subscriptions.getFollowingCount());
+            listenerReady.complete(null);
+            ZMQ.Poller poller = listenerPoller(subSocket);
+            while (isRunning && !listenerStopRequested) {
+                try {
+                    poller.poll(100);
+                    // Sem depender do pipe: se a escrita do despertar falhou, a fila ainda é aplicada
+                    if (poller.pollin(1) || subscriptions.hasPending()) {
+                        int applied = subscriptions.applyPending(subSocket);
+                        if (applied > 0) {
+                            log("Applied " + applied + " subscription changes (following "
+                                    + subscriptions.getFollowingCount() + " users)");
                         }
                     }
+                    if (poller.pollin(0)) {
+                        receiveNotifications(subSocket);
+                    }
+                } catch (ZMQException e) {
+                    if (!isRunning) {
+                        break;
+                    }
+                    System.err.println("Subscriber socket failed, reconnecting: " + e.getMessage());
+                    log("Subscriber socket failed (" + e.getMessage() + "), reconnecting");
+                    poller.close();
+                    subSocket.close();
+                    subSocket = openSubscriber();
+                    poller = listenerPoller(subSocket);
+                } catch (Exception e) {
+                    if (isRunning) {
+                        System.err.println("Error in message listener: " + e.getMessage());
+                    }
+                }
+            }
+            poller.close();
+            subSocket.close();
+            System.out.println("Message listener stopped");
+            listenerStopped.complete(null);
+        });
+    }
+
+    // Socket novo já com todas as assinaturas atuais
+    private ZMQ.Socket openSubscriber() {
+        ZMQ.Socket subSocket = context.createSocket(SocketType.SUB);
+        subSocket.setLinger(0);
+        // Cada assinatura é uma mensagem para o proxy; acima do HWM seria descartada em silêncio
+        subSocket.setSndHWM(0);
+        // Fila de recepção do ZeroMQ: segura rajadas enquanto o pipeline aplica backpressure
+        subSocket.setRcvHWM(subscriberRcvHwm);
+        subSocket.connect(subAddress);
+        int topics = subscriptions.resubscribeAll(subSocket);
+        log("Connected to subscriber at: " + subAddress + " (" + topics + " topics subscribed)");
+        return subSocket;
+    }
+
+    private ZMQ.Poller listenerPoller(ZMQ.Socket subSocket) {
+        ZMQ.Poller poller = context.createPoller(2);
+        poller.register(subSocket, ZMQ.Poller.POLLIN);
+        poller.register(subscriptions.wakeupChannel(), ZMQ.Poller.POLLIN);
+        return poller;
+    }
+
+    // ESTÁGIO DE RECEPÇÃO: só tira os frames do socket e passa para o pipeline
+    private void receiveNotifications(ZMQ.Socket subSocket) {
+        byte[] frame;
+        while (isRunning && (frame = subSocket.recv(ZMQ.DONTWAIT)) != null) {
+            long receivedNanos = System.nanoTime();
+            // Modo multipart: o tópico vem num frame separado do corpo
+            byte[] body = null;
+            while (subSocket.hasReceiveMore()) {
+                byte[] part = subSocket.recv(0);
+                if (body == null) {
+                    body = part;
                 }
-            } catch (Exception e) {
-                if (isRunning) {
-                    System.err.println("Error in message listener: " + e.getMessage());
+            }
+            if (traceRecorder != null) {
+                traceRecorder.recordFrame(frame, body);
+            }
+            notificationPipeline.submit(frame, body, receivedNanos);
+        }
+    }
+
+    // ESTÁGIO FINAL (thread do sink): armazenamento, log, relógio e console
+    private void deliverNotification(Notification notification) {
+        // Notificações novas só depois das restauradas, para manter a ordem das conversas
+        awaitCache();
+        // Mesma notificação vinda de outro server (ou reentregue): nem guarda nem mostra
+        if (duplicateFilter != null && !duplicateFilter.firstSeen(identityOf(notification))) {
+            metrics.recordDuplicate();
+            if (traceListener) {
+                System.out.println("*** DUPLICATE: " + notification.kind + " from " + notification.topic + " ***");
+            }
+            return;
+        }
+        switch (notification.kind) {
+            case PRIVATE_MESSAGE:
+                handlePrivateMessage(notification);
+                break;
+            case POST:
+                if (traceListener) {
+                    System.out.println("*** POST NOTIFICATION from user " + notification.topic + " ***");
                 }
+                handlePost(notification);
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Posts e mensagens têm id gerado pelo server; sem ele, remetente + criação + conteúdo
+    static String identityOf(Notification notification) {
+        JSONObject payload = notification.payload;
+        String id = payload.optString("id", null);
+        if (id != null) {
+            return id;
+        }
+        return notification.kind + "|" + payload.optString("sender_id", payload.optString("user_id"))
+                + "|" + payload.optLong("created_at") + "|" + payload.optString("content");
+    }
+
+    private NotificationPipeline.Tracer listenerTracer() {
+        return new NotificationPipeline.Tracer() {
+            @Override
+            public void trace(byte[] frame, byte[] body) {
+                traceFrame(frame, body);
+            }
+
+            @Override
+            public void ignored(Notification.Kind kind) {
+                System.out.println("*** IGNORED: " + kind + " ***");
             }
+        };
+    }
+
+    // Rastro de cada frame recebido (listener.trace=true); desligado por padrão porque
+    // exige converter todo frame em String, inclusive os que serão descartados
+    private void traceFrame(byte[] frame, byte[] body) {
+        String messageStr = new String(frame, ZMQ.CHARSET)
+                + (body == null ? "" : new String(body, ZMQ.CHARSET));
+        System.out.println("*** RECEIVED MESSAGE: "
+                + messageStr.substring(0, Math.min(100, messageStr.length())) + "...");
+    }
+
+    private void handlePrivateMessage(Notification notification) {
+        JSONObject message = notification.payload;
+        receivedMessages.add(message);
+        if (localCache != null) {
+            localCache.append(LocalCache.PRIVATE_MESSAGE, message);
+        }
+        messagePublisher.publish(message);
+        if (searchIndex != null) {
+            searchIndex.addMessage(message);
+        }
+
+        log("Received private message from user " + message.getString("sender_id") +
+                ": " + message.getString("content"));
+
+        // SINCRONIZAR RELÓGIO com o timestamp recebido
+        synchronizeWithServer(notification, "Private Message from " + message.getString("sender_id"));
+
+        String text = "New private message from User " +
+                message.getString("sender_id") + ": " +
+                message.getString("content");
+
+        // Se não estiver no menu, mostrar imediatamente
+        if (!inMenu) {
+            System.out.println("\n[NOTIFICATION] " + text);
         }
-        System.out.println("Message listener stopped");
-    });
-}
+    }
+
+    private void handlePost(Notification notification) {
+        JSONObject post = notification.payload;
+        if (receivedPosts.add(post)) {
+            if (localCache != null) {
+                localCache.append(LocalCache.RECEIVED_POST, post);
+            }
+            postPublisher.publish(post);
+        }
+        // Já fica na linha do tempo local; a próxima sincronização não precisa trazê-lo
+        timeline.add(post);
+
+        log("Received post notification from user " + post.getString("user_id") +
+                ": " + post.getString("content"));
+
+        // SINCRONIZAR RELÓGIO com o timestamp recebido
+        synchronizeWithServer(notification, "Post from " + post.getString("user_id"));
+
+        String text = "New post from User " +
+                post.getString("user_id") + ": " +
+                post.getString("content");
+
+        // Se não estiver no menu, mostrar imediatamente
+        if (!inMenu) {
+            System.out.println("\n[NOTIFICATION] " + text);
+        }
+    }
 
     public void close() {
         isRunning = false;
         log("CLIENT SHUTTING DOWN");
-        reqSocket.close();
-        subSocket.close();
+        if (hedgedReader != null) {
+            log("Hedged reads: " + hedgeStats());
+            hedgedReader.close();
+        }
+        requestEngine.close();
+        // O listener fecha o próprio socket ao sair do loop
         executorService.shutdown();
-        context.close();
+        try {
+            executorService.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (fastStart) {
+            saveFollowSnapshot();
+        }
+        subscriptions.close();
+        notificationPipeline.close();
+        // Assinantes recebem onComplete depois do que já estava nas filas
+        postPublisher.close();
+        messagePublisher.close();
+        clockSyncPublisher.close();
+        publisherExecutor.shutdown();
+        if (traceRecorder != null) {
+            closeTraceRecorder();
+        }
+        if (localCache != null) {
+            awaitCache();
+            saveCheckpoint();
+            try {
+                localCache.close();
+            } catch (IOException e) {
+                log("Error closing local cache: " + e.getMessage());
+            }
+        }
+        pageReaderExecutor.shutdown();
+        replyExecutor.shutdown();
+        if (ownsContext) {
+            context.close();
+        }
+        metrics.close();
+        logger.close();
     }
 
-    public JSONObject createPost(String content) {
-        // INCREMENTAR RELÓGIO antes da operação
-        incrementLogicalClock();
+    // Envia pelo motor de requisições; timeout ou falha de envio vira uma resposta de erro,
+    // que as operações já sabem tratar. A resposta é decodificada no replyExecutor, e os
+    // thenApply das operações rodam lá também: a thread de I/O só recebe os bytes
+    private CompletableFuture<JSONObject> send(JSONObject message) {
+        return recoverFailure(message, requestEngine.submitRaw(message));
+    }
 
-        // Criar mensagem para o servidor
-        JSONObject message = new JSONObject();
-        message.put("type", "create_post");
-        message.put("user_id", userId);
-        message.put("content", content);
-        message.put("request_id", UUID.randomUUID().toString());
-        message.put("client_timestamp", logicalClock.getTime()); // Enviar timestamp
+    // Leituras passam pelo hedge quando ligado
+    private CompletableFuture<JSONObject> sendRead(JSONObject message) {
+        return hedgedReader != null ? recoverFailure(message, hedgedReader.submitRaw(message)) : send(message);
+    }
 
-        System.out.println("Sending post with timestamp: " + timeFormat.format(logicalClock));
-        log("Creating post: '" + content + "' with timestamp: " + timeFormat.format(logicalClock));
+    private CompletableFuture<JSONObject> recoverFailure(JSONObject message, CompletableFuture<byte[]> reply) {
+        return reply.thenApplyAsync(WireCodec::decodeAny, replyExecutor)
+                .exceptionally(error -> failureReply(message, error));
+    }
 
-        // Enviar mensagem
-        reqSocket.send(message.toString().getBytes(ZMQ.CHARSET), 0);
+    // Páginas são lidas dos bytes: a falha vira a mesma resposta de erro, já codificada
+    private CompletableFuture<byte[]> recoverRawFailure(JSONObject message, CompletableFuture<byte[]> reply) {
+        return reply.exceptionally(error -> WireCodec.JSON.encode(failureReply(message, error)));
+    }
 
-        // Receber resposta
-        byte[] reply = reqSocket.recv(0);
-        String replyStr = new String(reply, ZMQ.CHARSET);
-        JSONObject response = new JSONObject(replyStr);
+    private JSONObject failureReply(JSONObject message, Throwable error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        log("Request " + message.optString("type") + " failed: " + cause.getMessage()
+                + " (" + requestStats() + ")");
+        return Requests.failure(cause.getMessage());
+    }
 
-        boolean success = response.has("status") && response.getString("status").equals("success");
-        log("Post creation " + (success ? "successful" : "failed") +
-                ". Server response: " + response.optString("message", "No message"));
+    // Contadores do motor de requisições: timeouts, retentativas e trocas de broker
+    public String requestStats() {
+        return "broker " + requestEngine.getAddress() + ", timeouts " + requestEngine.getTimeoutCount()
+                + ", retries " + requestEngine.getRetryCount() + ", failovers " + requestEngine.getFailoverCount()
+                + (hedgedReader != null ? ", hedged reads: " + hedgeStats() : "");
+    }
 
-        return response;
+    // Quantas leituras dispararam cópia e quantas vezes a cópia chegou primeiro
+    public String hedgeStats() {
+        if (hedgedReader == null) {
+            return "off";
+        }
+        return hedgedReader.getHedgesFired() + " fired / " + hedgedReader.getCalls() + " reads, "
+                + hedgedReader.getHedgeWins() + " won, delay " + hedgedReader.getDelayMillis() + "ms";
     }
 
-    public JSONObject sendPrivateMessage(String receiverId, String content) {
-        // INCREMENTAR RELÓGIO antes da operação
-        incrementLogicalClock();
+    public JSONObject createPost(String content) {
+        return createPostAsync(content).join();
+    }
+
+    public CompletableFuture<JSONObject> createPostAsync(String content) {
+        // TICK DO RELÓGIO antes da operação
+        long timestamp = tickClock();
 
         // Criar mensagem para o servidor
-        JSONObject message = new JSONObject();
-        message.put("type", "send_private_message");
-        message.put("sender_id", userId);
-        message.put("receiver_id", receiverId);
-        message.put("content", content);
-        message.put("request_id", UUID.randomUUID().toString());
-        message.put("client_timestamp", logicalClock.getTime()); // Enviar timestamp
-
-        System.out.println("Sending private message with timestamp: " + timeFormat.format(logicalClock));
-        log("Sending private message to user " + receiverId + ": '" + content +
-                "' with timestamp: " + timeFormat.format(logicalClock));
+        JSONObject message = Requests.createPost(userId, content, timestamp);
 
-        // Enviar mensagem
-        reqSocket.send(message.toString().getBytes(ZMQ.CHARSET), 0);
+        System.out.println("Sending post with timestamp: " + formatTime(timestamp));
+        log("Creating post: '" + content + "' with timestamp: " + formatTime(timestamp));
 
-        // Receber resposta
-        byte[] reply = reqSocket.recv(0);
-        String replyStr = new String(reply, ZMQ.CHARSET);
-        JSONObject response = new JSONObject(replyStr);
+        // Enviar mensagem e tratar a resposta quando chegar
+        return send(message).thenApply(response -> {
+            boolean success = response.has("status") && response.getString("status").equals("success");
+            log("Post creation " + (success ? "successful" : "failed") +
+                    ". Server response: " + response.optString("message", "No message"));
+            return response;
+        });
+    }
+
+    public JSONObject sendPrivateMessage(String receiverId, String content) {
+        return sendPrivateMessageAsync(receiverId, content).join();
+    }
 
-        boolean success = response.has("status") && response.getString("status").equals("success");
-        log("Private message " + (success ? "sent successfully" : "failed") +
-                " to user " + receiverId + ". Server response: " + response.optString("message", "No message"));
+    public CompletableFuture<JSONObject> sendPrivateMessageAsync(String receiverId, String content) {
+        // TICK DO RELÓGIO antes da operação
+        long timestamp = tickClock();
 
-        return response;
+        // Criar mensagem para o servidor
+        JSONObject message = Requests.sendPrivateMessage(userId, receiverId, content, timestamp);
+
+        System.out.println("Sending private message with timestamp: " + formatTime(timestamp));
+        log("Sending private message to user " + receiverId + ": '" + content +
+                "' with timestamp: " + formatTime(timestamp));
+
+        // Enviar mensagem e tratar a resposta quando chegar
+        return send(message).thenApply(response -> {
+            boolean success = response.has("status") && response.getString("status").equals("success");
+            log("Private message " + (success ? "sent successfully" : "failed") +
+                    " to user " + receiverId + ". Server response: " + response.optString("message", "No message"));
+            return response;
+        });
     }
 
     public JSONObject followUser(String targetUserId) {
-        // INCREMENTAR RELÓGIO antes da operação
-        incrementLogicalClock();
+        return followUserAsync(targetUserId).join();
+    }
+
+    public CompletableFuture<JSONObject> followUserAsync(String targetUserId) {
+        // TICK DO RELÓGIO antes da operação
+        long timestamp = tickClock();
 
         // Criar mensagem para o servidor
-        JSONObject message = new JSONObject();
-        message.put("type", "follow_user");
-        message.put("follower_id", userId);
-        message.put("target_user_id", targetUserId);
-        message.put("request_id", UUID.randomUUID().toString());
-        message.put("client_timestamp", logicalClock.getTime()); // Enviar timestamp
+        JSONObject message = Requests.followUser(userId, targetUserId, timestamp);
 
-        System.out.println("Sending follow request with timestamp: " + timeFormat.format(logicalClock));
-        log("Following user " + targetUserId + " with timestamp: " + timeFormat.format(logicalClock));
+        System.out.println("Sending follow request with timestamp: " + formatTime(timestamp));
+        log("Following user " + targetUserId + " with timestamp: " + formatTime(timestamp));
 
-        // Enviar mensagem
-        reqSocket.send(message.toString().getBytes(ZMQ.CHARSET), 0);
+        // Enviar mensagem e tratar a resposta quando chegar
+        return send(message).thenApply(response -> {
+            if (response.has("status") && response.getString("status").equals("success")) {
+                // Adicionar à lista de seguindo; o listener assina os posts deste usuário
+                if (subscriptions.follow(targetUserId)) {
+                    System.out.println("*** SUBSCRIBED to posts from user " + targetUserId + " ***");
+                }
+                log("Successfully following user " + targetUserId + ". Now following "
+                        + subscriptions.getFollowingCount() + " users");
+            } else {
+                log("Failed to follow user " + targetUserId + ". Server response: " +
+                        response.optString("message", "No message"));
+            }
+            return response;
+        });
+    }
 
-        // Receber resposta
-        byte[] reply = reqSocket.recv(0);
-        String replyStr = new String(reply, ZMQ.CHARSET);
-        JSONObject response = new JSONObject(replyStr);
+    public JSONObject unfollowUser(String targetUserId) {
+        return unfollowUserAsync(targetUserId).join();
+    }
 
-        if (response.has("status") && response.getString("status").equals("success")) {
-            // Adicionar à lista de seguindo
-            following.add(targetUserId);
-            // Assinar os posts deste usuário
-            subscribeToUser(targetUserId);
-            log("Successfully following user " + targetUserId + ". Now following " + following.size() + " users");
-        } else {
-            log("Failed to follow user " + targetUserId + ". Server response: " +
-                    response.optString("message", "No message"));
+    public CompletableFuture<JSONObject> unfollowUserAsync(String targetUserId) {
+        // TICK DO RELÓGIO antes da operação
+        long timestamp = tickClock();
+
+        JSONObject message = Requests.unfollowUser(userId, targetUserId, timestamp);
+        log("Unfollowing user " + targetUserId + " with timestamp: " + formatTime(timestamp));
+
+        return send(message).thenApply(response -> {
+            if (Requests.isSuccess(response)) {
+                // Remover da lista de seguindo; o listener cancela a assinatura
+                if (subscriptions.unfollow(targetUserId)) {
+                    System.out.println("*** UNSUBSCRIBED from posts from user " + targetUserId + " ***");
+                }
+                log("Stopped following user " + targetUserId + ". Now following "
+                        + subscriptions.getFollowingCount() + " users");
+            } else {
+                log("Failed to unfollow user " + targetUserId + ". Server response: " +
+                        response.optString("message", "No message"));
+            }
+            return response;
+        });
+    }
+
+    // OPERAÇÕES EM LOTE - N operações em uma ida e volta por lote de até batchMaxItems.
+    // Cada item tem o próprio request_id, então uma retentativa do lote não repete os itens
+    // já feitos. Devolvem uma resposta por item, na ordem da entrada.
+    public List<JSONObject> followUsers(Collection<String> targetUserIds) {
+        return followUsersAsync(targetUserIds).join();
+    }
+
+    public CompletableFuture<List<JSONObject>> followUsersAsync(Collection<String> targetUserIds) {
+        List<String> targets = new ArrayList<>(targetUserIds);
+        List<JSONObject> items = new ArrayList<>(targets.size());
+        for (String target : targets) {
+            items.add(Requests.followUser(userId, target, tickClock()));
         }
+        log("Following " + targets.size() + " users in batches of up to " + batchMaxItems);
 
-        return response;
+        return sendBatch(items).thenApply(results -> {
+            List<String> followed = new ArrayList<>(targets.size());
+            for (int i = 0; i < results.size(); i++) {
+                if (Requests.isSuccess(results.get(i))) {
+                    followed.add(targets.get(i));
+                }
+            }
+            // Um único lote de assinaturas para o listener
+            int added = subscriptions.followAll(followed);
+            log("Batch follow: " + followed.size() + " of " + targets.size() + " succeeded (" + added
+                    + " new subscriptions). Now following " + subscriptions.getFollowingCount() + " users");
+            return results;
+        });
     }
 
-    public JSONObject getFollowing() {
-        // INCREMENTAR RELÓGIO antes da operação
-        incrementLogicalClock();
+    // receiverId -> conteúdo
+    public List<JSONObject> sendPrivateMessages(Map<String, String> messages) {
+        return sendPrivateMessagesAsync(messages).join();
+    }
 
-        // Criar mensagem para o servidor
-        JSONObject message = new JSONObject();
-        message.put("type", "get_following");
-        message.put("user_id", userId);
-        message.put("request_id", UUID.randomUUID().toString());
-        message.put("client_timestamp", logicalClock.getTime()); // Enviar timestamp
+    public CompletableFuture<List<JSONObject>> sendPrivateMessagesAsync(Map<String, String> messages) {
+        List<JSONObject> items = new ArrayList<>(messages.size());
+        for (Map.Entry<String, String> entry : messages.entrySet()) {
+            items.add(Requests.sendPrivateMessage(userId, entry.getKey(), entry.getValue(), tickClock()));
+        }
+        log("Sending " + items.size() + " private messages in batches of up to " + batchMaxItems);
 
-        log("Requesting following list with timestamp: " + timeFormat.format(logicalClock));
+        return sendBatch(items).thenApply(results -> {
+            log("Batch private messages: " + countSuccesses(results) + " of " + results.size() + " sent");
+            return results;
+        });
+    }
 
-        // Enviar mensagem
-        reqSocket.send(message.toString().getBytes(ZMQ.CHARSET), 0);
+    public List<JSONObject> createPosts(List<String> contents) {
+        return createPostsAsync(contents).join();
+    }
 
-        // Receber resposta
-        byte[] reply = reqSocket.recv(0);
-        String replyStr = new String(reply, ZMQ.CHARSET);
-        JSONObject response = new JSONObject(replyStr);
+    public CompletableFuture<List<JSONObject>> createPostsAsync(List<String> contents) {
+        List<JSONObject> items = new ArrayList<>(contents.size());
+        for (String content : contents) {
+            items.add(Requests.createPost(userId, content, tickClock()));
+        }
+        log("Creating " + items.size() + " posts in batches of up to " + batchMaxItems);
 
-        if (response.has("status") && response.getString("status").equals("success")) {
-            int followingCount = response.has("following") ? response.getJSONArray("following").length() : 0;
-            log("Retrieved following list: " + followingCount + " users");
-        } else {
-            log("Failed to get following list. Server response: " + response.optString("message", "No message"));
+        return sendBatch(items).thenApply(results -> {
+            log("Batch post creation: " + countSuccesses(results) + " of " + results.size() + " created");
+            return results;
+        });
+    }
+
+    // Divide em lotes, envia todos de uma vez (a janela do motor limita os em voo) e junta
+    // as respostas na ordem original; um lote que falhou inteiro vira um erro por item
+    private CompletableFuture<List<JSONObject>> sendBatch(List<JSONObject> items) {
+        List<CompletableFuture<List<JSONObject>>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchMaxItems) {
+            List<JSONObject> chunk = items.subList(from, Math.min(items.size(), from + batchMaxItems));
+            chunks.add(send(Requests.batch(chunk, tickClock())).thenApply(response -> batchResults(chunk, response)));
         }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<JSONObject> results = new ArrayList<>(items.size());
+            for (CompletableFuture<List<JSONObject>> chunk : chunks) {
+                results.addAll(chunk.join());
+            }
+            return results;
+        });
+    }
 
-        return response;
+    private List<JSONObject> batchResults(List<JSONObject> chunk, JSONObject response) {
+        JSONArray results = response.optJSONArray("results");
+        List<JSONObject> replies = new ArrayList<>(chunk.size());
+        if (Requests.isSuccess(response) && results != null && results.length() == chunk.size()) {
+            for (int i = 0; i < results.length(); i++) {
+                JSONObject result = results.optJSONObject(i);
+                replies.add(result != null ? result : Requests.failure("Invalid batch result"));
+            }
+            return replies;
+        }
+        String message = response.optString("message", "Invalid batch response");
+        log("Batch of " + chunk.size() + " requests failed: " + message);
+        for (int i = 0; i < chunk.size(); i++) {
+            replies.add(Requests.failure(message));
+        }
+        return replies;
     }
 
-    public JSONObject getAllPosts() {
-        // INCREMENTAR RELÓGIO antes da operação
-        incrementLogicalClock();
+    // "a, b,c" -> [a, b, c]; vazios são ignorados
+    private static List<String> splitIds(String input) {
+        List<String> ids = new ArrayList<>();
+        for (String id : input.split(",")) {
+            if (!id.trim().isEmpty()) {
+                ids.add(id.trim());
+            }
+        }
+        return ids;
+    }
+
+    private static int countSuccesses(List<JSONObject> results) {
+        int successes = 0;
+        for (JSONObject result : results) {
+            if (Requests.isSuccess(result)) {
+                successes++;
+            }
+        }
+        return successes;
+    }
+
+    public JSONObject getFollowing() {
+        return getFollowingAsync().join();
+    }
+
+    public CompletableFuture<JSONObject> getFollowingAsync() {
+        // TICK DO RELÓGIO antes da operação
+        long timestamp = tickClock();
 
         // Criar mensagem para o servidor
-        JSONObject message = new JSONObject();
-        message.put("type", "get_all_posts");
-        message.put("user_id", userId);
-        message.put("request_id", UUID.randomUUID().toString());
-        message.put("client_timestamp", logicalClock.getTime()); // Enviar timestamp
+        JSONObject message = Requests.getFollowing(userId, timestamp);
 
-        System.out.println("Getting all posts with timestamp: " + timeFormat.format(logicalClock));
-        log("Requesting all posts with timestamp: " + timeFormat.format(logicalClock));
+        log("Requesting following list with timestamp: " + formatTime(timestamp));
 
-        // Enviar mensagem
-        reqSocket.send(message.toString().getBytes(ZMQ.CHARSET), 0);
+        // Enviar mensagem e tratar a resposta quando chegar
+        return sendRead(message).thenApply(response -> {
+            if (response.has("status") && response.getString("status").equals("success")) {
+                int followingCount = response.has("following") ? response.getJSONArray("following").length() : 0;
+                log("Retrieved following list: " + followingCount + " users");
+            } else {
+                log("Failed to get following list. Server response: " + response.optString("message", "No message"));
+            }
+            return response;
+        });
+    }
+
+    public JSONObject getAllPosts() {
+        return getAllPostsAsync().join();
+    }
+
+    public CompletableFuture<JSONObject> getAllPostsAsync() {
+        // TICK DO RELÓGIO antes da operação
+        long timestamp = tickClock();
+
+        // Criar mensagem para o servidor
+        JSONObject message = Requests.getAllPosts(userId, timestamp);
+
+        System.out.println("Getting all posts with timestamp: " + formatTime(timestamp));
+        log("Requesting all posts with timestamp: " + formatTime(timestamp));
 
-        // Receber resposta
-        byte[] reply = reqSocket.recv(0);
-        String replyStr = new String(reply, ZMQ.CHARSET);
-        JSONObject response = new JSONObject(replyStr);
+        // Enviar mensagem e tratar a resposta quando chegar
+        return sendRead(message).thenApply(this::handleAllPosts);
+    }
 
+    private JSONObject handleAllPosts(JSONObject response) {
         if (response.has("status") && response.getString("status").equals("success")) {
-            int postsCount = response.has("posts") ? response.getJSONArray("posts").length() : 0;
+            JSONArray posts = response.optJSONArray("posts");
+            int postsCount = posts != null ? posts.length() : 0;
+            // Também ficam na linha do tempo local (e no índice de busca)
+            for (int i = 0; i < postsCount; i++) {
+                timeline.add(posts.getJSONObject(i));
+            }
             log("Retrieved all posts: " + postsCount + " posts found");
         } else {
             log("Failed to get all posts. Server response: " + response.optString("message", "No message"));
         }
-
         return response;
     }
 
-    public List<JSONObject> getReceivedPosts() {
-        synchronized (receivedPosts) {
-            return new ArrayList<>(receivedPosts);
+    // PÁGINA DE POSTS - a resposta é lida em streaming e cada post é entregue ao sink
+    // na thread que chama, assim que é interpretado
+    public PostPage getPostsPage(int limit, PostCursor before, Consumer<JSONObject> sink) {
+        return readPostsPage(submitPostsPage(limit, before, null).join(), sink);
+    }
+
+    public CompletableFuture<PostPage> getPostsPageAsync(int limit, PostCursor before, PostCursor after,
+            Consumer<JSONObject> sink) {
+        return submitPostsPage(limit, before, after)
+                .thenApplyAsync(reply -> readPostsPage(reply, sink), pageReaderExecutor);
+    }
+
+    private CompletableFuture<byte[]> submitPostsPage(int limit, PostCursor before, PostCursor after) {
+        // TICK DO RELÓGIO antes da operação
+        long timestamp = tickClock();
+
+        JSONObject message = Requests.getPostsPage(userId, timestamp, limit, before, after);
+        log("Requesting posts page (limit " + limit + (before != null ? ", before " + before : "") +
+                (after != null ? ", after " + after : "") + ") with timestamp: " + formatTime(timestamp));
+        return recoverRawFailure(message,
+                hedgedReader != null ? hedgedReader.submitRaw(message) : requestEngine.submitRaw(message));
+    }
+
+    private PostPage readPostsPage(byte[] reply, Consumer<JSONObject> sink) {
+        PostPage page = PostStreamReader.read(reply, sink);
+        if (page.isSuccess()) {
+            log("Retrieved posts page: " + page.count + " posts" + (page.hasMore() ? " (more available)" : ""));
+        } else {
+            log("Failed to get posts page. Server response: " + page.message());
         }
+        return page;
+    }
+
+    // SINCRONIZAÇÃO INCREMENTAL - traz só os posts depois da marca d'água
+    public TimelineSync.Result syncTimeline() {
+        // A linha do tempo restaurada vem primeiro; a sincronização só completa o que falta
+        awaitCache();
+        TimelineSync.Result result = timelineSync.sync();
+        if (result.success && localCache != null) {
+            saveCheckpoint();
+        }
+        log("Timeline sync " + result + ". Local timeline: " + timeline.size() + " posts, mark: "
+                + timelineSync.getHighWaterMark());
+        return result;
+    }
+
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    // Todos os posts recebidos (ainda retidos), do mais novo para o mais velho
+    public List<PostView> getReceivedPosts() {
+        return receivedPosts.newestBefore(null, Integer.MAX_VALUE);
     }
 
+    // Cópia de todas as mensagens retidas, da mais velha para a mais nova; para exibir, use getMessageStore()
     public List<JSONObject> getReceivedMessages() {
-        synchronized (receivedMessages) {
-            return new ArrayList<>(receivedMessages);
+        List<JSONObject> all = new ArrayList<>();
+        for (MessageStore.Conversation conversation : receivedMessages.conversations()) {
+            all.addAll(conversation.messages());
         }
+        all.sort((a, b) -> Long.compare(a.getLong("created_at"), b.getLong("created_at")));
+        return all;
     }
 
-    // Método para exibir os posts com formatação
-    private void displayPosts(List<JSONObject> posts) {
+    public MessageStore getMessageStore() {
+        return receivedMessages;
+    }
+
+    // Exibe as notificações de posts página a página, do mais novo para o mais velho
+    private void displayNotifications(Scanner scanner) {
+        awaitCache();
         clearScreen();
-        log("Displaying " + posts.size() + " posts to user");
         System.out.println("POSTS DISPLAY");
-        System.out.println("Current client time: " + timeFormat.format(logicalClock));
+        System.out.println("Current client time: " + clockTime());
+        System.out.println("Received: " + receivedPosts.size() + " posts");
         System.out.println("=".repeat(50));
 
-        if (posts.isEmpty()) {
-            System.out.println("No posts to display");
-            pauseForUser();
-            return;
-        }
+        int shown = pager.browse(scanner, receivedPosts);
+        log("Displayed " + shown + " of " + receivedPosts.size() + " received posts to user");
+    }
 
-        // Ordenar posts por timestamp (mais recente primeiro)
-        posts.sort(new Comparator<JSONObject>() {
-            @Override
-            public int compare(JSONObject p1, JSONObject p2) {
-                return Long.compare(p2.getLong("created_at"), p1.getLong("created_at"));
-            }
-        });
+    // Exibe a linha do tempo local (já sincronizada) página a página
+    private void displayTimeline(Scanner scanner, TimelineSync.Result result) {
+        clearScreen();
+        System.out.println("ALL POSTS");
+        System.out.println("Current client time: " + clockTime());
+        System.out.println("Sync: " + result);
+        System.out.println("=".repeat(50));
+
+        int shown = pager.browse(scanner, timeline);
+        log("Displayed " + shown + " posts to user from local timeline");
+    }
 
-        for (int i = 0; i < posts.size(); i++) {
-            JSONObject post = posts.get(i);
-            System.out.println("\nPost #" + (i + 1));
-            System.out.println("User: " + post.getString("user_id"));
-            System.out.println("Content: " + post.getString("content"));
-            Date postDate = new Date(post.getLong("created_at"));
-            System.out.println("Time: " + postDate);
+    // Exibe todos os posts página a página; cada post é impresso assim que é lido
+    private void displayPostPages(Scanner scanner) {
+        clearScreen();
+        System.out.println("ALL POSTS");
+        System.out.println("Current client time: " + clockTime());
+        System.out.println("=".repeat(50));
 
-            // Marcar posts de usuários que você segue
-            if (following.contains(post.getString("user_id"))) {
-                System.out.println("Status: You are following this user");
+        int[] shown = { 0 };
+        PostCursor cursor = null;
+        while (true) {
+            PostPage page = getPostsPage(postsPageSize, cursor, post -> pager.writePost(++shown[0], post));
+            pager.flush();
+            if (!page.isSuccess()) {
+                System.out.println("Failed to fetch posts: " + page.message());
+                break;
+            }
+            if (shown[0] == 0) {
+                System.out.println("No posts available");
+                break;
+            }
+            cursor = page.nextCursor();
+            if (!page.hasMore() || cursor == null) {
+                System.out.println("End of posts (" + shown[0] + " shown)");
+                break;
+            }
+            System.out.print("ENTER for more posts, q to stop: ");
+            if (scanner.nextLine().trim().equalsIgnoreCase("q")) {
+                break;
             }
-            System.out.println("-".repeat(40));
         }
-
+        log("Displayed " + shown[0] + " posts to user");
         pauseForUser();
     }
 
-    private void displayMessages() {
+    // Conversas (mais recente primeiro) com não lidos e a última mensagem; abrir uma conversa
+    // mostra as mensagens página a página e zera os não lidos dela
+    private void displayMessages(Scanner scanner) {
+        awaitCache();
         clearScreen();
-        log("Displaying " + getReceivedMessages().size() + " private messages to user");
         System.out.println("PRIVATE MESSAGES");
-        System.out.println("Current client time: " + timeFormat.format(logicalClock));
+        System.out.println("Current client time: " + clockTime());
         System.out.println("=".repeat(50));
 
-        List<JSONObject> messages = getReceivedMessages();
-        if (messages.isEmpty()) {
+        List<MessageStore.Conversation> conversations = receivedMessages.conversations();
+        log("Displaying " + conversations.size() + " conversations (" + receivedMessages.getUnread()
+                + " unread messages) to user");
+        if (conversations.isEmpty()) {
             System.out.println("No messages to display");
             pauseForUser();
             return;
         }
+        for (MessageStore.Conversation conversation : conversations) {
+            JSONObject latest = conversation.getLatest();
+            System.out.println("User " + conversation.getPeer() + ": " + conversation.size() + " messages, "
+                    + conversation.getUnread() + " unread - last: " + latest.getString("content"));
+        }
+        System.out.print("Open conversation with (user ID, ENTER to go back): ");
+        String peer = scanner.nextLine().trim();
+        if (peer.isEmpty()) {
+            return;
+        }
+        MessageStore.Conversation conversation = receivedMessages.get(peer);
+        if (conversation == null) {
+            System.out.println("No messages from user " + peer);
+            pauseForUser();
+            return;
+        }
+        int read = receivedMessages.markRead(peer);
+        int shown = pager.browseMessages(scanner, conversation);
+        log("Displayed " + shown + " messages from " + peer + " (" + read + " were unread)");
+    }
 
-        for (int i = 0; i < messages.size(); i++) {
-            JSONObject msg = messages.get(i);
-            System.out.println("\nMessage #" + (i + 1));
-            System.out.println("From: User " + msg.getString("sender_id"));
-            System.out.println("Content: " + msg.getString("content"));
-            Date msgDate = new Date(msg.getLong("created_at"));
-            System.out.println("Time: " + msgDate);
-            System.out.println("-".repeat(40));
+    // BUSCA LOCAL - posts e mensagens já recebidos, do mais novo para o mais velho
+    public List<SearchIndex.Hit> search(SearchIndex.Query query) {
+        if (searchIndex == null) {
+            return new ArrayList<>();
         }
+        long start = System.nanoTime();
+        List<SearchIndex.Hit> hits = searchIndex.search(query);
+        log("Search \"" + query.text + "\"" + (query.author != null ? " by " + query.author : "") + ": "
+                + hits.size() + " results in " + (System.nanoTime() - start) / 1000 + "us over "
+                + searchIndex.getDocumentCount() + " indexed items");
+        return hits;
+    }
+
+    public SearchIndex getSearchIndex() {
+        return searchIndex;
+    }
 
+    private void displaySearch(Scanner scanner) {
+        awaitCache();
+        clearScreen();
+        System.out.println("SEARCH");
+        System.out.println("Current client time: " + clockTime());
+        System.out.println("=".repeat(50));
+        if (searchIndex == null) {
+            System.out.println("Search index is disabled (search.index=false)");
+            pauseForUser();
+            return;
+        }
+        System.out.println("Indexed: " + searchIndex.getDocumentCount() + " posts and messages");
+        System.out.print("Search for (\"quotes\" for an exact phrase): ");
+        String text = scanner.nextLine().trim();
+        System.out.print("Author (ENTER for any): ");
+        String author = scanner.nextLine().trim();
+        System.out.print("Since HH:mm today (ENTER for any time): ");
+        String since = scanner.nextLine().trim();
+
+        SearchIndex.Query query = new SearchIndex.Query();
+        query.phrase = text.length() > 1 && text.startsWith("\"") && text.endsWith("\"");
+        query.text = query.phrase ? text.substring(1, text.length() - 1) : text;
+        query.author = author.isEmpty() ? null : author;
+        query.limit = postsPageSize;
+        if (!since.isEmpty()) {
+            try {
+                ZoneId zone = ZoneId.systemDefault();
+                query.from = LocalDate.now(zone).atTime(LocalTime.parse(since)).atZone(zone).toInstant()
+                        .toEpochMilli();
+            } catch (DateTimeParseException e) {
+                System.out.println("Invalid time, searching all times");
+            }
+        }
+
+        List<SearchIndex.Hit> hits = search(query);
+        for (int i = 0; i < hits.size(); i++) {
+            SearchIndex.Hit hit = hits.get(i);
+            if (hit.kind == SearchIndex.Kind.POST) {
+                pager.writePost(i + 1, hit.post);
+            } else {
+                pager.writeMessage(i + 1, hit.message);
+            }
+        }
+        pager.flush();
+        System.out.println(hits.isEmpty() ? "No results" : hits.size() + " results (newest first)");
         pauseForUser();
     }
 
@@ -587,7 +1514,7 @@ private void startMessageListener() {
         inMenu = true;
 
         System.out.println("SOCIAL NETWORK CLIENT - User: " + userId);
-        System.out.println("Current Time: " + timeFormat.format(logicalClock));
+        System.out.println("Current Time: " + clockTime());
         System.out.println("=".repeat(50));
         System.out.println("1. Create post");
         System.out.println("2. Follow user");
@@ -597,34 +1524,36 @@ private void startMessageListener() {
         System.out.println("6. Show received messages");
         System.out.println("8. Advance clock (+1 second)");
         System.out.println("9. Delay clock (-1 second)");
+        System.out.println("10. Unfollow user");
+        System.out.println("11. Search posts and messages");
         System.out.println("7. Exit");
         System.out.println("=".repeat(50));
         System.out.print("Choose an option: ");
     }
 
     public static void main(String[] args) {
+        // MODO HEADLESS - gerador de carga sem menu interativo
+        String workloadFile = System.getProperty("load.workload");
+        if (workloadFile != null && !workloadFile.isEmpty()) {
+            LoadGenerator.main(new String[] { workloadFile });
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in);
 
         // Carregar configurações do arquivo
-        String brokerAddress = "tcp://localhost:5555";
-        String subAddress = "tcp://localhost:5558";
+        ClientConfig config = new ClientConfig();
 
         try {
-            Properties props = new Properties();
-
             // Verificar se o arquivo existe
             File configFile = new File("config.properties");
             if (configFile.exists()) {
-                FileInputStream fis = new FileInputStream(configFile);
-                props.load(fis);
-                fis.close();
-
-                brokerAddress = props.getProperty("broker.address", brokerAddress);
-                subAddress = props.getProperty("subscriber.address", subAddress);
+                config = ClientConfig.load(configFile);
 
                 System.out.println("Loaded configuration:");
-                System.out.println("Broker address: " + brokerAddress);
-                System.out.println("Subscriber address: " + subAddress);
+                System.out.println("Broker address: " + config.brokerAddress);
+                System.out.println("Subscriber address: " + config.subAddress);
+                System.out.println("Request window: " + config.requestWindow);
             } else {
                 System.out.println("Config file not found. Using default addresses.");
             }
@@ -642,15 +1571,21 @@ private void startMessageListener() {
             System.out.println("Using provided user ID: " + userId);
         }
 
-        Client client = new Client(userId, brokerAddress, subAddress);
-
-        // Pequena pausa para inicialização
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+        // MODO EMBUTIDO - broker, proxy e servers em Java dentro deste processo
+        EmbeddedCluster cluster = null;
+        if (config.embeddedServers > 0) {
+            cluster = EmbeddedCluster.inproc(new ZContext(), "client", config.embeddedServers);
+            config.brokerAddress = cluster.brokerAddress;
+            config.subAddress = cluster.subscriberAddress;
+            System.out.println("Using embedded cluster with " + config.embeddedServers + " servers");
         }
 
+        Client client = cluster != null ? new Client(userId, config, cluster.getContext())
+                : new Client(userId, config);
+
+        // Espera o listener assinar e a lista de seguidos chegar, em vez de uma pausa fixa
+        client.awaitReady(STARTUP_TIMEOUT_MILLIS);
+
         boolean running = true;
         while (running) {
             client.showMenu();
@@ -662,7 +1597,7 @@ private void startMessageListener() {
                 case "1":
                     client.clearScreen();
                     System.out.println("CREATE NEW POST");
-                    System.out.println("Current time: " + client.timeFormat.format(client.logicalClock));
+                    System.out.println("Current time: " + client.clockTime());
                     System.out.println("=".repeat(30));
                     System.out.print("Enter post content: ");
                     String content = scanner.nextLine();
@@ -676,10 +1611,19 @@ private void startMessageListener() {
                 case "2":
                     client.clearScreen();
                     System.out.println("FOLLOW USER");
-                    System.out.println("Current time: " + client.timeFormat.format(client.logicalClock));
+                    System.out.println("Current time: " + client.clockTime());
                     System.out.println("=".repeat(20));
-                    System.out.print("Enter user ID to follow: ");
+                    System.out.print("Enter user ID to follow (or several, separated by commas): ");
                     String targetUserId = scanner.nextLine();
+                    List<String> targetUserIds = splitIds(targetUserId);
+                    if (targetUserIds.size() > 1) {
+                        List<JSONObject> results = client.followUsers(targetUserIds);
+                        int followed = countSuccesses(results);
+                        System.out.println("Now following " + followed + " of " + results.size() + " users");
+                        client.log("User action: Follow " + results.size() + " users - " + followed + " SUCCESS");
+                        client.pauseForUser();
+                        break;
+                    }
                     JSONObject followResponse = client.followUser(targetUserId);
                     boolean followSuccess = followResponse.has("status")
                             && followResponse.getString("status").equals("success");
@@ -693,31 +1637,22 @@ private void startMessageListener() {
                 case "3":
                     System.out.println("Loading notifications...");
                     client.log("User action: View notifications");
-                    List<JSONObject> notificationPosts = client.getReceivedPosts();
-                    client.displayPosts(notificationPosts);
+                    client.displayNotifications(scanner);
                     break;
 
                 case "4":
                     System.out.println("Loading all posts...");
                     client.log("User action: View all posts");
-                    JSONObject allPostsResponse = client.getAllPosts();
-                    if (allPostsResponse.has("status") && allPostsResponse.getString("status").equals("success")) {
-                        if (allPostsResponse.has("posts")) {
-                            JSONArray allPostsArray = allPostsResponse.getJSONArray("posts");
-                            List<JSONObject> allPosts = new ArrayList<>();
-                            for (int i = 0; i < allPostsArray.length(); i++) {
-                                allPosts.add(allPostsArray.getJSONObject(i));
-                            }
-                            client.displayPosts(allPosts);
+                    try {
+                        if (client.incrementalSync) {
+                            TimelineSync.Result result = client.syncTimeline();
+                            client.displayTimeline(scanner, result);
                         } else {
-                            client.clearScreen();
-                            System.out.println("No posts available");
-                            client.pauseForUser();
+                            client.displayPostPages(scanner);
                         }
-                    } else {
+                    } catch (Exception e) {
                         client.clearScreen();
-                        System.out.println("Failed to fetch posts: " +
-                                allPostsResponse.optString("message", "Unknown error"));
+                        System.out.println("Failed to fetch posts: " + e.getMessage());
                         client.pauseForUser();
                     }
                     break;
@@ -725,12 +1660,26 @@ private void startMessageListener() {
                 case "5":
                     client.clearScreen();
                     System.out.println("SEND PRIVATE MESSAGE");
-                    System.out.println("Current time: " + client.timeFormat.format(client.logicalClock));
+                    System.out.println("Current time: " + client.clockTime());
                     System.out.println("=".repeat(30));
-                    System.out.print("Enter receiver ID: ");
+                    System.out.print("Enter receiver ID (or several, separated by commas): ");
                     String receiverId = scanner.nextLine();
                     System.out.print("Enter message content: ");
                     String messageContent = scanner.nextLine();
+                    List<String> receiverIds = splitIds(receiverId);
+                    if (receiverIds.size() > 1) {
+                        Map<String, String> messages = new LinkedHashMap<>();
+                        for (String receiver : receiverIds) {
+                            messages.put(receiver, messageContent);
+                        }
+                        List<JSONObject> results = client.sendPrivateMessages(messages);
+                        int sent = countSuccesses(results);
+                        System.out.println("Message sent to " + sent + " of " + results.size() + " users");
+                        client.log("User action: Send private message to " + results.size() + " users - " + sent
+                                + " SUCCESS");
+                        client.pauseForUser();
+                        break;
+                    }
                     JSONObject msgResponse = client.sendPrivateMessage(receiverId, messageContent);
                     boolean msgSuccess = msgResponse.has("status") && msgResponse.getString("status").equals("success");
                     System.out.println(msgSuccess ? "Message sent to user " + receiverId
@@ -742,15 +1691,36 @@ private void startMessageListener() {
 
                 case "6":
                     client.log("User action: View private messages");
-                    client.displayMessages();
+                    client.displayMessages(scanner);
+                    break;
+
+                case "10":
+                    client.clearScreen();
+                    System.out.println("UNFOLLOW USER");
+                    System.out.println("Current time: " + client.clockTime());
+                    System.out.println("=".repeat(20));
+                    System.out.print("Enter user ID to unfollow: ");
+                    String unfollowUserId = scanner.nextLine();
+                    JSONObject unfollowResponse = client.unfollowUser(unfollowUserId);
+                    boolean unfollowSuccess = Requests.isSuccess(unfollowResponse);
+                    System.out.println(unfollowSuccess ? unfollowResponse.optString("message")
+                            : "Failed to unfollow user " + unfollowUserId);
+                    client.log("User action: Unfollow user " + unfollowUserId + " - "
+                            + (unfollowSuccess ? "SUCCESS" : "FAILED"));
+                    client.pauseForUser();
+                    break;
+
+                case "11":
+                    client.log("User action: Search");
+                    client.displaySearch(scanner);
                     break;
 
                 case "8": // NOVA OPÇÃO - Adiantar relógio +1 segundo
                     client.clearScreen();
                     System.out.println("ADVANCE CLOCK");
-                    System.out.println("Before: " + client.timeFormat.format(client.logicalClock));
+                    System.out.println("Before: " + client.clockTime());
                     client.adjustClock(1); // mudado para +1
-                    System.out.println("After: " + client.timeFormat.format(client.logicalClock));
+                    System.out.println("After: " + client.clockTime());
                     client.log("User action: Manual clock advance (+1 second)");
                     client.pauseForUser();
                     break;
@@ -758,9 +1728,9 @@ private void startMessageListener() {
                 case "9": // NOVA OPÇÃO - Atrasar relógio -1 segundo
                     client.clearScreen();
                     System.out.println("DELAY CLOCK");
-                    System.out.println("Before: " + client.timeFormat.format(client.logicalClock));
+                    System.out.println("Before: " + client.clockTime());
                     client.adjustClock(-1); // mudado para -1
-                    System.out.println("After: " + client.timeFormat.format(client.logicalClock));
+                    System.out.println("After: " + client.clockTime());
                     client.log("User action: Manual clock delay (-1 second)");
                     client.pauseForUser();
                     break;
@@ -774,13 +1744,17 @@ private void startMessageListener() {
 
                 default:
                     client.clearScreen();
-                    System.out.println("Invalid option. Please choose 1-9.");
+                    System.out.println("Invalid option. Please choose 1-11.");
                     client.log("User action: Invalid menu option (" + option + ")");
                     client.pauseForUser();
             }
         }
 
         client.close();
+        if (cluster != null) {
+            cluster.close();
+            cluster.getContext().close();
+        }
         scanner.close();
         System.out.println("Client terminated");
     }
@@ -0,0 +1,208 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+// CONFIGURAÇÃO DO CLIENTE - lida de config.properties; o que faltar fica no padrão
+public class ClientConfig {
+    // Um ou mais brokers separados por vírgula, em ordem de preferência
+    String brokerAddress = "tcp://localhost:5555";
+    String subAddress = "tcp://localhost:5558";
+    int requestWindow = RequestEngine.DEFAULT_WINDOW;
+    // "json" (padrão) ou "binary", combinado com o server na conexão
+    String wireCodec = "json";
+    boolean traceListener = false;
+    // Timeouts, retentativas e failover entre brokers
+    final RequestEngine.Policy requestPolicy = new RequestEngine.Policy();
+
+    // Leituras com hedge: cópia por outra conexão depois do percentil observado
+    boolean hedgeReads = false;
+    double hedgePercentile = 95;
+    long hedgeInitialDelayMillis = 50;
+    long hedgeMinDelayMillis = 5;
+    long hedgeMaxDelayMillis = 1000;
+
+    // Inicialização rápida: seguidos restaurados do snapshot local e conferidos com o server
+    // em segundo plano, com socket, listener e busca dos seguidos em paralelo
+    boolean fastStart = true;
+
+    // Captura do tráfego do SUB e das requisições para o TraceReplayer (trace.file vazio =
+    // logs/trace_<id>.bin); o arquivo é mapeado em blocos de trace.map.bytes
+    boolean traceCapture = false;
+    String traceFile = "";
+    int traceMapBytes = 64 * 1024 * 1024;
+
+    // Índice local de busca sobre posts e mensagens privadas, limitado a search.index.bytes
+    // (os segmentos mais antigos saem primeiro)
+    boolean searchIndex = true;
+    long searchIndexBytes = 64L * 1024 * 1024;
+
+    // Flow.Publisher de posts, mensagens e sincronizações de relógio: política e tamanho da
+    // fila de cada assinante que não escolher os seus (BUFFER, DROP_OLDEST ou LATEST)
+    String publisherOverflow = "BUFFER";
+    int publisherBufferSize = 1024;
+
+    // Cache local em disco (logs/cache_<id>/): posts, linha do tempo, mensagens e um checkpoint
+    // da sincronização e dos seguidos, restaurados na próxima execução
+    boolean localCache = true;
+    int localCacheSegmentBytes = 16 * 1024 * 1024;
+    long localCacheMaxBytes = 256L * 1024 * 1024;
+
+    // Posts recebidos por notificação e posts da linha do tempo, cada um num store fora do heap em
+    // segmentos de posts.store.segment.bytes, com estes limites; os segmentos mais antigos saem
+    // por bytes ou idade, e os posts mais antigos pela quantidade, que é exata (0 = sem esse limite)
+    int postsStoreSegmentBytes = 4 * 1024 * 1024;
+    int postsStoreMaxPosts = 0;
+    long postsStoreMaxBytes = 256L * 1024 * 1024;
+    long postsStoreMaxAgeMinutes = 0;
+
+    // Mensagens privadas guardadas por conversa (0 = sem limite); as mais antigas saem primeiro
+    int messagesRetention = 10_000;
+
+    // Servers do cluster embutido (0 = usar broker e proxy externos)
+    int embeddedServers = 0;
+    int postsPageSize = 50;
+    // Itens por requisição "batch" (o server aceita até 1000); listas maiores viram vários lotes
+    int batchMaxItems = 500;
+
+    // Sincronização incremental da linha do tempo
+    boolean timelineSync = true;
+    int timelineSyncMaxPages = 20;
+    long timelineSyncMaxAgeMinutes = 30;
+    long timelineSyncOverlapMillis = 5000;
+
+    // Pipeline de notificações: RCVHWM do SUB, filas entre estágios e o que fazer quando enchem
+    int subscriberRcvHwm = 10_000;
+    int notificationQueueCapacity = 8192;
+    String notificationQueueOverflow = "block";
+    int notificationSinkCapacity = 4096;
+    String notificationSinkOverflow = "block";
+
+    // Supressão de duplicadas: janela exata + Bloom limitado por memória
+    boolean dedup = true;
+    int dedupRecentWindow = 10_000;
+    long dedupBloomBytes = 1024 * 1024;
+    double dedupFalsePositiveRate = 0.0001;
+
+    // Métricas: MBeans JMX e snapshot periódico em logs/metrics_<id>.txt (0 = sem snapshot)
+    boolean metricsJmx = true;
+    long metricsSnapshotSeconds = 60;
+
+    // Log assíncrono
+    int logCapacity = ClientLogger.DEFAULT_CAPACITY;
+    long logMaxBytes = ClientLogger.DEFAULT_MAX_FILE_BYTES;
+    long logRotateMinutes = ClientLogger.DEFAULT_ROTATE_INTERVAL_MILLIS / 60_000;
+
+    public static ClientConfig load(File file) throws IOException {
+        Properties props = new Properties();
+        try (FileInputStream fis = new FileInputStream(file)) {
+            props.load(fis);
+        }
+        return fromProperties(props);
+    }
+
+    public static ClientConfig fromProperties(Properties props) {
+        ClientConfig config = new ClientConfig();
+        config.brokerAddress = props.getProperty("broker.address", config.brokerAddress).trim();
+        config.subAddress = props.getProperty("subscriber.address", config.subAddress).trim();
+        config.requestWindow = intProperty(props, "request.window", config.requestWindow);
+        loadPolicy(props, config.requestPolicy);
+        config.fastStart = Boolean.parseBoolean(props.getProperty("fast.start", "true").trim());
+        config.traceCapture = Boolean.parseBoolean(props.getProperty("trace.capture", "false").trim());
+        config.traceFile = props.getProperty("trace.file", config.traceFile).trim();
+        config.traceMapBytes = intProperty(props, "trace.map.bytes", config.traceMapBytes);
+        config.publisherOverflow = props.getProperty("publisher.overflow", config.publisherOverflow).trim();
+        config.publisherBufferSize = intProperty(props, "publisher.buffer.size", config.publisherBufferSize);
+        config.localCache = Boolean.parseBoolean(props.getProperty("local.cache", "true").trim());
+        config.localCacheSegmentBytes = intProperty(props, "local.cache.segment.bytes",
+                config.localCacheSegmentBytes);
+        config.localCacheMaxBytes = longProperty(props, "local.cache.max.bytes", config.localCacheMaxBytes);
+        config.postsStoreSegmentBytes = intProperty(props, "posts.store.segment.bytes",
+                config.postsStoreSegmentBytes);
+        config.postsStoreMaxPosts = intProperty(props, "posts.store.max.posts", config.postsStoreMaxPosts);
+        config.postsStoreMaxBytes = longProperty(props, "posts.store.max.bytes", config.postsStoreMaxBytes);
+        config.postsStoreMaxAgeMinutes = longProperty(props, "posts.store.max.age.minutes",
+                config.postsStoreMaxAgeMinutes);
+        config.messagesRetention = intProperty(props, "messages.retention", config.messagesRetention);
+        config.searchIndex = Boolean.parseBoolean(props.getProperty("search.index", "true").trim());
+        config.searchIndexBytes = longProperty(props, "search.index.bytes", config.searchIndexBytes);
+        config.hedgeReads = Boolean.parseBoolean(props.getProperty("hedge.reads", "false").trim());
+        config.hedgePercentile = Double.parseDouble(props.getProperty("hedge.percentile",
+                String.valueOf(config.hedgePercentile)).trim());
+        config.hedgeInitialDelayMillis = longProperty(props, "hedge.initial.delay.millis",
+                config.hedgeInitialDelayMillis);
+        config.hedgeMinDelayMillis = longProperty(props, "hedge.min.delay.millis", config.hedgeMinDelayMillis);
+        config.hedgeMaxDelayMillis = longProperty(props, "hedge.max.delay.millis", config.hedgeMaxDelayMillis);
+        config.wireCodec = props.getProperty("wire.codec", config.wireCodec).trim();
+        config.embeddedServers = intProperty(props, "embedded.servers", config.embeddedServers);
+        config.traceListener = Boolean.parseBoolean(props.getProperty("listener.trace", "false").trim());
+        config.postsPageSize = intProperty(props, "posts.page.size", config.postsPageSize);
+        config.timelineSync = Boolean.parseBoolean(props.getProperty("timeline.sync", "true").trim());
+        config.timelineSyncMaxPages = intProperty(props, "timeline.sync.max.pages", config.timelineSyncMaxPages);
+        config.timelineSyncMaxAgeMinutes = longProperty(props, "timeline.sync.max.age.minutes",
+                config.timelineSyncMaxAgeMinutes);
+        config.timelineSyncOverlapMillis = longProperty(props, "timeline.sync.overlap.millis",
+                config.timelineSyncOverlapMillis);
+        config.subscriberRcvHwm = intProperty(props, "subscriber.rcvhwm", config.subscriberRcvHwm);
+        config.notificationQueueCapacity = intProperty(props, "notification.queue.capacity",
+                config.notificationQueueCapacity);
+        config.notificationQueueOverflow = props.getProperty("notification.queue.overflow",
+                config.notificationQueueOverflow).trim();
+        config.notificationSinkCapacity = intProperty(props, "notification.sink.capacity",
+                config.notificationSinkCapacity);
+        config.notificationSinkOverflow = props.getProperty("notification.sink.overflow",
+                config.notificationSinkOverflow).trim();
+        config.batchMaxItems = intProperty(props, "batch.max.items", config.batchMaxItems);
+        config.dedup = Boolean.parseBoolean(props.getProperty("dedup", "true").trim());
+        config.dedupRecentWindow = intProperty(props, "dedup.recent.window", config.dedupRecentWindow);
+        config.dedupBloomBytes = longProperty(props, "dedup.bloom.bytes", config.dedupBloomBytes);
+        config.dedupFalsePositiveRate = Double.parseDouble(props.getProperty("dedup.false.positive.rate",
+                String.valueOf(config.dedupFalsePositiveRate)).trim());
+        config.metricsJmx = Boolean.parseBoolean(props.getProperty("metrics.jmx", "true").trim());
+        config.metricsSnapshotSeconds = longProperty(props, "metrics.snapshot.seconds",
+                config.metricsSnapshotSeconds);
+        config.logCapacity = intProperty(props, "log.capacity", config.logCapacity);
+        config.logMaxBytes = longProperty(props, "log.max.bytes", config.logMaxBytes);
+        config.logRotateMinutes = longProperty(props, "log.rotate.minutes", config.logRotateMinutes);
+        return config;
+    }
+
+    // Mesmas chaves no config.properties e no workload do gerador de carga
+    static void loadPolicy(Properties props, RequestEngine.Policy policy) {
+        policy.timeoutMillis = longProperty(props, "request.timeout.millis", policy.timeoutMillis);
+        for (String key : props.stringPropertyNames()) {
+            // Timeout por operação: request.timeout.<tipo>=ms (ex.: request.timeout.get_all_posts)
+            if (key.startsWith("request.timeout.") && !key.equals("request.timeout.millis")) {
+                policy.timeoutsByType.put(key.substring("request.timeout.".length()),
+                        longProperty(props, key, policy.timeoutMillis));
+            }
+        }
+        policy.maxRetries = intProperty(props, "request.max.retries", policy.maxRetries);
+        policy.failoverAfter = intProperty(props, "broker.failover.after", policy.failoverAfter);
+        policy.cooldownMillis = longProperty(props, "broker.cooldown.millis", policy.cooldownMillis);
+    }
+
+    List<String> brokerAddresses() {
+        return splitAddresses(brokerAddress);
+    }
+
+    static List<String> splitAddresses(String list) {
+        List<String> addresses = new ArrayList<>();
+        for (String address : list.split(",")) {
+            if (!address.trim().isEmpty()) {
+                addresses.add(address.trim());
+            }
+        }
+        return addresses;
+    }
+
+    private static int intProperty(Properties props, String key, int defaultValue) {
+        return Integer.parseInt(props.getProperty(key, String.valueOf(defaultValue)).trim());
+    }
+
+    private static long longProperty(Properties props, String key, long defaultValue) {
+        return Long.parseLong(props.getProperty(key, String.valueOf(defaultValue)).trim());
+    }
+}
@@ -0,0 +1,365 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+// LOG ASSÍNCRONO DO CLIENTE - uma linha por chamada em logs/client_<id>_log.txt
+// log() só reserva uma posição num ring buffer (fila limitada multi-produtor, sem lock)
+// e volta; uma thread de fundo formata os registros em lote num ByteBuffer reaproveitado
+// e escreve por um único FileChannel aberto. Quando o ring enche o registro é descartado
+// e o total de descartes é escrito no próprio log assim que houver espaço.
+public class ClientLogger implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+    public static final long DEFAULT_ROTATE_INTERVAL_MILLIS = 24L * 60 * 60 * 1000;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final Path logPath;
+    private final byte[] linePrefixTail; // "] CLIENT <id> - "
+    private final LongSupplier logicalClock;
+    private final long maxFileBytes;
+    private final long rotateIntervalMillis;
+
+    // Ring buffer: sequences[i] diz se a posição está livre (== pos) ou publicada (== pos + 1)
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] wallTimes;
+    private final long[] clockTimes;
+    private final String[] messages;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Estado exclusivo da thread de escrita
+    private final Thread writerThread;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private final TimeZone timeZone = TimeZone.getDefault();
+    private final byte[] datePrefix = new byte[11]; // "yyyy-MM-dd "
+    private long cachedDay = Long.MIN_VALUE;
+    private long head;
+    private long reportedDrops;
+    private FileChannel channel;
+    private long fileBytes;
+    private long nextRotationMillis;
+
+    private volatile boolean running = true;
+    private volatile boolean writerParked;
+    private volatile long writtenSequence;
+
+    public ClientLogger(String userId, String logFile, LongSupplier logicalClock) {
+        this(userId, logFile, logicalClock, DEFAULT_CAPACITY, DEFAULT_MAX_FILE_BYTES,
+                DEFAULT_ROTATE_INTERVAL_MILLIS);
+    }
+
+    public ClientLogger(String userId, String logFile, LongSupplier logicalClock, int capacity,
+            long maxFileBytes, long rotateIntervalMillis) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Log capacity must be a power of two, got " + capacity);
+        }
+        this.logPath = Paths.get(logFile);
+        this.linePrefixTail = ("] CLIENT " + userId + " - ").getBytes(StandardCharsets.UTF_8);
+        this.logicalClock = logicalClock;
+        this.maxFileBytes = maxFileBytes;
+        this.rotateIntervalMillis = rotateIntervalMillis;
+
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.wallTimes = new long[capacity];
+        this.clockTimes = new long[capacity];
+        this.messages = new String[capacity];
+
+        openChannel();
+
+        this.writerThread = new Thread(this::writeLoop, "client-logger-" + userId);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    public void log(String message) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // Ring cheio: descartar e contar
+                dropped.incrementAndGet();
+                return;
+            } else {
+                pos = tail.get();
+            }
+        }
+        int index = (int) (pos & mask);
+        wallTimes[index] = System.currentTimeMillis();
+        clockTimes[index] = logicalClock.getAsLong();
+        messages[index] = message;
+        // Escrita volátil: precisa ser vista antes da leitura de writerParked
+        sequences.set(index, pos + 1);
+
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // Registros aceitos e ainda não escritos no arquivo
+    public long getQueueDepth() {
+        return Math.max(0, tail.get() - writtenSequence);
+    }
+
+    // Espera até que tudo que já foi registrado esteja no arquivo
+    public void flush() {
+        long target = tail.get();
+        while (writtenSequence < target && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            int drained = drainBatch();
+            if (drained == 0) {
+                if (!running) {
+                    break;
+                }
+                writerParked = true;
+                if (!hasPublished()) {
+                    LockSupport.parkNanos(10_000_000);
+                }
+                writerParked = false;
+            }
+        }
+        drainBatch();
+        closeChannel();
+    }
+
+    private boolean hasPublished() {
+        return sequences.get((int) (head & mask)) == head + 1;
+    }
+
+    // Formata um lote de registros publicados e escreve tudo de uma vez
+    private int drainBatch() {
+        int drained = 0;
+        while (drained <= mask) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            appendRecord(wallTimes[index], clockTimes[index], messages[index]);
+            messages[index] = null;
+            sequences.lazySet(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+
+        long drops = dropped.get();
+        if (drops != reportedDrops) {
+            long now = System.currentTimeMillis();
+            appendRecord(now, logicalClock.getAsLong(), "LOGGER DROPPED " + (drops - reportedDrops)
+                    + " records (ring buffer full, " + drops + " total)");
+            reportedDrops = drops;
+            drained++;
+        }
+
+        if (drained > 0) {
+            writeBuffer();
+            writtenSequence = head;
+            rotateIfNeeded(System.currentTimeMillis());
+        }
+        return drained;
+    }
+
+    // [yyyy-MM-dd HH:mm:ss] [CLOCK: HH:mm:ss] CLIENT <id> - <mensagem>
+    private void appendRecord(long wallMillis, long clockMillis, String message) {
+        long localWall = wallMillis + timeZone.getOffset(wallMillis);
+        long day = Math.floorDiv(localWall, MILLIS_PER_DAY);
+        if (day != cachedDay) {
+            cacheDatePrefix(day);
+        }
+        put((byte) '[');
+        for (byte b : datePrefix) {
+            put(b);
+        }
+        putTimeOfDay(localWall);
+        put((byte) ']');
+        put((byte) ' ');
+        put((byte) '[');
+        put((byte) 'C');
+        put((byte) 'L');
+        put((byte) 'O');
+        put((byte) 'C');
+        put((byte) 'K');
+        put((byte) ':');
+        put((byte) ' ');
+        putTimeOfDay(clockMillis + timeZone.getOffset(clockMillis));
+        for (byte b : linePrefixTail) {
+            put(b);
+        }
+        putUtf8(message);
+        for (byte b : LINE_SEPARATOR) {
+            put(b);
+        }
+    }
+
+    // Só aloca uma vez por dia
+    private void cacheDatePrefix(long day) {
+        byte[] date = (LocalDate.ofEpochDay(day).toString() + " ").getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(date, 0, datePrefix, 0, datePrefix.length);
+        cachedDay = day;
+    }
+
+    private void putTimeOfDay(long localMillis) {
+        int secondOfDay = (int) (Math.floorMod(localMillis, MILLIS_PER_DAY) / 1000);
+        putTwoDigits(secondOfDay / 3600);
+        put((byte) ':');
+        putTwoDigits((secondOfDay / 60) % 60);
+        put((byte) ':');
+        putTwoDigits(secondOfDay % 60);
+    }
+
+    private void putTwoDigits(int value) {
+        put((byte) ('0' + value / 10));
+        put((byte) ('0' + value % 10));
+    }
+
+    private void putUtf8(String text) {
+        if (text == null) {
+            text = "null";
+        }
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                put((byte) c);
+            } else if (c < 0x800) {
+                put((byte) (0xC0 | (c >> 6)));
+                put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                put((byte) (0xF0 | (codePoint >> 18)));
+                put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                put((byte) '?');
+            } else {
+                put((byte) (0xE0 | (c >> 12)));
+                put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    private void put(byte b) {
+        if (!buffer.hasRemaining()) {
+            writeBuffer();
+        }
+        buffer.put(b);
+    }
+
+    private void writeBuffer() {
+        buffer.flip();
+        try {
+            if (channel != null) {
+                while (buffer.hasRemaining()) {
+                    fileBytes += channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to log: " + e.getMessage());
+        }
+        buffer.clear();
+    }
+
+    // ROTAÇÃO - por tamanho ou por tempo; o arquivo atual vira <log>.<yyyyMMdd-HHmmss>, ou
+    // <log>.<yyyyMMdd-HHmmss>-<n> se outra rotação já usou esse segundo
+    private void rotateIfNeeded(long now) {
+        if (fileBytes < maxFileBytes && now < nextRotationMillis) {
+            return;
+        }
+        closeChannel();
+        try {
+            if (Files.exists(logPath) && Files.size(logPath) > 0) {
+                String stamp = new java.text.SimpleDateFormat("yyyyMMdd-HHmmss").format(new java.util.Date(now));
+                String base = logPath.getFileName() + "." + stamp;
+                Path rotated = logPath.resolveSibling(base);
+                for (int sequence = 1; Files.exists(rotated); sequence++) {
+                    rotated = logPath.resolveSibling(base + "-" + sequence);
+                }
+                // Sem REPLACE_EXISTING: nunca sobrescreve um log já rotacionado
+                Files.move(logPath, rotated);
+            }
+        } catch (IOException e) {
+            System.err.println("Error rotating log: " + e.getMessage());
+        }
+        openChannel();
+    }
+
+    private void openChannel() {
+        try {
+            File parent = logPath.toAbsolutePath().getParent().toFile();
+            if (!parent.exists()) {
+                parent.mkdirs();
+            }
+            channel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            fileBytes = channel.size();
+        } catch (IOException e) {
+            System.err.println("Error opening log file: " + e.getMessage());
+            channel = null;
+            fileBytes = 0;
+        }
+        nextRotationMillis = System.currentTimeMillis() + rotateIntervalMillis;
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing log file: " + e.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,322 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// MÉTRICAS DO CLIENTE
+// Histogramas de ida e volta por tipo de requisição, histogramas de tratamento por tipo
+// de notificação e um contador por ramo do filtro do listener. Os mapas são montados na
+// criação e só lidos depois; gravar é procurar o histograma e incrementar, sem alocação.
+// Expostas por JMX (socialnetwork:type=...,client=<id>) e, opcionalmente, numa linha
+// compacta por intervalo em logs/metrics_<id>.txt.
+public class ClientMetrics implements ClientMetricsMBean, AutoCloseable {
+    static final String[] OPERATIONS = {
+        "create_post", "send_private_message", "follow_user", "unfollow_user", "get_following", "get_all_posts",
+        "batch", "negotiate_codec"
+    };
+    private static final String OTHER_OPERATION = "other";
+    private static final Notification.Kind[] KINDS = Notification.Kind.values();
+
+    private final String userId;
+    private final Map<String, LatencyHistogram> requestLatency;
+    private final LatencyHistogram[] notificationLatency = new LatencyHistogram[KINDS.length];
+    private final AtomicLongArray notificationCounts = new AtomicLongArray(KINDS.length);
+    private final AtomicLong clockSyncs = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final List<ObjectName> registered = new ArrayList<>();
+    private volatile RequestEngine requestEngine;
+    private volatile ClientLogger logger;
+    private volatile NotificationPipeline pipeline;
+    private ScheduledExecutorService snapshotExecutor;
+    private Path snapshotPath;
+
+    public ClientMetrics(String userId) {
+        this.userId = userId;
+        Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+        for (String operation : OPERATIONS) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+        histograms.put(OTHER_OPERATION, new LatencyHistogram());
+        this.requestLatency = Collections.unmodifiableMap(histograms);
+        for (int i = 0; i < KINDS.length; i++) {
+            notificationLatency[i] = new LatencyHistogram();
+        }
+    }
+
+    // Fontes das filas e contadores que já existem em outros componentes
+    public void attach(RequestEngine requestEngine, ClientLogger logger) {
+        this.requestEngine = requestEngine;
+        this.logger = logger;
+        requestEngine.setMetrics(this);
+    }
+
+    public void attachPipeline(NotificationPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    // HOT PATH: chamado pela thread de I/O do RequestEngine a cada resposta
+    public void recordRequest(String type, long nanos) {
+        LatencyHistogram histogram = requestLatency.get(type);
+        (histogram != null ? histogram : requestLatency.get(OTHER_OPERATION)).record(nanos);
+    }
+
+    // HOT PATH: chamado pelo listener para todo frame, aceito ou descartado
+    public void recordNotification(Notification.Kind kind, long nanos) {
+        notificationCounts.incrementAndGet(kind.ordinal());
+        notificationLatency[kind.ordinal()].record(nanos);
+    }
+
+    public void recordClockSync() {
+        clockSyncs.incrementAndGet();
+    }
+
+    public void recordDuplicate() {
+        duplicates.incrementAndGet();
+    }
+
+    public LatencyHistogram requestHistogram(String type) {
+        LatencyHistogram histogram = requestLatency.get(type);
+        return histogram != null ? histogram : requestLatency.get(OTHER_OPERATION);
+    }
+
+    public LatencyHistogram notificationHistogram(Notification.Kind kind) {
+        return notificationLatency[kind.ordinal()];
+    }
+
+    public long getNotificationCount(Notification.Kind kind) {
+        return notificationCounts.get(kind.ordinal());
+    }
+
+    @Override
+    public long getRequestCount() {
+        long total = 0;
+        for (LatencyHistogram histogram : requestLatency.values()) {
+            total += histogram.getCount();
+        }
+        return total;
+    }
+
+    @Override
+    public long getRequestTimeouts() {
+        RequestEngine engine = requestEngine;
+        return engine != null ? engine.getTimeoutCount() : 0;
+    }
+
+    @Override
+    public long getRequestRetries() {
+        RequestEngine engine = requestEngine;
+        return engine != null ? engine.getRetryCount() : 0;
+    }
+
+    @Override
+    public long getBrokerFailovers() {
+        RequestEngine engine = requestEngine;
+        return engine != null ? engine.getFailoverCount() : 0;
+    }
+
+    @Override
+    public long getPostsReceived() {
+        return getNotificationCount(Notification.Kind.POST);
+    }
+
+    @Override
+    public long getPrivateMessagesReceived() {
+        return getNotificationCount(Notification.Kind.PRIVATE_MESSAGE);
+    }
+
+    @Override
+    public long getIgnoredOwnPosts() {
+        return getNotificationCount(Notification.Kind.OWN_POST);
+    }
+
+    @Override
+    public long getIgnoredNotFollowing() {
+        return getNotificationCount(Notification.Kind.NOT_FOLLOWING);
+    }
+
+    @Override
+    public long getIgnoredOtherRecipient() {
+        return getNotificationCount(Notification.Kind.OTHER_RECIPIENT);
+    }
+
+    @Override
+    public long getIgnoredUnsupported() {
+        return getNotificationCount(Notification.Kind.UNSUPPORTED);
+    }
+
+    @Override
+    public long getClockSyncs() {
+        return clockSyncs.get();
+    }
+
+    @Override
+    public long getDuplicatesSuppressed() {
+        return duplicates.get();
+    }
+
+    @Override
+    public int getPendingRequests() {
+        RequestEngine engine = requestEngine;
+        return engine != null ? engine.getPendingCount() : 0;
+    }
+
+    @Override
+    public int getNotificationQueueDepth() {
+        NotificationPipeline stages = pipeline;
+        return stages != null ? stages.getDecodeQueueDepth() : 0;
+    }
+
+    @Override
+    public int getNotificationSinkDepth() {
+        NotificationPipeline stages = pipeline;
+        return stages != null ? stages.getSinkQueueDepth() : 0;
+    }
+
+    @Override
+    public long getNotificationQueueDrops() {
+        NotificationPipeline stages = pipeline;
+        return stages != null ? stages.getDecodeDrops() : 0;
+    }
+
+    @Override
+    public long getNotificationSinkDrops() {
+        NotificationPipeline stages = pipeline;
+        return stages != null ? stages.getSinkDrops() : 0;
+    }
+
+    @Override
+    public long getLogQueueDepth() {
+        ClientLogger log = logger;
+        return log != null ? log.getQueueDepth() : 0;
+    }
+
+    @Override
+    public long getLogDropped() {
+        ClientLogger log = logger;
+        return log != null ? log.getDroppedCount() : 0;
+    }
+
+    // Uma linha: só operações e notificações com amostras; latências em microssegundos
+    // (contagem/p50/p99/máx)
+    @Override
+    public String snapshot() {
+        StringBuilder line = new StringBuilder(256);
+        line.append(Instant.now()).append(" req");
+        for (Map.Entry<String, LatencyHistogram> entry : requestLatency.entrySet()) {
+            appendHistogram(line, entry.getKey(), entry.getValue());
+        }
+        line.append(" | notif");
+        for (Notification.Kind kind : KINDS) {
+            appendHistogram(line, kind.name().toLowerCase(), notificationLatency[kind.ordinal()]);
+        }
+        line.append(" | clock_syncs=").append(getClockSyncs())
+                .append(" duplicates=").append(getDuplicatesSuppressed())
+                .append(" timeouts=").append(getRequestTimeouts())
+                .append(" retries=").append(getRequestRetries())
+                .append(" failovers=").append(getBrokerFailovers())
+                .append(" pending=").append(getPendingRequests())
+                .append(" notif_queue=").append(getNotificationQueueDepth())
+                .append('/').append(getNotificationSinkDepth())
+                .append(" notif_drops=").append(getNotificationQueueDrops())
+                .append('/').append(getNotificationSinkDrops())
+                .append(" log_queue=").append(getLogQueueDepth())
+                .append(" log_dropped=").append(getLogDropped());
+        return line.toString();
+    }
+
+    private static void appendHistogram(StringBuilder line, String name, LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        if (count == 0) {
+            return;
+        }
+        line.append(' ').append(name).append('=').append(count)
+                .append('/').append(histogram.getPercentile(50) / 1000)
+                .append('/').append(histogram.getPercentile(99) / 1000)
+                .append('/').append(histogram.getMax() / 1000);
+    }
+
+    // Registra este MBean e um LatencyStats por operação e por tipo de notificação
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        String client = ObjectName.quote(userId);
+        try {
+            register(server, new ObjectName("socialnetwork:type=ClientMetrics,client=" + client), this);
+            for (Map.Entry<String, LatencyHistogram> entry : requestLatency.entrySet()) {
+                register(server, new ObjectName("socialnetwork:type=RequestLatency,client=" + client
+                        + ",operation=" + entry.getKey()), new LatencyStats(entry.getValue()));
+            }
+            for (Notification.Kind kind : KINDS) {
+                register(server, new ObjectName("socialnetwork:type=NotificationLatency,client=" + client
+                        + ",kind=" + kind.name().toLowerCase()), new LatencyStats(notificationLatency[kind.ordinal()]));
+            }
+        } catch (JMException e) {
+            System.err.println("Could not register client metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    private void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        server.registerMBean(mbean, name);
+        registered.add(name);
+    }
+
+    // Acrescenta uma linha de snapshot ao arquivo a cada intervalo
+    public void startSnapshots(String file, long intervalMillis) {
+        Path path = Paths.get(file);
+        snapshotPath = path;
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-snapshot-" + userId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleAtFixedRate(() -> writeSnapshot(path), intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void writeSnapshot(Path path) {
+        try {
+            Files.write(path, (snapshot() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error writing metrics snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdownNow();
+            // Última linha com os totais até o encerramento
+            writeSnapshot(snapshotPath);
+            snapshotExecutor = null;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // Já removido
+            }
+        }
+        registered.clear();
+    }
+}
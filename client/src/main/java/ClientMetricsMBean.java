@@ -0,0 +1,43 @@
+// Contadores e filas do cliente via JMX; as latências ficam nos MBeans LatencyStats
+public interface ClientMetricsMBean {
+    long getRequestCount();
+
+    long getRequestTimeouts();
+
+    long getRequestRetries();
+
+    long getBrokerFailovers();
+
+    long getPostsReceived();
+
+    long getPrivateMessagesReceived();
+
+    long getIgnoredOwnPosts();
+
+    long getIgnoredNotFollowing();
+
+    long getIgnoredOtherRecipient();
+
+    long getIgnoredUnsupported();
+
+    long getClockSyncs();
+
+    long getDuplicatesSuppressed();
+
+    int getPendingRequests();
+
+    int getNotificationQueueDepth();
+
+    int getNotificationSinkDepth();
+
+    long getNotificationQueueDrops();
+
+    long getNotificationSinkDrops();
+
+    long getLogQueueDepth();
+
+    long getLogDropped();
+
+    // Mesma linha escrita no arquivo de snapshots
+    String snapshot();
+}
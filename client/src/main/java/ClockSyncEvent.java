@@ -0,0 +1,20 @@
+// SINCRONIZAÇÃO DE RELÓGIO - publicada quando uma notificação adianta o relógio lógico
+public final class ClockSyncEvent {
+    // Origem, ex.: "Post from bob"
+    public final String source;
+    public final long previousMillis;
+    public final long currentMillis;
+    public final long serverMillis;
+
+    ClockSyncEvent(String source, long previousMillis, long currentMillis, long serverMillis) {
+        this.source = source;
+        this.previousMillis = previousMillis;
+        this.currentMillis = currentMillis;
+        this.serverMillis = serverMillis;
+    }
+
+    @Override
+    public String toString() {
+        return source + ": " + previousMillis + " -> " + currentMillis + " (server " + serverMillis + ")";
+    }
+}
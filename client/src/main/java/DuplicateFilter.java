@@ -0,0 +1,135 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+// SUPRESSÃO DE DUPLICADAS com memória limitada
+// A replicação entre servers e o round-robin do broker podem entregar o mesmo post (ou a
+// mesma mensagem) mais de uma vez. As últimas "recentWindow" identidades ficam num
+// conjunto exato; ao sair da janela, cada uma vai para um filtro de Bloom dimensionado
+// pelo orçamento de memória e pela taxa de falsos positivos. São duas gerações de Bloom:
+// quando a atual enche, a mais antiga é descartada e o histórico mais velho é esquecido,
+// então a taxa de falsos positivos fica no máximo no dobro da configurada (uma por
+// geração). Um falso positivo descarta um item novo, por isso a taxa deve ser baixa.
+// Não é thread-safe: é usado só pelo estágio final do pipeline de notificações.
+public class DuplicateFilter {
+    private static final double LN2 = Math.log(2);
+
+    private final String[] window;
+    private final Set<String> recent;
+    private int windowPosition;
+
+    private final int bitsPerGeneration;
+    private final int hashCount;
+    private final int generationCapacity;
+    private long[] currentBits;
+    private long[] previousBits;
+    private int currentCount;
+
+    private long checked;
+    private long duplicates;
+
+    // budgetBytes é dividido entre as duas gerações do Bloom
+    public DuplicateFilter(int recentWindow, long budgetBytes, double falsePositiveRate) {
+        if (recentWindow < 1) {
+            throw new IllegalArgumentException("Dedup window must be at least 1, got " + recentWindow);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be in (0, 1), got " + falsePositiveRate);
+        }
+        this.window = new String[recentWindow];
+        this.recent = new HashSet<>(recentWindow * 2);
+
+        long bits = Math.max(64, Math.min(budgetBytes * 8 / 2, Integer.MAX_VALUE - 63L));
+        this.bitsPerGeneration = (int) (bits & ~63L);
+        // n = -m ln²2 / ln p e k = (m / n) ln 2
+        this.generationCapacity = Math.max(1,
+                (int) (-bitsPerGeneration * LN2 * LN2 / Math.log(falsePositiveRate)));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitsPerGeneration / generationCapacity * LN2));
+        this.currentBits = new long[bitsPerGeneration / 64];
+        this.previousBits = new long[bitsPerGeneration / 64];
+    }
+
+    // true na primeira vez que a identidade aparece; false se for (provavelmente) repetida
+    public boolean firstSeen(String identity) {
+        checked++;
+        if (recent.contains(identity)) {
+            duplicates++;
+            return false;
+        }
+        long hash = hash64(identity);
+        if (mightContain(currentBits, hash) || mightContain(previousBits, hash)) {
+            duplicates++;
+            return false;
+        }
+        String evicted = window[windowPosition];
+        if (evicted != null) {
+            recent.remove(evicted);
+            remember(hash64(evicted));
+        }
+        window[windowPosition] = identity;
+        windowPosition = (windowPosition + 1) % window.length;
+        recent.add(identity);
+        return true;
+    }
+
+    public long getChecked() {
+        return checked;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    // Identidades que o Bloom da geração atual comporta na taxa configurada
+    public int getGenerationCapacity() {
+        return generationCapacity;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private void remember(long hash) {
+        if (currentCount >= generationCapacity) {
+            long[] recycled = previousBits;
+            Arrays.fill(recycled, 0);
+            previousBits = currentBits;
+            currentBits = recycled;
+            currentCount = 0;
+        }
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitsPerGeneration;
+            currentBits[bit >>> 6] |= 1L << bit;
+        }
+        currentCount++;
+    }
+
+    private boolean mightContain(long[] bits, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitsPerGeneration;
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits com mistura final (as duas metades viram as duas funções de hash)
+    static long hash64(String identity) {
+        byte[] bytes = identity.getBytes(StandardCharsets.UTF_8);
+        long h = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,110 @@
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// BROKER/PROXY EMBUTIDO - substituto em Java dos scripts Python
+// Encaminha mensagens multipart nos dois sentidos entre dois sockets, como o broker.py
+// (ROUTER para clientes, DEALER para servers) e o post_proxy.py (XSUB para os servers
+// publicarem, XPUB para os clientes assinarem; as assinaturas voltam pelo XPUB).
+// Roda numa thread própria com poll, sem a pausa fixa do script Python.
+public class EmbeddedBroker implements AutoCloseable {
+
+    private final String name;
+    private final ZMQ.Socket frontend;
+    private final ZMQ.Socket backend;
+    private final ZMQ.Poller poller;
+    private final Thread thread;
+    private final AtomicLong forwardedToBackend = new AtomicLong();
+    private final AtomicLong forwardedToFrontend = new AtomicLong();
+    private volatile boolean running = true;
+
+    // Broker de requisições: clientes no frontend, servers no backend
+    public static EmbeddedBroker requestBroker(ZContext context, String frontendAddress, String backendAddress) {
+        return new EmbeddedBroker(context, "broker", SocketType.ROUTER, frontendAddress, SocketType.DEALER,
+                backendAddress);
+    }
+
+    // Proxy de posts: servers publicam no XSUB, clientes assinam no XPUB
+    public static EmbeddedBroker postProxy(ZContext context, String publishAddress, String subscribeAddress) {
+        return new EmbeddedBroker(context, "post-proxy", SocketType.XSUB, publishAddress, SocketType.XPUB,
+                subscribeAddress);
+    }
+
+    EmbeddedBroker(ZContext context, String name, SocketType frontendType, String frontendAddress,
+            SocketType backendType, String backendAddress) {
+        this.name = name;
+        this.frontend = context.createSocket(frontendType);
+        this.frontend.setLinger(0);
+        this.backend = context.createSocket(backendType);
+        this.backend.setLinger(0);
+        if (frontendType == SocketType.XSUB) {
+            // Assinaturas sem limite de fila: acima do HWM elas seriam descartadas em silêncio
+            this.frontend.setSndHWM(0);
+            this.backend.setRcvHWM(0);
+        }
+        this.frontend.bind(frontendAddress);
+        this.backend.bind(backendAddress);
+        this.poller = context.createPoller(2);
+        this.poller.register(frontend, ZMQ.Poller.POLLIN);
+        this.poller.register(backend, ZMQ.Poller.POLLIN);
+        this.thread = new Thread(this::forward, "embedded-" + name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public long getForwardedToBackend() {
+        return forwardedToBackend.get();
+    }
+
+    public long getForwardedToFrontend() {
+        return forwardedToFrontend.get();
+    }
+
+    private void forward() {
+        while (running) {
+            try {
+                poller.poll(100);
+                if (poller.pollin(0)) {
+                    forwardedToBackend.addAndGet(drain(frontend, backend));
+                }
+                if (poller.pollin(1)) {
+                    forwardedToFrontend.addAndGet(drain(backend, frontend));
+                }
+            } catch (Exception e) {
+                if (running) {
+                    System.err.println("Error forwarding in embedded " + name + ": " + e.getMessage());
+                }
+            }
+        }
+        poller.close();
+        frontend.close();
+        backend.close();
+    }
+
+    // Move todas as mensagens disponíveis, frame a frame, preservando o multipart
+    private static int drain(ZMQ.Socket from, ZMQ.Socket to) {
+        int messages = 0;
+        byte[] frame;
+        while ((frame = from.recv(ZMQ.DONTWAIT)) != null) {
+            while (from.hasReceiveMore()) {
+                to.sendMore(frame);
+                frame = from.recv(0);
+            }
+            to.send(frame, 0);
+            messages++;
+        }
+        return messages;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import org.zeromq.ZContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// CLUSTER EMBUTIDO - broker, proxy de posts e N servers numa única JVM
+// Mesma topologia da execução completa (broker 5555/5556, proxy 5557/5558), sem Python
+// nem Node. Em inproc:// tudo passa pela memória e clientes precisam usar o mesmo
+// ZContext (getContext()); em TCP qualquer processo conecta nas portas de sempre.
+public class EmbeddedCluster implements AutoCloseable {
+
+    public final String brokerAddress;
+    public final String subscriberAddress;
+
+    private final ZContext context;
+    private final boolean ownsContext;
+    private final EmbeddedStore store = new EmbeddedStore();
+    private final EmbeddedBroker broker;
+    private final EmbeddedBroker postProxy;
+    private final List<EmbeddedServer> servers = new ArrayList<>();
+
+    // Em memória: endereços inproc:// com o prefixo dado (permite mais de um cluster por contexto)
+    public static EmbeddedCluster inproc(ZContext context, String name, int servers) {
+        return inproc(context, name, servers, servers);
+    }
+
+    // Só os binaryServers primeiros aceitam o codec binário; os demais falam só JSON, como o Node
+    public static EmbeddedCluster inproc(ZContext context, String name, int servers, int binaryServers) {
+        String prefix = "inproc://" + name + "-";
+        return new EmbeddedCluster(context, false, servers, binaryServers, prefix + "broker-frontend",
+                prefix + "broker-backend", prefix + "posts-publish", prefix + "posts-subscribe");
+    }
+
+    // TCP nas portas da execução completa, a partir de basePort (5555 = padrão)
+    public static EmbeddedCluster tcp(int basePort, int servers) {
+        return new EmbeddedCluster(new ZContext(), true, servers, servers, "tcp://*:" + basePort,
+                "tcp://*:" + (basePort + 1), "tcp://*:" + (basePort + 2), "tcp://*:" + (basePort + 3));
+    }
+
+    EmbeddedCluster(ZContext context, boolean ownsContext, int serverCount, int binaryServers,
+            String frontendAddress, String backendAddress, String publishAddress, String subscribeAddress) {
+        if (serverCount < 1) {
+            throw new IllegalArgumentException("Embedded cluster needs at least 1 server, got " + serverCount);
+        }
+        this.context = context;
+        this.ownsContext = ownsContext;
+        this.brokerAddress = frontendAddress.replace("*", "localhost");
+        this.subscriberAddress = subscribeAddress.replace("*", "localhost");
+
+        this.broker = EmbeddedBroker.requestBroker(context, frontendAddress, backendAddress);
+        this.postProxy = EmbeddedBroker.postProxy(context, publishAddress, subscribeAddress);
+        String serverBackend = backendAddress.replace("*", "localhost");
+        String serverPublish = publishAddress.replace("*", "localhost");
+        for (int i = 1; i <= serverCount; i++) {
+            servers.add(new EmbeddedServer(context, serverBackend, false, serverPublish, store,
+                    String.valueOf(i), i <= binaryServers, false));
+        }
+    }
+
+    public ZContext getContext() {
+        return context;
+    }
+
+    public EmbeddedStore getStore() {
+        return store;
+    }
+
+    public List<EmbeddedServer> getServers() {
+        return servers;
+    }
+
+    public long getRequestCount() {
+        long total = 0;
+        for (EmbeddedServer server : servers) {
+            total += server.getRequestCount();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        for (EmbeddedServer server : servers) {
+            server.close();
+        }
+        broker.close();
+        postProxy.close();
+        if (ownsContext) {
+            context.close();
+        }
+    }
+
+    // Sobe o cluster em TCP para clientes de outros processos: [servers] [porta base]
+    public static void main(String[] args) throws InterruptedException {
+        int serverCount = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int basePort = args.length > 1 ? Integer.parseInt(args[1]) : 5555;
+        EmbeddedCluster cluster = tcp(basePort, serverCount);
+        Runtime.getRuntime().addShutdownHook(new Thread(cluster::close));
+        System.out.println("EMBEDDED CLUSTER");
+        System.out.println("Servers: " + serverCount);
+        System.out.println("Broker: " + cluster.brokerAddress + " (servers on port " + (basePort + 1) + ")");
+        System.out.println("Posts: publish on port " + (basePort + 2) + ", subscribe on " + cluster.subscriberAddress);
+        System.out.println("=".repeat(50));
+        Thread.currentThread().join();
+    }
+}
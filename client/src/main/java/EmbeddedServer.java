@@ -0,0 +1,305 @@
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// SERVER EMBUTIDO - substituto em Java do server Node para testes e benchmarks
+// Responde create_post, follow_user, unfollow_user, send_private_message, get_all_posts
+// (inteiro ou paginado), get_following, batch e negotiate_codec com os mesmos campos do server.js, mantendo
+// tudo em memória (EmbeddedStore, que servers do mesmo cluster compartilham). O socket
+// REP pode fazer bind (o Client conecta direto nele) ou connect (atrás do backend de um
+// broker). Cada resposta sai na mesma codificação da requisição, então JSON e binário
+// podem ser comparados sem o Node; sem acceptBinary o server só fala JSON, como o Node, e
+// responde com erro em JSON a uma requisição binária. Com um endereço de PUB, publica as notificações com
+// os mesmos tópicos do server.js ("<user>:" e "<user>:PM:").
+public class EmbeddedServer implements AutoCloseable {
+    // Mesmo limite de itens por lote do server.js
+    static final int MAX_BATCH_ITEMS = 1000;
+
+    private final String serverId;
+    private final String address;
+    private final boolean acceptBinary;
+    private final boolean multipartTopics;
+    private final EmbeddedStore store;
+    private final ZMQ.Socket socket;
+    private final ZMQ.Socket pubSocket;
+    private final Thread thread;
+    private final AtomicLong requestCount = new AtomicLong();
+    private volatile boolean running = true;
+
+    public EmbeddedServer(ZContext context, String address, boolean bind) {
+        this(context, address, bind, true, "embedded");
+    }
+
+    public EmbeddedServer(ZContext context, String address, boolean bind, boolean acceptBinary, String serverId) {
+        this(context, address, bind, null, new EmbeddedStore(), serverId, acceptBinary, false);
+    }
+
+    // pubAddress: XSUB do proxy de posts (o server conecta, como o Node); null = sem notificações
+    public EmbeddedServer(ZContext context, String address, boolean bind, String pubAddress, EmbeddedStore store,
+            String serverId, boolean acceptBinary, boolean multipartTopics) {
+        this.serverId = serverId;
+        this.address = address;
+        this.acceptBinary = acceptBinary;
+        this.multipartTopics = multipartTopics;
+        this.store = store;
+        if (pubAddress != null) {
+            this.pubSocket = context.createSocket(SocketType.PUB);
+            this.pubSocket.setLinger(0);
+            // Notificações: acima do HWM o PUB descartaria em silêncio e distorceria as medições de carga
+            this.pubSocket.setSndHWM(0);
+            // Assinaturas que chegam do proxy, também sem limite (como o PUB do server.js)
+            this.pubSocket.setRcvHWM(0);
+            this.pubSocket.connect(pubAddress);
+        } else {
+            this.pubSocket = null;
+        }
+        this.socket = context.createSocket(SocketType.REP);
+        this.socket.setLinger(0);
+        this.socket.setReceiveTimeOut(100);
+        if (bind) {
+            socket.bind(address);
+        } else {
+            socket.connect(address);
+        }
+        this.thread = new Thread(this::serve, "embedded-server-" + serverId);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public EmbeddedStore getStore() {
+        return store;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    private void serve() {
+        while (running) {
+            byte[] request;
+            try {
+                request = socket.recv(0);
+            } catch (Exception e) {
+                if (running) {
+                    System.err.println("Error receiving in embedded server " + serverId + ": " + e.getMessage());
+                }
+                continue;
+            }
+            if (request == null) {
+                continue;
+            }
+            requestCount.incrementAndGet();
+
+            WireCodec codec = WireCodec.detect(request, 0);
+            JSONObject response;
+            if (codec != WireCodec.JSON && !acceptBinary) {
+                // Como o server.js: o JSON.parse falha e o erro volta em JSON
+                codec = WireCodec.JSON;
+                response = error("Unexpected binary request").put("server_id", serverId);
+            } else {
+                try {
+                    response = handle(codec.decode(request));
+                } catch (Exception e) {
+                    response = error(e.getMessage());
+                }
+            }
+            socket.send(codec.encode(response), 0);
+        }
+        socket.close();
+        if (pubSocket != null) {
+            pubSocket.close();
+        }
+    }
+
+    // Operações que alteram dados respondem a uma retentativa (mesmo request_id) com a
+    // resposta já dada, sem repetir a operação
+    JSONObject handle(JSONObject message) {
+        String type = message.optString("type");
+        boolean mutating = type.equals("create_post") || type.equals("follow_user")
+                || type.equals("unfollow_user") || type.equals("send_private_message");
+        String requestId = message.optString("request_id", null);
+        if (!mutating || requestId == null) {
+            return execute(message);
+        }
+        JSONObject completed = store.completedResponse(requestId);
+        if (completed != null) {
+            return completed;
+        }
+        JSONObject response = execute(message);
+        if (Requests.isSuccess(response)) {
+            store.rememberResponse(requestId, response);
+        }
+        return response;
+    }
+
+    private JSONObject execute(JSONObject message) {
+        long clientTimestamp = message.optLong("client_timestamp", System.currentTimeMillis());
+        switch (message.optString("type")) {
+            case "create_post": {
+                JSONObject post = store.createPost(serverId, message.getString("user_id"),
+                        message.getString("content"), clientTimestamp);
+                JSONObject notification = new JSONObject();
+                notification.put("type", "new_post");
+                notification.put("post", post);
+                notification.put("server_timestamp", System.currentTimeMillis());
+                publish(post.getString("user_id") + ":", notification);
+                return success("Post created successfully").put("post", post);
+            }
+            case "follow_user": {
+                String target = message.getString("target_user_id");
+                boolean followed = store.follow(message.getString("follower_id"), target);
+                return success(followed ? "Now following user " + target : "Already following user " + target)
+                        .put("followed", followed);
+            }
+            case "unfollow_user": {
+                String target = message.getString("target_user_id");
+                boolean unfollowed = store.unfollow(message.getString("follower_id"), target);
+                return success(unfollowed ? "Stopped following user " + target : "Not following user " + target)
+                        .put("unfollowed", unfollowed);
+            }
+            case "get_following": {
+                JSONArray following = store.getFollowing(message.getString("user_id"));
+                return success("Following " + following.length() + " users").put("following", following);
+            }
+            case "get_all_posts":
+                if (message.has("limit")) {
+                    return getPostsPage(message.getInt("limit"),
+                            PostCursor.fromJSON(message.optJSONObject("before")),
+                            PostCursor.fromJSON(message.optJSONObject("after")));
+                }
+                List<JSONObject> all = store.getAllPosts();
+                return success("Found " + all.size() + " posts").put("posts", new JSONArray(all));
+            case "send_private_message": {
+                String receiverId = message.getString("receiver_id");
+                JSONObject sent = store.sendPrivateMessage(serverId, message.getString("sender_id"), receiverId,
+                        message.getString("content"), clientTimestamp);
+                JSONObject notification = new JSONObject();
+                notification.put("type", "private_message");
+                notification.put("sender_id", sent.getString("sender_id"));
+                notification.put("content", sent.getString("content"));
+                notification.put("created_at", sent.getLong("created_at"));
+                notification.put("client_timestamp", clientTimestamp);
+                notification.put("server_timestamp", System.currentTimeMillis());
+                publish(receiverId + ":PM:", notification);
+                return success("Message sent to user " + receiverId);
+            }
+            case "batch":
+                return executeBatch(message.optJSONArray("requests"));
+            case "negotiate_codec":
+                return negotiateCodec(message.optJSONArray("codecs"));
+            default:
+                return error("Unknown request type");
+        }
+    }
+
+    // Cada item é uma requisição completa (com o próprio request_id) e recebe a própria
+    // resposta em "results", na mesma ordem; lote dentro de lote não é aceito
+    private JSONObject executeBatch(JSONArray requests) {
+        if (requests == null) {
+            return error("Batch without requests");
+        }
+        if (requests.length() > MAX_BATCH_ITEMS) {
+            return error("Batch too large: " + requests.length() + " requests (max " + MAX_BATCH_ITEMS + ")");
+        }
+        JSONArray results = new JSONArray();
+        int failed = 0;
+        for (int i = 0; i < requests.length(); i++) {
+            JSONObject item = requests.optJSONObject(i);
+            JSONObject result;
+            if (item == null || item.optString("type").equals("batch")) {
+                result = error("Invalid batch item");
+            } else {
+                try {
+                    result = handle(item);
+                } catch (Exception e) {
+                    result = error(e.getMessage());
+                }
+            }
+            if (!Requests.isSuccess(result)) {
+                failed++;
+            }
+            results.put(result);
+        }
+        return success("Processed " + results.length() + " requests (" + failed + " failed)").put("results", results);
+    }
+
+    // Mesma paginação do server.js
+    private JSONObject getPostsPage(int limit, PostCursor before, PostCursor after) {
+        int pageSize = Math.max(1, Math.min(limit, 1000));
+        List<JSONObject> page = store.getPostsPage(pageSize, before, after);
+        boolean hasMore = page.size() > pageSize;
+        if (hasMore) {
+            page = page.subList(0, pageSize);
+        }
+        JSONObject response = success("Found " + page.size() + " posts");
+        response.put("has_more", hasMore);
+        response.put("next_cursor", page.isEmpty() ? JSONObject.NULL
+                : PostCursor.of(page.get(page.size() - 1)).toJSON());
+        response.put("posts", new JSONArray(page));
+        return response;
+    }
+
+    // Notificação no mesmo formato do server.js (frame único ou multipart)
+    private void publish(String topic, JSONObject notification) {
+        if (pubSocket == null) {
+            return;
+        }
+        if (multipartTopics) {
+            pubSocket.sendMore(topic);
+            pubSocket.send(notification.toString().getBytes(StandardCharsets.UTF_8), 0);
+        } else {
+            pubSocket.send((topic + notification).getBytes(StandardCharsets.UTF_8), 0);
+        }
+    }
+
+    // Escolhe a primeira codificação proposta que este server entende
+    private JSONObject negotiateCodec(JSONArray codecs) {
+        String chosen = WireCodec.JSON.name();
+        if (codecs != null) {
+            for (int i = 0; i < codecs.length(); i++) {
+                String codec = codecs.optString(i);
+                if (codec.equals(WireCodec.JSON.name()) || (acceptBinary && codec.equals(WireCodec.BINARY.name()))) {
+                    chosen = codec;
+                    break;
+                }
+            }
+        }
+        return success("Using codec " + chosen).put("codec", chosen);
+    }
+
+    private JSONObject success(String message) {
+        JSONObject response = new JSONObject();
+        response.put("status", "success");
+        response.put("message", message);
+        response.put("server_id", serverId);
+        return response;
+    }
+
+    private JSONObject error(String message) {
+        JSONObject response = new JSONObject();
+        response.put("status", "error");
+        response.put("message", message);
+        response.put("server_id", serverId);
+        return response;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
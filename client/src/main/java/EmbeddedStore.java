@@ -0,0 +1,113 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// DADOS EM MEMÓRIA dos servers embutidos
+// Os servers Node replicam entre si; os embutidos de um mesmo cluster simplesmente
+// compartilham este objeto, então qualquer um deles responde com o estado completo.
+public class EmbeddedStore {
+
+    static final Comparator<JSONObject> BY_CURSOR = Comparator.comparing(PostCursor::of);
+    private static final int COMPLETED_REQUESTS = 10_000;
+
+    private final List<JSONObject> posts = new ArrayList<>();
+    private final List<JSONObject> privateMessages = new ArrayList<>();
+    private final Map<String, Set<String>> followers = new HashMap<>();
+    // Respostas recentes por request_id: uma retentativa recebe a mesma resposta sem repetir a operação
+    private final Map<String, JSONObject> completedRequests = new LinkedHashMap<String, JSONObject>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JSONObject> eldest) {
+            return size() > COMPLETED_REQUESTS;
+        }
+    };
+
+    public synchronized JSONObject completedResponse(String requestId) {
+        return completedRequests.get(requestId);
+    }
+
+    public synchronized void rememberResponse(String requestId, JSONObject response) {
+        completedRequests.put(requestId, response);
+    }
+
+    public synchronized JSONObject createPost(String serverId, String userId, String content, long clientTimestamp) {
+        JSONObject post = new JSONObject();
+        post.put("id", UUID.randomUUID().toString());
+        post.put("user_id", userId);
+        post.put("content", content);
+        post.put("server_id", serverId);
+        post.put("created_at", System.currentTimeMillis());
+        post.put("client_timestamp", clientTimestamp);
+        posts.add(post);
+        return post;
+    }
+
+    public synchronized JSONObject sendPrivateMessage(String serverId, String senderId, String receiverId,
+            String content, long clientTimestamp) {
+        JSONObject message = new JSONObject();
+        message.put("id", UUID.randomUUID().toString());
+        message.put("sender_id", senderId);
+        message.put("receiver_id", receiverId);
+        message.put("content", content);
+        message.put("server_id", serverId);
+        message.put("created_at", System.currentTimeMillis());
+        message.put("client_timestamp", clientTimestamp);
+        privateMessages.add(message);
+        return message;
+    }
+
+    public synchronized boolean follow(String followerId, String targetUserId) {
+        return followers.computeIfAbsent(targetUserId, key -> new LinkedHashSet<>()).add(followerId);
+    }
+
+    public synchronized boolean unfollow(String followerId, String targetUserId) {
+        Set<String> targetFollowers = followers.get(targetUserId);
+        return targetFollowers != null && targetFollowers.remove(followerId);
+    }
+
+    public synchronized JSONArray getFollowing(String userId) {
+        JSONArray following = new JSONArray();
+        for (Map.Entry<String, Set<String>> entry : followers.entrySet()) {
+            if (entry.getValue().contains(userId)) {
+                following.put(entry.getKey());
+            }
+        }
+        return following;
+    }
+
+    public synchronized List<JSONObject> getAllPosts() {
+        List<JSONObject> all = new ArrayList<>(posts);
+        all.sort(BY_CURSOR.reversed());
+        return all;
+    }
+
+    // Mesma ordem do server.js: "before" (ou sem cursor) do mais novo para o mais antigo,
+    // "after" do mais antigo para o mais novo. Devolve até limit + 1 posts para indicar has_more.
+    public synchronized List<JSONObject> getPostsPage(int limit, PostCursor before, PostCursor after) {
+        List<JSONObject> page = new ArrayList<>();
+        for (JSONObject post : posts) {
+            PostCursor key = PostCursor.of(post);
+            if (after != null ? key.compareTo(after) > 0 : before == null || key.compareTo(before) < 0) {
+                page.add(post);
+            }
+        }
+        page.sort(after != null ? BY_CURSOR : BY_CURSOR.reversed());
+        return page.size() > limit + 1 ? new ArrayList<>(page.subList(0, limit + 1)) : page;
+    }
+
+    public synchronized int getPostCount() {
+        return posts.size();
+    }
+
+    public synchronized int getPrivateMessageCount() {
+        return privateMessages.size();
+    }
+}
@@ -0,0 +1,187 @@
+import org.zeromq.ZContext;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// LEITURAS COM HEDGE (só para operações somente leitura)
+// A leitura vai pelo engine principal. Se a resposta não chegar dentro de um atraso
+// adaptativo (o p95 das leituras recentes), uma cópia é enviada por uma segunda
+// conexão DEALER, que o broker tende a mandar para outro server (ou que aponta para o
+// próximo broker da lista). Vale a primeira resposta; a outra é cancelada, o que a tira
+// da janela do engine dela sem contar como timeout.
+public class HedgedReader implements AutoCloseable {
+    // Amostras antes de confiar no percentil, e a cada quantas o atraso é recalculado
+    private static final int MIN_SAMPLES = 20;
+    private static final int RECOMPUTE_EVERY = 32;
+    // Janela do histograma: depois disso recomeça, para acompanhar mudanças de carga
+    private static final int WINDOW_SAMPLES = 4096;
+
+    private final RequestEngine primary;
+    private final RequestEngine secondary;
+    private final double percentile;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final ScheduledExecutorService timer;
+    private volatile long delayNanos;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedgesFired = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    public HedgedReader(ZContext context, RequestEngine primary, List<String> addresses, int window,
+            RequestEngine.Policy policy, double percentile, long initialDelayMillis, long minDelayMillis,
+            long maxDelayMillis) {
+        this.primary = primary;
+        // A segunda conexão começa pelo próximo broker da lista (com um só, é outra conexão ao mesmo)
+        List<String> rotated = new ArrayList<>(addresses.subList(1, addresses.size()));
+        rotated.add(addresses.get(0));
+        this.secondary = new RequestEngine(context, rotated, window, policy);
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.delayNanos = TimeUnit.MILLISECONDS.toNanos(initialDelayMillis);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public RequestEngine getSecondary() {
+        return secondary;
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getHedgesFired() {
+        return hedgesFired.get();
+    }
+
+    // Vezes em que a cópia respondeu antes da original
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    public long getDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(delayNanos);
+    }
+
+    public CompletableFuture<JSONObject> submit(JSONObject request) {
+        return submitRaw(request).thenApply(WireCodec::decodeAny);
+    }
+
+    public CompletableFuture<byte[]> submitRaw(JSONObject request) {
+        calls.incrementAndGet();
+        HedgedCall call = new HedgedCall(request, System.nanoTime());
+        call.primaryFuture = primary.submitRaw(request);
+        call.timer = timer.schedule(call::fireHedge, delayNanos, TimeUnit.NANOSECONDS);
+        call.primaryFuture.whenComplete(call::onPrimary);
+        return call.result;
+    }
+
+    // Registra a latência de uma resposta e, de tempos em tempos, recalcula o atraso
+    private void record(long latencyNanos) {
+        latencies.record(latencyNanos);
+        long count = latencies.getCount();
+        if (count >= MIN_SAMPLES && count % RECOMPUTE_EVERY == 0) {
+            long delay = latencies.getPercentile(percentile);
+            delayNanos = Math.max(minDelayNanos, Math.min(maxDelayNanos, delay));
+            if (count >= WINDOW_SAMPLES) {
+                latencies.reset();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        secondary.close();
+    }
+
+    // Estado de uma leitura: original, cópia opcional e o resultado entregue
+    private final class HedgedCall {
+        final JSONObject request;
+        final long startNanos;
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        CompletableFuture<byte[]> primaryFuture;
+        CompletableFuture<byte[]> hedgeFuture;
+        ScheduledFuture<?> timer;
+        long hedgeStartNanos;
+        boolean primaryFailed;
+        boolean hedgeFailed;
+        Throwable primaryError;
+
+        HedgedCall(JSONObject request, long startNanos) {
+            this.request = request;
+            this.startNanos = startNanos;
+        }
+
+        void fireHedge() {
+            synchronized (this) {
+                if (result.isDone() || primaryFuture.isDone() || hedgeFuture != null) {
+                    return;
+                }
+                hedgesFired.incrementAndGet();
+                hedgeStartNanos = System.nanoTime();
+                hedgeFuture = secondary.submitRaw(request);
+            }
+            hedgeFuture.whenComplete(this::onHedge);
+        }
+
+        void onPrimary(byte[] reply, Throwable error) {
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            CompletableFuture<byte[]> loser;
+            synchronized (this) {
+                if (error != null) {
+                    primaryFailed = true;
+                    primaryError = error;
+                    // Sem cópia em voo (ou com a cópia já falhada), a falha é a resposta
+                    if (hedgeFuture == null || hedgeFailed) {
+                        result.completeExceptionally(error);
+                    }
+                    return;
+                }
+                record(System.nanoTime() - startNanos);
+                if (!result.complete(reply)) {
+                    return;
+                }
+                loser = hedgeFuture;
+            }
+            if (loser != null) {
+                loser.cancel(false);
+            }
+        }
+
+        void onHedge(byte[] reply, Throwable error) {
+            CompletableFuture<byte[]> loser;
+            synchronized (this) {
+                if (error != null) {
+                    hedgeFailed = true;
+                    if (primaryFailed) {
+                        result.completeExceptionally(primaryError);
+                    }
+                    return;
+                }
+                record(System.nanoTime() - hedgeStartNanos);
+                if (!result.complete(reply)) {
+                    return;
+                }
+                hedgeWins.incrementAndGet();
+                loser = primaryFuture;
+            }
+            loser.cancel(false);
+        }
+    }
+}
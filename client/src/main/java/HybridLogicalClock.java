@@ -0,0 +1,99 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// RELÓGIO LÓGICO HÍBRIDO (HLC)
+// Um único AtomicLong guarda os milissegundos físicos (48 bits altos) e um contador
+// lógico (16 bits baixos), atualizados por CAS. Assim a thread principal e o listener
+// podem mexer no relógio ao mesmo tempo sem perder atualizações e sem criar objetos.
+// O valor nunca anda para trás: se o relógio físico atrasar (ou for atrasado à mão),
+// o contador lógico cresce até o físico alcançar.
+public final class HybridLogicalClock {
+    static final int LOGICAL_BITS = 16;
+    static final long LOGICAL_MASK = (1L << LOGICAL_BITS) - 1;
+
+    private final AtomicLong state = new AtomicLong();
+    private final LongSupplier physicalClock;
+    // Ajuste manual somado ao relógio físico (opções de adiantar/atrasar do menu)
+    private final AtomicLong offsetMillis = new AtomicLong();
+
+    public HybridLogicalClock() {
+        this(System::currentTimeMillis);
+    }
+
+    public HybridLogicalClock(LongSupplier physicalClock) {
+        this.physicalClock = physicalClock;
+        state.set(pack(physicalClock.getAsLong(), 0));
+    }
+
+    // Evento local ou envio: avança para o físico atual, ou incrementa o contador
+    public long tick() {
+        long now = physicalNow();
+        while (true) {
+            long current = state.get();
+            long next = now > millis(current) ? pack(now, 0) : increment(current);
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Recebimento: fica à frente do relógio local, do físico e do timestamp remoto
+    public long merge(long remoteMillis) {
+        long now = physicalNow();
+        while (true) {
+            long current = state.get();
+            long currentMillis = millis(current);
+            long nextMillis = Math.max(Math.max(currentMillis, remoteMillis), now);
+            long next;
+            if (nextMillis == currentMillis) {
+                next = increment(current);
+            } else if (nextMillis == remoteMillis) {
+                next = pack(remoteMillis, 1);
+            } else {
+                next = pack(nextMillis, 0);
+            }
+            if (state.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    // Ajuste manual: desloca o relógio físico. Adiantar tem efeito imediato; atrasar só
+    // segura o relógio até o físico alcançar, porque o valor nunca volta.
+    public long adjust(long deltaMillis) {
+        offsetMillis.addAndGet(deltaMillis);
+        return tick();
+    }
+
+    public long current() {
+        return state.get();
+    }
+
+    public long currentMillis() {
+        return millis(state.get());
+    }
+
+    public static long millis(long timestamp) {
+        return timestamp >>> LOGICAL_BITS;
+    }
+
+    public static int logical(long timestamp) {
+        return (int) (timestamp & LOGICAL_MASK);
+    }
+
+    static long pack(long millis, long logical) {
+        return (millis << LOGICAL_BITS) | (logical & LOGICAL_MASK);
+    }
+
+    private long physicalNow() {
+        return physicalClock.getAsLong() + offsetMillis.get();
+    }
+
+    // Contador cheio passa para o próximo milissegundo em vez de transbordar
+    private static long increment(long timestamp) {
+        if (logical(timestamp) == LOGICAL_MASK) {
+            return pack(millis(timestamp) + 1, 0);
+        }
+        return timestamp + 1;
+    }
+}
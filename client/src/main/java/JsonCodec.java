@@ -0,0 +1,22 @@
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+
+// CODIFICAÇÃO JSON (padrão) - o mesmo texto UTF-8 que os servers Node esperam
+public final class JsonCodec implements WireCodec {
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public byte[] encode(JSONObject message) {
+        return message.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public JSONObject decode(byte[] frame, int offset, int length) {
+        return new JSONObject(new String(frame, offset, length, StandardCharsets.UTF_8));
+    }
+}
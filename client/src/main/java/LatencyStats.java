@@ -0,0 +1,43 @@
+// Expõe um LatencyHistogram (gravado em nanossegundos) como MBean
+public class LatencyStats implements LatencyStatsMBean {
+    private final LatencyHistogram histogram;
+
+    public LatencyStats(LatencyHistogram histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return histogram.getMean() / 1000.0;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return histogram.getPercentile(50) / 1000;
+    }
+
+    @Override
+    public long getP95Micros() {
+        return histogram.getPercentile(95) / 1000;
+    }
+
+    @Override
+    public long getP99Micros() {
+        return histogram.getPercentile(99) / 1000;
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return histogram.getMax() / 1000;
+    }
+
+    @Override
+    public void reset() {
+        histogram.reset();
+    }
+}
@@ -0,0 +1,16 @@
+// Visão JMX de um LatencyHistogram (valores em microssegundos)
+public interface LatencyStatsMBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP95Micros();
+
+    long getP99Micros();
+
+    long getMaxMicros();
+
+    void reset();
+}
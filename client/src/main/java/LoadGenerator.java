@@ -0,0 +1,420 @@
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// GERADOR DE CARGA HEADLESS
+// Simula milhares de usuários numa única JVM: um ZContext compartilhado, poucos
+// RequestEngines (um DEALER cada) e um pool pequeno de threads agendadas que emitem
+// operações na taxa definida no arquivo de workload. Cada usuário tem uma sessão (Session)
+// que as respostas atualizam. Ao final imprime vazão e p50/p99/p999 por tipo de operação.
+public class LoadGenerator {
+
+    enum Operation {
+        CREATE_POST("create_post"),
+        FOLLOW_USER("follow_user"),
+        SEND_PRIVATE_MESSAGE("send_private_message"),
+        GET_ALL_POSTS("get_all_posts"),
+        GET_FOLLOWING("get_following");
+
+        final String type;
+
+        Operation(String type) {
+            this.type = type;
+        }
+    }
+
+    // CONFIGURAÇÃO DO WORKLOAD (arquivo .properties)
+    static final class Workload {
+        String brokerAddress = "tcp://localhost:5555";
+        String subAddress = "tcp://localhost:5558";
+        String userPrefix = "load_";
+        int users = 1000;
+        int engines = 4;
+        int requestWindow = 256;
+        String wireCodec = "json";
+        int embeddedServers = 0;
+        final RequestEngine.Policy requestPolicy = new RequestEngine.Policy();
+        int threads = 2;
+        int subscribers = 1;
+        int contentLength = 140;
+        long warmupSeconds = 5;
+        long durationSeconds = 30;
+        long drainSeconds = 10;
+        long tickMillis = 10;
+        int timelinePageSize = 0;
+        final Map<Operation, Double> rates = new EnumMap<>(Operation.class);
+
+        static Workload load(File file) throws Exception {
+            Properties props = new Properties();
+            try (FileInputStream fis = new FileInputStream(file)) {
+                props.load(fis);
+            }
+            Workload workload = new Workload();
+            workload.brokerAddress = props.getProperty("broker.address", workload.brokerAddress);
+            workload.subAddress = props.getProperty("subscriber.address", workload.subAddress);
+            workload.userPrefix = props.getProperty("users.prefix", workload.userPrefix);
+            workload.users = intProperty(props, "users", workload.users);
+            workload.engines = intProperty(props, "engines", workload.engines);
+            workload.requestWindow = intProperty(props, "request.window", workload.requestWindow);
+            workload.wireCodec = props.getProperty("wire.codec", workload.wireCodec).trim();
+            workload.embeddedServers = intProperty(props, "embedded.servers", workload.embeddedServers);
+            ClientConfig.loadPolicy(props, workload.requestPolicy);
+            workload.threads = intProperty(props, "threads", workload.threads);
+            workload.subscribers = intProperty(props, "subscribers", workload.subscribers);
+            workload.contentLength = intProperty(props, "content.length", workload.contentLength);
+            workload.warmupSeconds = longProperty(props, "warmup.seconds", workload.warmupSeconds);
+            workload.durationSeconds = longProperty(props, "duration.seconds", workload.durationSeconds);
+            workload.drainSeconds = longProperty(props, "drain.seconds", workload.drainSeconds);
+            workload.tickMillis = longProperty(props, "tick.millis", workload.tickMillis);
+            workload.timelinePageSize = intProperty(props, "timeline.page.size", workload.timelinePageSize);
+            for (Operation operation : Operation.values()) {
+                String rate = props.getProperty("rate." + operation.type, "0");
+                workload.rates.put(operation, Double.parseDouble(rate.trim()));
+            }
+            return workload;
+        }
+
+        private static int intProperty(Properties props, String key, int defaultValue) {
+            return Integer.parseInt(props.getProperty(key, String.valueOf(defaultValue)).trim());
+        }
+
+        private static long longProperty(Properties props, String key, long defaultValue) {
+            return Long.parseLong(props.getProperty(key, String.valueOf(defaultValue)).trim());
+        }
+    }
+
+    // SESSÃO DE UM USUÁRIO SIMULADO
+    // O driver sorteia quem age a cada operação, mas o que a operação faz depende do estado
+    // do usuário: segue quem ainda não segue, manda mensagens privadas para quem já segue e
+    // rola a linha do tempo página a página de onde parou, voltando ao topo no fim. O estado
+    // muda com as respostas (threads de I/O) e é lido pelas threads do driver: acesso sincronizado.
+    private static final class Session {
+        private final Set<Integer> following = new HashSet<>();
+        private final List<Integer> followingOrder = new ArrayList<>();
+        private PostCursor timelineCursor;
+
+        synchronized boolean follows(int user) {
+            return following.contains(user);
+        }
+
+        synchronized void followed(int user) {
+            if (following.add(user)) {
+                followingOrder.add(user);
+            }
+        }
+
+        // -1 = ainda não segue ninguém
+        synchronized int randomFollowed(ThreadLocalRandom random) {
+            return followingOrder.isEmpty() ? -1 : followingOrder.get(random.nextInt(followingOrder.size()));
+        }
+
+        synchronized PostCursor timelineCursor() {
+            return timelineCursor;
+        }
+
+        synchronized void scrolled(JSONObject page) {
+            timelineCursor = page.optBoolean("has_more", false)
+                    ? PostCursor.fromJSON(page.optJSONObject("next_cursor"))
+                    : null;
+        }
+    }
+
+    private final Workload workload;
+    private final ZContext context;
+    private final EmbeddedCluster cluster;
+    private final RequestEngine[] engines;
+    private final String[] userIds;
+    private final Session[] sessions;
+    private final String content;
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong notifications = new AtomicLong();
+    private volatile long measureStartNanos = Long.MAX_VALUE;
+    private volatile long measureEndNanos = Long.MAX_VALUE;
+    private volatile boolean running = true;
+
+    public LoadGenerator(Workload workload) {
+        this.workload = workload;
+        this.context = new ZContext();
+        // Cluster embutido em inproc://: mede só o cliente, sem processos externos
+        if (workload.embeddedServers > 0) {
+            this.cluster = EmbeddedCluster.inproc(context, "load", workload.embeddedServers);
+            workload.brokerAddress = cluster.brokerAddress;
+            workload.subAddress = cluster.subscriberAddress;
+        } else {
+            this.cluster = null;
+        }
+        this.engines = new RequestEngine[workload.engines];
+        for (int i = 0; i < engines.length; i++) {
+            engines[i] = new RequestEngine(context, ClientConfig.splitAddresses(workload.brokerAddress),
+                    workload.requestWindow, workload.requestPolicy);
+        }
+        WireCodec codec = WireCodec.forName(workload.wireCodec);
+        for (RequestEngine engine : engines) {
+            engine.negotiate(codec).completeOnTimeout(engine.getCodec(), 5, TimeUnit.SECONDS).join();
+        }
+        this.userIds = new String[workload.users];
+        this.sessions = new Session[workload.users];
+        for (int i = 0; i < userIds.length; i++) {
+            userIds[i] = workload.userPrefix + i;
+            sessions[i] = new Session();
+        }
+        this.content = "x".repeat(Math.max(1, workload.contentLength));
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new AtomicLong());
+        }
+    }
+
+    public void run() throws InterruptedException {
+        System.out.println("LOAD GENERATOR");
+        System.out.println("Users: " + workload.users + ", engines: " + engines.length +
+                ", window: " + workload.requestWindow + ", threads: " + workload.threads +
+                ", codec: " + engines[0].getCodec().name());
+        System.out.println("Rates (ops/s): " + workload.rates);
+        if (cluster != null) {
+            System.out.println("Target: embedded cluster with " + workload.embeddedServers + " servers (inproc)");
+        }
+        System.out.println("=".repeat(50));
+
+        List<Thread> subscriberThreads = new ArrayList<>();
+        for (int i = 0; i < workload.subscribers; i++) {
+            Thread thread = new Thread(this::countNotifications, "load-subscriber-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            subscriberThreads.add(thread);
+        }
+
+        ScheduledExecutorService loop = Executors.newScheduledThreadPool(workload.threads);
+        for (Operation operation : Operation.values()) {
+            double rate = workload.rates.get(operation);
+            if (rate > 0) {
+                loop.scheduleAtFixedRate(new OperationDriver(operation, rate), 0,
+                        workload.tickMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        System.out.println("Warming up for " + workload.warmupSeconds + "s...");
+        Thread.sleep(TimeUnit.SECONDS.toMillis(workload.warmupSeconds));
+        long notificationsAtStart = notifications.get();
+        measureStartNanos = System.nanoTime();
+        System.out.println("Measuring for " + workload.durationSeconds + "s...");
+        Thread.sleep(TimeUnit.SECONDS.toMillis(workload.durationSeconds));
+        measureEndNanos = System.nanoTime();
+        long notificationsInWindow = notifications.get() - notificationsAtStart;
+
+        loop.shutdownNow();
+        loop.awaitTermination(1, TimeUnit.SECONDS);
+        drainInFlight();
+
+        report(notificationsInWindow);
+
+        running = false;
+        for (RequestEngine engine : engines) {
+            engine.close();
+        }
+        for (Thread thread : subscriberThreads) {
+            thread.join(1000);
+        }
+        if (cluster != null) {
+            cluster.close();
+        }
+        context.close();
+    }
+
+    // Espera as respostas pendentes para que a cauda entre no relatório
+    private void drainInFlight() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(workload.drainSeconds);
+        while (System.currentTimeMillis() < deadline) {
+            int pending = 0;
+            for (RequestEngine engine : engines) {
+                pending += engine.getPendingCount();
+            }
+            if (pending == 0) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        System.out.println("Drain timeout: some requests are still in flight");
+    }
+
+    // Um SUB assinando o prefixo dos usuários simulados recebe posts e PMs de todos
+    private void countNotifications() {
+        ZMQ.Socket subSocket = context.createSocket(SocketType.SUB);
+        subSocket.setReceiveTimeOut(200);
+        subSocket.connect(workload.subAddress);
+        subSocket.subscribe(workload.userPrefix.getBytes(ZMQ.CHARSET));
+        while (running) {
+            try {
+                if (subSocket.recv(0) != null) {
+                    notifications.incrementAndGet();
+                }
+            } catch (Exception e) {
+                if (running) {
+                    System.err.println("Error in load subscriber: " + e.getMessage());
+                }
+            }
+        }
+        subSocket.close();
+    }
+
+    private void issue(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int userIndex = random.nextInt(userIds.length);
+        String userId = userIds[userIndex];
+        Session session = sessions[userIndex];
+        long now = System.currentTimeMillis();
+
+        JSONObject request;
+        // Aplicado ao estado da sessão quando a resposta chega com sucesso
+        Consumer<JSONObject> onSuccess = null;
+        switch (operation) {
+            case CREATE_POST:
+                request = Requests.createPost(userId, content, now);
+                break;
+            case FOLLOW_USER: {
+                int target = unfollowedUser(userIndex, session, random);
+                request = Requests.followUser(userId, userIds[target], now);
+                onSuccess = response -> session.followed(target);
+                break;
+            }
+            case SEND_PRIVATE_MESSAGE: {
+                int receiver = session.randomFollowed(random);
+                if (receiver < 0) {
+                    receiver = random.nextInt(userIds.length);
+                }
+                request = Requests.sendPrivateMessage(userId, userIds[receiver], content, now);
+                break;
+            }
+            case GET_ALL_POSTS:
+                if (workload.timelinePageSize > 0) {
+                    request = Requests.getPostsPage(userId, now, workload.timelinePageSize,
+                            session.timelineCursor(), null);
+                    onSuccess = session::scrolled;
+                } else {
+                    request = Requests.getAllPosts(userId, now);
+                }
+                break;
+            default:
+                request = Requests.getFollowing(userId, now);
+                break;
+        }
+
+        // Cada usuário usa sempre o mesmo engine, como um cliente real usaria sua conexão
+        RequestEngine engine = engines[userIndex % engines.length];
+        long startNanos = System.nanoTime();
+        CompletableFuture<JSONObject> reply = engine.submit(request);
+        Consumer<JSONObject> sessionUpdate = onSuccess;
+        reply.whenComplete((response, error) -> {
+            if (sessionUpdate != null && error == null && Requests.isSuccess(response)) {
+                sessionUpdate.accept(response);
+            }
+            if (startNanos < measureStartNanos || startNanos >= measureEndNanos) {
+                return;
+            }
+            latencies.get(operation).record(System.nanoTime() - startNanos);
+            if (error != null || !Requests.isSuccess(response)) {
+                errors.get(operation).incrementAndGet();
+            }
+        });
+    }
+
+    // Alguém que o usuário ainda não segue; com poucas tentativas, para não travar quem já
+    // segue quase todos (aí o follow repete um já seguido, o que o server aceita)
+    private int unfollowedUser(int userIndex, Session session, ThreadLocalRandom random) {
+        int target = random.nextInt(userIds.length);
+        for (int attempt = 0; attempt < 8 && (target == userIndex || session.follows(target)); attempt++) {
+            target = random.nextInt(userIds.length);
+        }
+        return target;
+    }
+
+    private void report(long notificationsInWindow) {
+        double seconds = (measureEndNanos - measureStartNanos) / 1e9;
+        System.out.println();
+        System.out.println("LOAD REPORT (" + String.format("%.1f", seconds) + "s measured)");
+        System.out.println("=".repeat(96));
+        System.out.println(String.format("%-22s %10s %8s %10s %10s %10s %10s %10s",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        long total = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram histogram = latencies.get(operation);
+            long count = histogram.getCount();
+            if (count == 0 && workload.rates.get(operation) <= 0) {
+                continue;
+            }
+            total += count;
+            System.out.println(String.format("%-22s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f",
+                    operation.type, count, errors.get(operation).get(), count / seconds,
+                    histogram.getPercentile(50) / 1e6, histogram.getPercentile(99) / 1e6,
+                    histogram.getPercentile(99.9) / 1e6, histogram.getMax() / 1e6));
+        }
+        System.out.println("-".repeat(96));
+        System.out.println(String.format("%-22s %10d %8s %10.1f", "total", total, "", total / seconds));
+        System.out.println(String.format("%-22s %10d %8s %10.1f", "notifications", notificationsInWindow, "",
+                notificationsInWindow / seconds));
+        long timeouts = 0;
+        long retries = 0;
+        long failovers = 0;
+        for (RequestEngine engine : engines) {
+            timeouts += engine.getTimeoutCount();
+            retries += engine.getRetryCount();
+            failovers += engine.getFailoverCount();
+        }
+        System.out.println("Timeouts: " + timeouts + ", retries: " + retries + ", failovers: " + failovers);
+    }
+
+    // Emite operações numa taxa fixa; a fração que sobra em cada tick é acumulada
+    private final class OperationDriver implements Runnable {
+        private final Operation operation;
+        private final double perTick;
+        private double credit;
+
+        OperationDriver(Operation operation, double ratePerSecond) {
+            this.operation = operation;
+            this.perTick = ratePerSecond * workload.tickMillis / 1000.0;
+        }
+
+        @Override
+        public void run() {
+            credit += perTick;
+            while (credit >= 1.0) {
+                credit -= 1.0;
+                try {
+                    issue(operation);
+                } catch (Exception e) {
+                    errors.get(operation).incrementAndGet();
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        String workloadFile = args.length > 0 ? args[0] : "workload.properties";
+        try {
+            Workload workload = Workload.load(new File(workloadFile));
+            new LoadGenerator(workload).run();
+        } catch (Exception e) {
+            System.out.println("Load generator failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,296 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// CACHE LOCAL PERSISTENTE (posts, linha do tempo e mensagens privadas entre execuções)
+// Arquivos de segmento só de acréscimo ("segment-<n>.log"), escritos por mapeamento de
+// memória em blocos de segmentBytes, como o TraceRecorder. Cada registro:
+//   tamanho do payload (int), CRC32 de tipo + payload (int), tipo (byte), payload (JSON em UTF-8)
+// Cada abertura escreve num segmento novo, então a recuperação dos anteriores pode rodar em
+// segundo plano enquanto o cliente já grava. Na recuperação, o primeiro registro com
+// tamanho zerado (fim de um segmento não fechado), fora dos limites ou com CRC errado marca
+// uma cauda rasgada: o arquivo é truncado ali e a leitura segue no próximo segmento.
+// Os segmentos nunca são compactados: um item gravado duas vezes ocupa espaço duas vezes (a
+// recuperação descarta a cópia pelo id), então quem grava só manda o que ainda não está no
+// cache. Passando de maxBytes, os segmentos mais antigos são apagados inteiros.
+// O checkpoint (marca d'água da sincronização, seguidos) é um JSON pequeno ao lado,
+// regravado por arquivo temporário + move atômico.
+public class LocalCache implements AutoCloseable {
+    static final byte RECEIVED_POST = 1;
+    static final byte TIMELINE_POST = 2;
+    static final byte PRIVATE_MESSAGE = 3;
+    private static final int RECORD_OVERHEAD = 4 + 4 + 1;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    public interface Visitor {
+        void record(byte kind, JSONObject item);
+    }
+
+    public static final class Recovery {
+        public int segments;
+        public long records;
+        // Bytes descartados em caudas rasgadas
+        public long truncatedBytes;
+        public int tornSegments;
+
+        @Override
+        public String toString() {
+            return records + " records from " + segments + " segments"
+                    + (tornSegments > 0 ? ", " + truncatedBytes + " bytes truncated in " + tornSegments
+                            + " torn segments" : "");
+        }
+    }
+
+    private final Path directory;
+    private final Path checkpoint;
+    private final int segmentBytes;
+    private final long maxBytes;
+    // Segmentos que já existiam na abertura (lidos pela recuperação)
+    private final List<Path> previous;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private Path current;
+    private long currentNumber;
+    // Posição no arquivo do início do buffer mapeado
+    private long mappedStart;
+    private boolean closed;
+
+    public LocalCache(Path directory, int segmentBytes, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.checkpoint = directory.resolve("checkpoint.json");
+        this.segmentBytes = Math.max(64 * 1024, segmentBytes);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+        this.previous = listSegments();
+        this.currentNumber = previous.isEmpty() ? 0 : number(previous.get(previous.size() - 1));
+        openNext();
+    }
+
+    // Lê os segmentos anteriores em ordem, entregando cada registro íntegro ao visitor
+    public Recovery recover(Visitor visitor) throws IOException {
+        Recovery recovery = new Recovery();
+        for (Path segment : previous) {
+            try {
+                recoverSegment(segment, visitor, recovery);
+            } catch (NoSuchFileException e) {
+                // Apagado pelo limite de bytes enquanto a recuperação rodava
+            }
+        }
+        return recovery;
+    }
+
+    private void recoverSegment(Path segment, Visitor visitor, Recovery recovery) throws IOException {
+        long valid = 0;
+        long size;
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            size = in.size();
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 check = new CRC32();
+            while (data.remaining() >= RECORD_OVERHEAD) {
+                int length = data.getInt();
+                int expected = data.getInt();
+                if (length <= 0 || length > data.remaining() - 1) {
+                    break;
+                }
+                byte kind = data.get();
+                byte[] payload = new byte[length];
+                data.get(payload);
+                check.reset();
+                check.update(kind);
+                check.update(payload);
+                if ((int) check.getValue() != expected) {
+                    break;
+                }
+                JSONObject item;
+                try {
+                    item = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+                } catch (JSONException e) {
+                    break;
+                }
+                valid = data.position();
+                recovery.records++;
+                visitor.record(kind, item);
+            }
+        }
+        recovery.segments++;
+        // Segmento sem nenhum registro íntegro (ex.: execução que não recebeu nada)
+        if (valid == 0) {
+            if (size > 0 && !zeroTail(segment, 0, size)) {
+                recovery.truncatedBytes += size;
+                recovery.tornSegments++;
+            }
+            Files.deleteIfExists(segment);
+            return;
+        }
+        if (valid < size) {
+            // Só zeros depois do último registro não é rasgo: o segmento não foi fechado
+            if (!zeroTail(segment, valid, size)) {
+                recovery.truncatedBytes += size - valid;
+                recovery.tornSegments++;
+            }
+            try (FileChannel out = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                out.truncate(valid);
+            }
+        }
+    }
+
+    private static boolean zeroTail(Path segment, long from, long size) throws IOException {
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer data = in.map(FileChannel.MapMode.READ_ONLY, from, size - from);
+            while (data.hasRemaining()) {
+                if (data.get() != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public synchronized void append(byte kind, JSONObject item) {
+        if (closed) {
+            return;
+        }
+        byte[] payload = item.toString().getBytes(StandardCharsets.UTF_8);
+        int size = RECORD_OVERHEAD + payload.length;
+        crc.reset();
+        crc.update(kind);
+        crc.update(payload);
+        try {
+            if (buffer.remaining() < size && mappedStart + buffer.position() > 0) {
+                finishSegment();
+                openNext();
+            }
+            // Registro maior que um segmento: o segmento (vazio) é mapeado no tamanho dele
+            if (buffer.remaining() < size) {
+                map(0, size);
+            }
+        } catch (IOException e) {
+            // Sem espaço em disco: o cache para de gravar, o cliente segue normalmente
+            System.err.println("Local cache disabled: " + e.getMessage());
+            closeQuietly();
+            return;
+        }
+        buffer.putInt(payload.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(kind);
+        buffer.put(payload);
+    }
+
+    // null quando não há checkpoint (ou ele está ilegível)
+    public JSONObject readCheckpoint() {
+        try {
+            return new JSONObject(new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            return null;
+        }
+    }
+
+    // Também força os registros já escritos para o disco, para o checkpoint nunca apontar além deles
+    public synchronized void writeCheckpoint(JSONObject state) throws IOException {
+        if (!closed) {
+            buffer.force();
+        }
+        Path temp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.write(temp, state.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    private void openNext() throws IOException {
+        currentNumber++;
+        current = directory.resolve(String.format("%s%08d%s", PREFIX, currentNumber, SUFFIX));
+        channel = FileChannel.open(current, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        map(0, segmentBytes);
+        enforceLimit();
+    }
+
+    private void map(long position, int size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        mappedStart = position;
+    }
+
+    // Força o que foi escrito e corta a área mapeada e não usada; o mapeamento é liberado pelo GC
+    private void finishSegment() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        long written = mappedStart + buffer.position();
+        buffer.force();
+        buffer = null;
+        try {
+            channel.truncate(written);
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Apaga os segmentos mais antigos (nunca o atual) até caber em maxBytes
+    private void enforceLimit() throws IOException {
+        if (maxBytes <= 0) {
+            return;
+        }
+        List<Path> segments = listSegments();
+        long total = 0;
+        for (Path segment : segments) {
+            total += segment.equals(current) ? segmentBytes : Files.size(segment);
+        }
+        for (int i = 0; i < segments.size() - 1 && total > maxBytes; i++) {
+            total -= Files.size(segments.get(i));
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        // Números com zeros à esquerda: a ordem do nome é a ordem de escrita
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finishSegment();
+    }
+}
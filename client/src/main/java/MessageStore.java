@@ -0,0 +1,203 @@
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// MENSAGENS PRIVADAS POR CONVERSA (remetente)
+// Cada conversa tem um log só de acréscimo, na ordem de chegada, em blocos de CHUNK
+// mensagens. O estado do log (blocos, início e fim) é um objeto imutável publicado num
+// campo volatile a cada mensagem: quem lê pega o estado uma vez e acessa as posições sem
+// lock e sem copiar o log; o escritor nunca altera uma posição já publicada. A retenção
+// avança o início do log e solta os blocos inteiros que ficaram para trás.
+// A última mensagem de cada conversa fica num campo próprio (O(1)) e os não lidos são
+// contadores atômicos, por conversa e no total.
+// Escrita: a thread do listener (o append é sincronizado por conversa de qualquer forma).
+public class MessageStore {
+    static final int CHUNK = 256;
+
+    public static final class Conversation {
+        private final String peer;
+        private final AtomicInteger unread = new AtomicInteger();
+        private volatile Log log = new Log(new JSONObject[0][], 0, 0, 0);
+        private volatile JSONObject latest;
+        private volatile int retention;
+        // Ordem de chegada da última mensagem entre todas as conversas
+        private volatile long lastSequence;
+
+        Conversation(String peer, int retention) {
+            this.peer = peer;
+            this.retention = retention;
+        }
+
+        public String getPeer() {
+            return peer;
+        }
+
+        public JSONObject getLatest() {
+            return latest;
+        }
+
+        public int getUnread() {
+            return unread.get();
+        }
+
+        // Mensagens retidas (as mais antigas saem pela retenção)
+        public int size() {
+            Log current = log;
+            return (int) (current.end - current.start);
+        }
+
+        // Até "limit" mensagens, pulando as "skip" mais recentes, da mais nova para a mais velha
+        public List<JSONObject> newest(int skip, int limit) {
+            Log current = log;
+            List<JSONObject> page = new ArrayList<>(Math.max(0, Math.min(limit, CHUNK)));
+            for (long i = current.end - 1 - skip; i >= current.start && page.size() < limit; i--) {
+                page.add(current.get(i));
+            }
+            return page;
+        }
+
+        // Todas as retidas, da mais velha para a mais nova
+        public List<JSONObject> messages() {
+            Log current = log;
+            List<JSONObject> all = new ArrayList<>((int) (current.end - current.start));
+            for (long i = current.start; i < current.end; i++) {
+                all.add(current.get(i));
+            }
+            return all;
+        }
+
+        synchronized void append(JSONObject message, long sequence) {
+            log = log.append(message, retention);
+            latest = message;
+            lastSequence = sequence;
+            unread.incrementAndGet();
+        }
+
+        synchronized void setRetention(int retention) {
+            this.retention = retention;
+            log = log.trim(retention);
+        }
+    }
+
+    // Estado imutável de um log: posição absoluta i fica em chunks[(i - base) / CHUNK]
+    private static final class Log {
+        final JSONObject[][] chunks;
+        // Posição absoluta do primeiro item de chunks[0]
+        final long base;
+        final long start;
+        final long end;
+
+        Log(JSONObject[][] chunks, long base, long start, long end) {
+            this.chunks = chunks;
+            this.base = base;
+            this.start = start;
+            this.end = end;
+        }
+
+        JSONObject get(long position) {
+            long offset = position - base;
+            return chunks[(int) (offset / CHUNK)][(int) (offset % CHUNK)];
+        }
+
+        Log append(JSONObject message, int retention) {
+            JSONObject[][] target = chunks;
+            long offset = end - base;
+            if (offset == (long) chunks.length * CHUNK) {
+                // Só o diretório de blocos é copiado, uma vez a cada CHUNK mensagens
+                target = new JSONObject[chunks.length + 1][];
+                System.arraycopy(chunks, 0, target, 0, chunks.length);
+                target[chunks.length] = new JSONObject[CHUNK];
+            }
+            // Posição ainda não publicada: nenhum leitor a enxerga antes do novo estado
+            target[(int) (offset / CHUNK)][(int) (offset % CHUNK)] = message;
+            return new Log(target, base, start, end + 1).trim(retention);
+        }
+
+        Log trim(int retention) {
+            if (retention <= 0 || end - start <= retention) {
+                return this;
+            }
+            long newStart = end - retention;
+            int dropped = (int) ((newStart - base) / CHUNK);
+            if (dropped == 0) {
+                return new Log(chunks, base, newStart, end);
+            }
+            JSONObject[][] kept = new JSONObject[chunks.length - dropped][];
+            System.arraycopy(chunks, dropped, kept, 0, kept.length);
+            return new Log(kept, base + (long) dropped * CHUNK, newStart, end);
+        }
+    }
+
+    private final Map<String, Conversation> conversations = new ConcurrentHashMap<>();
+    private final Map<String, Integer> retentionOverrides = new ConcurrentHashMap<>();
+    private final AtomicInteger totalUnread = new AtomicInteger();
+    private final AtomicLong received = new AtomicLong();
+    private final int defaultRetention;
+
+    // defaultRetention: mensagens guardadas por conversa (0 = sem limite)
+    public MessageStore(int defaultRetention) {
+        this.defaultRetention = defaultRetention;
+    }
+
+    public void add(JSONObject message) {
+        String peer = message.getString("sender_id");
+        Conversation conversation = conversations.computeIfAbsent(peer,
+                key -> new Conversation(key, retentionOverrides.getOrDefault(key, defaultRetention)));
+        // Total antes da conversa: um markRead no meio nunca deixa o total negativo
+        totalUnread.incrementAndGet();
+        conversation.append(message, received.incrementAndGet());
+    }
+
+    public void setRetention(String peer, int retention) {
+        retentionOverrides.put(peer, retention);
+        Conversation conversation = conversations.get(peer);
+        if (conversation != null) {
+            conversation.setRetention(retention);
+        }
+    }
+
+    public Conversation get(String peer) {
+        return conversations.get(peer);
+    }
+
+    public JSONObject latest(String peer) {
+        Conversation conversation = conversations.get(peer);
+        return conversation == null ? null : conversation.getLatest();
+    }
+
+    // Zera os não lidos da conversa; devolve quantos eram
+    public int markRead(String peer) {
+        Conversation conversation = conversations.get(peer);
+        if (conversation == null) {
+            return 0;
+        }
+        int read = conversation.unread.getAndSet(0);
+        totalUnread.addAndGet(-read);
+        return read;
+    }
+
+    public int getUnread() {
+        return totalUnread.get();
+    }
+
+    // Total recebido desde o início (inclusive o que já saiu pela retenção)
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    public int getConversationCount() {
+        return conversations.size();
+    }
+
+    // Conversas com a mensagem mais recente primeiro (uma entrada por remetente, não por mensagem)
+    public List<Conversation> conversations() {
+        List<Conversation> list = new ArrayList<>(conversations.values());
+        list.sort((a, b) -> Long.compare(b.lastSequence, a.lastSequence));
+        return list;
+    }
+}
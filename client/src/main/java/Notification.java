@@ -0,0 +1,52 @@
+import org.json.JSONObject;
+
+// NOTIFICAÇÃO DECODIFICADA - resultado do NotificationDecoder para um frame do SUB
+public final class Notification {
+
+    public enum Kind {
+        POST,
+        PRIVATE_MESSAGE,
+        OWN_POST,
+        NOT_FOLLOWING,
+        OTHER_RECIPIENT,
+        UNSUPPORTED
+    }
+
+    public final Kind kind;
+    public final String topic;
+    // Objeto publicado pelo server (tem server_timestamp)
+    public final JSONObject envelope;
+    // Post ou mensagem privada propriamente dita
+    public final JSONObject payload;
+
+    Notification(Kind kind, String topic, JSONObject envelope, JSONObject payload) {
+        this.kind = kind;
+        this.topic = topic;
+        this.envelope = envelope;
+        this.payload = payload;
+    }
+
+    // Frames descartados não carregam dados; instâncias compartilhadas evitam alocação
+    static final Notification OWN_POST = new Notification(Kind.OWN_POST, null, null, null);
+    static final Notification NOT_FOLLOWING = new Notification(Kind.NOT_FOLLOWING, null, null, null);
+    static final Notification OTHER_RECIPIENT = new Notification(Kind.OTHER_RECIPIENT, null, null, null);
+    static final Notification UNSUPPORTED = new Notification(Kind.UNSUPPORTED, null, null, null);
+
+    public boolean isAccepted() {
+        return kind == Kind.POST || kind == Kind.PRIVATE_MESSAGE;
+    }
+
+    // Timestamp do remetente, usado para decidir se o relógio precisa sincronizar
+    public long senderTime() {
+        return payload.has("client_timestamp") ? payload.getLong("client_timestamp")
+                : payload.getLong("created_at");
+    }
+
+    public boolean hasServerTimestamp() {
+        return envelope.has("server_timestamp");
+    }
+
+    public long serverTimestamp() {
+        return envelope.getLong("server_timestamp");
+    }
+}
@@ -0,0 +1,104 @@
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+
+// DECODIFICADOR DE NOTIFICAÇÕES (em bytes)
+// Trabalha direto no byte[] recebido do SUB. O tópico ("<user>:" ou "<user>:PM:") é
+// comparado byte a byte, e frames indesejados (PM para outro usuário, próprio post,
+// post de quem não seguimos) são descartados antes de criar qualquer String ou JSON.
+// Aceita tanto o frame único "<tópico><json>" quanto o modo multipart, em que o
+// tópico vem num frame separado do corpo. O corpo pode vir em JSON ou binário.
+public class NotificationDecoder {
+    private static final byte SEPARATOR = ':';
+    private static final byte[] PM_MARKER = { 'P', 'M', ':' };
+
+    private final byte[] userIdBytes;
+    private final TopicSet following;
+
+    public NotificationDecoder(String userId, TopicSet following) {
+        this.userIdBytes = userId.getBytes(StandardCharsets.UTF_8);
+        this.following = following;
+    }
+
+    // Frame único: "<user>:<json>" ou "<user>:PM:<json>"
+    public Notification decode(byte[] frame) {
+        int separator = indexOfSeparator(frame);
+        if (separator <= 0) {
+            return Notification.UNSUPPORTED;
+        }
+        boolean privateMessage = startsWith(frame, separator + 1, PM_MARKER);
+        int bodyOffset = separator + 1 + (privateMessage ? PM_MARKER.length : 0);
+        return decode(frame, separator, privateMessage, frame, bodyOffset);
+    }
+
+    // Multipart: [tópico, json]
+    public Notification decode(byte[] topicFrame, byte[] body) {
+        int separator = indexOfSeparator(topicFrame);
+        if (separator <= 0) {
+            return Notification.UNSUPPORTED;
+        }
+        boolean privateMessage = startsWith(topicFrame, separator + 1, PM_MARKER);
+        return decode(topicFrame, separator, privateMessage, body, 0);
+    }
+
+    private Notification decode(byte[] topic, int topicLength, boolean privateMessage, byte[] body,
+            int bodyOffset) {
+        boolean ownTopic = TopicSet.equals(userIdBytes, topic, 0, topicLength);
+
+        if (privateMessage) {
+            // Só processar se a mensagem for para este cliente
+            if (!ownTopic) {
+                return Notification.OTHER_RECIPIENT;
+            }
+            JSONObject message = parse(body, bodyOffset);
+            return new Notification(Notification.Kind.PRIVATE_MESSAGE, topicString(topic, topicLength),
+                    message, message);
+        }
+
+        // NÃO PROCESSAR PRÓPRIOS POSTS
+        if (ownTopic) {
+            return Notification.OWN_POST;
+        }
+
+        // VERIFICAR SE ESTOU SEGUINDO ESTE USUÁRIO
+        if (!following.contains(topic, 0, topicLength)) {
+            return Notification.NOT_FOLLOWING;
+        }
+
+        JSONObject postData = parse(body, bodyOffset);
+        if (!postData.has("type") || !postData.getString("type").equals("new_post")) {
+            return Notification.UNSUPPORTED;
+        }
+        JSONObject post = postData.getJSONObject("post");
+        return new Notification(Notification.Kind.POST, topicString(topic, topicLength), postData, post);
+    }
+
+    private static JSONObject parse(byte[] body, int offset) {
+        return WireCodec.detect(body, offset).decode(body, offset, body.length - offset);
+    }
+
+    private static String topicString(byte[] topic, int length) {
+        return new String(topic, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static int indexOfSeparator(byte[] frame) {
+        for (int i = 0; i < frame.length; i++) {
+            if (frame[i] == SEPARATOR) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] buffer, int offset, byte[] prefix) {
+        if (buffer.length - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,194 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// PIPELINE DE NOTIFICAÇÕES em três estágios
+// 1. recepção: a thread dona do socket SUB só passa os frames para a fila de decodificação;
+// 2. decodificação/filtro: NotificationDecoder descarta o que não interessa;
+// 3. sink: armazenamento, log, relógio e console.
+// Cada fila é limitada. Com BLOCK o estágio anterior espera (a recepção para de ler o
+// socket e o RCVHWM do ZeroMQ passa a segurar a rajada); com DROP o item é descartado e
+// contado. Os consumidores dormem quando a fila esvazia e são acordados pelo produtor.
+public class NotificationPipeline implements AutoCloseable {
+    private static final int BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 10_000_000;
+    private static final long FULL_PARK_NANOS = 50_000;
+
+    public enum Overflow {
+        BLOCK,
+        DROP;
+
+        static Overflow forName(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    // Estágio final, chamado na thread do sink só para notificações aceitas
+    public interface Sink {
+        void accept(Notification notification);
+    }
+
+    // Rastro opcional de cada frame, chamado na thread de decodificação
+    public interface Tracer {
+        void trace(byte[] frame, byte[] body);
+
+        void ignored(Notification.Kind kind);
+    }
+
+    private final NotificationDecoder decoder;
+    private final Sink sink;
+    private final Tracer tracer;
+    private final ClientMetrics metrics;
+    private final StageQueue<byte[], byte[]> decodeQueue;
+    private final StageQueue<Notification, Object> sinkQueue;
+    private final Overflow decodeOverflow;
+    private final Overflow sinkOverflow;
+    private final AtomicLong decodeDrops = new AtomicLong();
+    private final AtomicLong sinkDrops = new AtomicLong();
+    // Frames que já saíram do pipeline: entregues, ignorados pelo filtro, com erro ou descartados
+    private final AtomicLong completed = new AtomicLong();
+    private final Thread decodeThread;
+    private final Thread sinkThread;
+    private final StageQueue.Consumer<byte[], byte[]> decodeStage = this::decode;
+    private final StageQueue.Consumer<Notification, Object> sinkStage = this::deliver;
+    private volatile boolean running = true;
+    private volatile boolean decodeParked;
+    private volatile boolean sinkParked;
+
+    public NotificationPipeline(String name, NotificationDecoder decoder, Sink sink, Tracer tracer,
+            ClientMetrics metrics, int decodeCapacity, Overflow decodeOverflow, int sinkCapacity,
+            Overflow sinkOverflow) {
+        this.decoder = decoder;
+        this.sink = sink;
+        this.tracer = tracer;
+        this.metrics = metrics;
+        this.decodeQueue = new StageQueue<>(decodeCapacity);
+        this.sinkQueue = new StageQueue<>(sinkCapacity);
+        this.decodeOverflow = decodeOverflow;
+        this.sinkOverflow = sinkOverflow;
+        this.decodeThread = new Thread(this::decodeLoop, "notification-decode-" + name);
+        this.decodeThread.setDaemon(true);
+        this.sinkThread = new Thread(this::sinkLoop, "notification-sink-" + name);
+        this.sinkThread.setDaemon(true);
+        this.decodeThread.start();
+        this.sinkThread.start();
+    }
+
+    // ESTÁGIO 1 (thread de recepção): false se o frame foi descartado
+    public boolean submit(byte[] frame, byte[] body, long receivedNanos) {
+        if (!enqueue(decodeQueue, frame, body, receivedNanos, decodeOverflow, decodeDrops)) {
+            completed.incrementAndGet();
+            return false;
+        }
+        if (decodeParked) {
+            LockSupport.unpark(decodeThread);
+        }
+        return true;
+    }
+
+    private <A, B> boolean enqueue(StageQueue<A, B> queue, A first, B second, long stamp, Overflow overflow,
+            AtomicLong drops) {
+        while (!queue.offer(first, second, stamp)) {
+            if (overflow == Overflow.DROP || !running) {
+                drops.incrementAndGet();
+                return false;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        return true;
+    }
+
+    // ESTÁGIO 2: decodifica e filtra; descartes são contados aqui mesmo
+    private void decode(byte[] frame, byte[] body, long receivedNanos) {
+        try {
+            if (tracer != null) {
+                tracer.trace(frame, body);
+            }
+            Notification notification = body == null ? decoder.decode(frame) : decoder.decode(frame, body);
+            if (!notification.isAccepted()) {
+                if (tracer != null) {
+                    tracer.ignored(notification.kind);
+                }
+                metrics.recordNotification(notification.kind, System.nanoTime() - receivedNanos);
+                completed.incrementAndGet();
+                return;
+            }
+            if (!enqueue(sinkQueue, notification, null, receivedNanos, sinkOverflow, sinkDrops)) {
+                completed.incrementAndGet();
+            } else if (sinkParked) {
+                LockSupport.unpark(sinkThread);
+            }
+        } catch (Exception e) {
+            System.err.println("Error decoding notification: " + e.getMessage());
+            completed.incrementAndGet();
+        }
+    }
+
+    // ESTÁGIO 3: entrega ao sink; a latência registrada vai da recepção até aqui
+    private void deliver(Notification notification, Object unused, long receivedNanos) {
+        try {
+            sink.accept(notification);
+        } catch (Exception e) {
+            System.err.println("Error handling notification: " + e.getMessage());
+        }
+        metrics.recordNotification(notification.kind, System.nanoTime() - receivedNanos);
+        completed.incrementAndGet();
+    }
+
+    private void decodeLoop() {
+        while (running) {
+            if (decodeQueue.drain(decodeStage, BATCH) == 0) {
+                decodeParked = true;
+                if (decodeQueue.isEmpty() && running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                decodeParked = false;
+            }
+        }
+    }
+
+    private void sinkLoop() {
+        while (running) {
+            if (sinkQueue.drain(sinkStage, BATCH) == 0) {
+                sinkParked = true;
+                if (sinkQueue.isEmpty() && running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                sinkParked = false;
+            }
+        }
+    }
+
+    public int getDecodeQueueDepth() {
+        return decodeQueue.size();
+    }
+
+    public int getSinkQueueDepth() {
+        return sinkQueue.size();
+    }
+
+    public long getDecodeDrops() {
+        return decodeDrops.get();
+    }
+
+    public long getSinkDrops() {
+        return sinkDrops.get();
+    }
+
+    // Igual ao número de submit() quando o pipeline não tem mais nada em andamento
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(decodeThread);
+        LockSupport.unpark(sinkThread);
+        try {
+            decodeThread.join(1000);
+            sinkThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,241 @@
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// PUBLICAÇÃO REATIVA DE NOTIFICAÇÕES (java.util.concurrent.Flow)
+// Cada assinante tem a própria fila e a própria demanda (request(n)); os sinais são
+// entregues em série numa tarefa do executor, nunca na thread que publica. publish() só
+// coloca o item nas filas e retorna, então um assinante lento não segura o listener.
+// Quando a fila de um assinante enche, vale a política escolhida por ele:
+//   BUFFER      guarda até "capacity"; passou disso, o assinante recebe onError e sai
+//   DROP_OLDEST descarta o item mais antigo da fila
+//   LATEST      só o item mais recente fica esperando
+public class NotificationPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+    public enum Overflow {
+        BUFFER,
+        DROP_OLDEST,
+        LATEST;
+
+        static Overflow forName(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    private final String name;
+    private final Executor executor;
+    private final Overflow defaultOverflow;
+    private final int defaultCapacity;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    public NotificationPublisher(String name, Executor executor, Overflow defaultOverflow, int defaultCapacity) {
+        this.name = name;
+        this.executor = executor;
+        this.defaultOverflow = defaultOverflow;
+        this.defaultCapacity = Math.max(1, defaultCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscribe(subscriber, defaultOverflow, defaultCapacity);
+    }
+
+    public void subscribe(Flow.Subscriber<? super T> subscriber, Overflow overflow, int capacity) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber");
+        }
+        Subscription subscription = new Subscription(subscriber, overflow, Math.max(1, capacity));
+        if (closed) {
+            subscription.complete();
+        } else {
+            subscriptions.add(subscription);
+        }
+        subscription.schedule();
+    }
+
+    // Chamado pela thread do sink; nunca bloqueia
+    public void publish(T item) {
+        if (closed || subscriptions.isEmpty()) {
+            return;
+        }
+        published.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(item);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    // Itens descartados por DROP_OLDEST e LATEST, somando todos os assinantes
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // onComplete para todos, depois dos itens que já estão nas filas
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription subscription : subscriptions) {
+            subscription.complete();
+            subscription.schedule();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + subscriptions.size() + " subscribers, " + published.get() + " published, "
+                + dropped.get() + " dropped)";
+    }
+
+    private final class Subscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final Overflow overflow;
+        private final int capacity;
+        // Fila, demanda e estado protegidos por "this"; os sinais saem só de run()
+        private final ArrayDeque<T> queue = new ArrayDeque<>();
+        private long demand;
+        private boolean started;
+        private boolean cancelled;
+        private boolean completing;
+        private Throwable error;
+        // Pedidos de execução pendentes: só uma tarefa roda por assinante
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Subscription(Flow.Subscriber<? super T> subscriber, Overflow overflow, int capacity) {
+            this.subscriber = subscriber;
+            this.overflow = overflow;
+            this.capacity = capacity;
+        }
+
+        void offer(T item) {
+            synchronized (this) {
+                if (cancelled || error != null) {
+                    return;
+                }
+                if (overflow == Overflow.LATEST) {
+                    if (!queue.isEmpty()) {
+                        queue.clear();
+                        dropped.incrementAndGet();
+                    }
+                } else if (queue.size() == capacity) {
+                    if (overflow == Overflow.DROP_OLDEST) {
+                        queue.poll();
+                        dropped.incrementAndGet();
+                    } else {
+                        queue.clear();
+                        error = new IllegalStateException(name + " subscriber buffer overflow (" + capacity
+                                + " items)");
+                    }
+                }
+                if (error == null) {
+                    queue.add(item);
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                if (n <= 0) {
+                    // Regra 3.9 da especificação
+                    queue.clear();
+                    error = new IllegalArgumentException("request must be positive, got " + n);
+                } else {
+                    demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                }
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                queue.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        synchronized void complete() {
+            completing = true;
+        }
+
+        void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain() {
+            if (!started) {
+                started = true;
+                subscriber.onSubscribe(this);
+            }
+            while (true) {
+                T item;
+                Throwable failure = null;
+                boolean done = false;
+                synchronized (this) {
+                    if (cancelled) {
+                        return;
+                    }
+                    if (error != null) {
+                        failure = error;
+                        cancelled = true;
+                    } else if (demand > 0 && !queue.isEmpty()) {
+                        demand--;
+                    } else if (completing && queue.isEmpty()) {
+                        done = true;
+                        cancelled = true;
+                    } else {
+                        return;
+                    }
+                    item = failure == null && !done ? queue.poll() : null;
+                }
+                if (failure != null) {
+                    subscriptions.remove(this);
+                    subscriber.onError(failure);
+                    return;
+                }
+                if (done) {
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                    return;
+                }
+                try {
+                    subscriber.onNext(item);
+                } catch (Throwable e) {
+                    // Regra 2.13: assinante que lança exceção é cancelado
+                    cancel();
+                    return;
+                }
+            }
+        }
+    }
+}
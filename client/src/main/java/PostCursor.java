@@ -0,0 +1,53 @@
+import org.json.JSONObject;
+
+// CURSOR DE PAGINAÇÃO - posição (created_at, id) na linha do tempo
+public final class PostCursor implements Comparable<PostCursor> {
+    public final long createdAt;
+    public final String id;
+
+    public PostCursor(long createdAt, String id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static PostCursor of(JSONObject post) {
+        return new PostCursor(post.getLong("created_at"), post.getString("id"));
+    }
+
+    public static PostCursor fromJSON(JSONObject cursor) {
+        return cursor == null ? null : new PostCursor(cursor.getLong("created_at"), cursor.getString("id"));
+    }
+
+    public JSONObject toJSON() {
+        JSONObject cursor = new JSONObject();
+        cursor.put("created_at", createdAt);
+        cursor.put("id", id);
+        return cursor;
+    }
+
+    // Mesma ordem do server: created_at e, no empate, id
+    @Override
+    public int compareTo(PostCursor other) {
+        int byTime = Long.compare(createdAt, other.createdAt);
+        return byTime != 0 ? byTime : id.compareTo(other.id);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PostCursor)) {
+            return false;
+        }
+        PostCursor cursor = (PostCursor) other;
+        return createdAt == cursor.createdAt && id.equals(cursor.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(createdAt) * 31 + id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return createdAt + "/" + id;
+    }
+}
@@ -0,0 +1,29 @@
+import org.json.JSONObject;
+
+// RESULTADO DE UMA PÁGINA de get_all_posts; os posts em si já foram entregues ao consumidor
+public final class PostPage {
+    // Campos da resposta fora do array de posts (status, message, has_more, next_cursor...)
+    public final JSONObject header;
+    public final int count;
+
+    PostPage(JSONObject header, int count) {
+        this.header = header;
+        this.count = count;
+    }
+
+    public boolean isSuccess() {
+        return Requests.isSuccess(header);
+    }
+
+    public boolean hasMore() {
+        return header.optBoolean("has_more", false);
+    }
+
+    public PostCursor nextCursor() {
+        return PostCursor.fromJSON(header.optJSONObject("next_cursor"));
+    }
+
+    public String message() {
+        return header.optString("message", "No message");
+    }
+}
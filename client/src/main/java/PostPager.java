@@ -0,0 +1,193 @@
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
+// EXIBIÇÃO PAGINADA DE POSTS
+// Lê uma página por vez de uma Timeline ou de um PostStore (já ordenados na inserção), então mostrar uma
+// página custa O(tamanho da página) e não O(total de posts). Tudo da página é escrito
+// num único writer com buffer e descarregado de uma vez. Comandos: ENTER/n próxima,
+// p anterior, t HH:mm[:ss] pula para os posts até esse horário de hoje, q sai.
+public class PostPager {
+    // Mesmo formato do Date.toString() usado antes, sem criar um Date por post
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("EEE MMM dd HH:mm:ss zzz yyyy", Locale.US);
+    private static final String SEPARATOR = "-".repeat(40);
+    // Início da primeira página (a pilha de páginas anteriores não aceita null)
+    private static final PostCursor NEWEST = new PostCursor(Long.MAX_VALUE, "");
+
+    private final PrintWriter out;
+    private final int pageSize;
+    private final Predicate<String> isFollowing;
+    private final ZoneId zone;
+    private final DateTimeFormatter dateFormat;
+
+    public PostPager(PrintStream stream, int pageSize, Predicate<String> isFollowing) {
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8),
+                64 * 1024), false);
+        this.pageSize = pageSize;
+        this.isFollowing = isFollowing;
+        this.zone = ZoneId.systemDefault();
+        this.dateFormat = DATE_FORMAT.withZone(zone);
+    }
+
+    // Navega pelos posts do mais novo para o mais velho; devolve quantos foram mostrados
+    public int browse(Scanner scanner, Timeline posts) {
+        return browse(scanner, posts.getStore());
+    }
+
+    public int browse(Scanner scanner, PostStore posts) {
+        return browse(scanner, posts::newestBefore, PostView::cursor, (post, number) -> writePost(number, post));
+    }
+
+    private <T> int browse(Scanner scanner, BiFunction<PostCursor, Integer, List<T>> posts,
+            Function<T, PostCursor> cursorOf, ObjIntConsumer<T> writer) {
+        // Início de cada página já vista, para voltar com "p"
+        Deque<PostCursor> previousStarts = new ArrayDeque<>();
+        PostCursor start = null;
+        int firstNumber = 1;
+        int shown = 0;
+        while (true) {
+            List<T> page = posts.apply(start, pageSize);
+            if (page.isEmpty()) {
+                out.println(start == null ? "No posts to display" : "No older posts");
+                out.flush();
+                if (start == null) {
+                    return shown;
+                }
+            } else {
+                for (int i = 0; i < page.size(); i++) {
+                    writer.accept(page.get(i), firstNumber + i);
+                }
+                shown += page.size();
+                if (page.size() < pageSize) {
+                    out.println("End of posts");
+                }
+            }
+            out.print("[ENTER] next  [p] previous  [t HH:mm] jump to time  [q] quit: ");
+            out.flush();
+
+            String command = scanner.nextLine().trim();
+            if (command.equalsIgnoreCase("q")) {
+                return shown;
+            }
+            if (command.equalsIgnoreCase("p")) {
+                if (previousStarts.isEmpty()) {
+                    out.println("Already at the newest posts");
+                    continue;
+                }
+                start = previousStarts.pop();
+                firstNumber = Math.max(1, firstNumber - pageSize);
+            } else if (command.toLowerCase().startsWith("t")) {
+                PostCursor jump = parseTime(command.substring(1).trim());
+                if (jump == null) {
+                    out.println("Invalid time, use HH:mm or HH:mm:ss");
+                    continue;
+                }
+                previousStarts.push(start == null ? NEWEST : start);
+                start = jump;
+                firstNumber = 1;
+            } else if (!page.isEmpty() && page.size() == pageSize) {
+                previousStarts.push(start == null ? NEWEST : start);
+                start = cursorOf.apply(page.get(page.size() - 1));
+                firstNumber += pageSize;
+            } else {
+                return shown;
+            }
+        }
+    }
+
+    // Mensagens de uma conversa, da mais nova para a mais velha; ENTER mais antigas, q sai
+    public int browseMessages(Scanner scanner, MessageStore.Conversation conversation) {
+        int skip = 0;
+        while (true) {
+            List<JSONObject> page = conversation.newest(skip, pageSize);
+            for (int i = 0; i < page.size(); i++) {
+                writeMessage(skip + i + 1, page.get(i));
+            }
+            skip += page.size();
+            boolean end = page.size() < pageSize;
+            if (end) {
+                out.println("End of conversation with " + conversation.getPeer());
+            }
+            out.print(end ? "[ENTER] back: " : "[ENTER] older  [q] quit: ");
+            out.flush();
+            if (scanner.nextLine().trim().equalsIgnoreCase("q") || end) {
+                return skip;
+            }
+        }
+    }
+
+    public void writePost(int number, JSONObject post) {
+        writePost(number, post.getString("user_id"), post.getString("content"), post.getLong("created_at"));
+    }
+
+    public void writePost(int number, PostView post) {
+        writePost(number, post.getUserId(), post.getContent(), post.getCreatedAt());
+    }
+
+    private void writePost(int number, String author, String content, long createdAt) {
+        out.println();
+        out.print("Post #");
+        out.println(number);
+        out.print("User: ");
+        out.println(author);
+        out.print("Content: ");
+        out.println(content);
+        out.print("Time: ");
+        out.println(dateFormat.format(Instant.ofEpochMilli(createdAt)));
+
+        // Marcar posts de usuários que você segue
+        if (isFollowing.test(author)) {
+            out.println("Status: You are following this user");
+        }
+        out.println(SEPARATOR);
+    }
+
+    public void writeMessage(int number, JSONObject message) {
+        out.println();
+        out.print("Message #");
+        out.println(number);
+        out.print("From: User ");
+        out.println(message.getString("sender_id"));
+        out.print("Content: ");
+        out.println(message.getString("content"));
+        out.print("Time: ");
+        out.println(dateFormat.format(Instant.ofEpochMilli(message.getLong("created_at"))));
+        out.println(SEPARATOR);
+    }
+
+    public void flush() {
+        out.flush();
+    }
+
+    // Cursor logo depois do último milissegundo do horário dado (hoje), para incluir esse horário
+    private PostCursor parseTime(String text) {
+        try {
+            LocalTime time = LocalTime.parse(text);
+            long millis = LocalDate.now(zone).atTime(time).atZone(zone).toInstant().toEpochMilli();
+            long end = text.length() > 5 ? millis + 1000 : millis + 60_000;
+            return new PostCursor(end, "");
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,455 @@
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// ARMAZENAMENTO COMPACTO DE POSTS fora do heap
+// Cada post vira um registro binário num segmento (ByteBuffer direto de segmentBytes):
+//   created_at (long), client_timestamp (long), usuário (int), server (int, -1 = ausente),
+//   tamanho do id (short), tamanho do conteúdo (int), id e conteúdo em UTF-8
+// (o tamanho do conteúdo vem logo antes do conteúdo). user_id e server_id são trocados
+// por números (internados uma vez). No heap ficam só arrays de primitivos: a ordem
+// (created_at, id) com o endereço de cada registro e uma tabela hash de ids com
+// endereçamento aberto para descartar duplicatas, cerca de 56 bytes por post e nenhum
+// objeto por post. Leituras devolvem PostView, que lê os campos direto do segmento.
+// Descarte por bytes alocados ou idade do segmento mais antigo (na ordem de chegada) inteiro;
+// a memória direta volta quando o buffer é coletado. O limite de quantidade vale sempre, mesmo
+// com um segmento só: os posts mais antigos saem antes do segmento deles (evictIfNeeded).
+// Escrita pela thread do listener e leitura pelo menu, com lock de leitura/escrita.
+public class PostStore {
+    static final long NO_TIMESTAMP = Long.MIN_VALUE;
+    static final int CREATED_AT = 0;
+    static final int CLIENT_TIMESTAMP = 8;
+    static final int USER = 16;
+    static final int SERVER = 20;
+    static final int ID_LENGTH = 24;
+    static final int HEADER_BYTES = 26;
+    private static final int MIN_SEGMENT_BYTES = 64 * 1024;
+
+    private static final class Segment {
+        final int sequence;
+        final ByteBuffer buffer;
+        // Só o escritor mexe na posição deste duplicado; leitores usam posições absolutas
+        final ByteBuffer writer;
+        // Posts ainda no store; os mais antigos podem sair antes do segmento (limite de quantidade)
+        int count;
+        // Início do primeiro registro ainda no store
+        int firstLive;
+        long newestCreatedAt = Long.MIN_VALUE;
+
+        Segment(int sequence, int capacity) {
+            this.sequence = sequence;
+            this.buffer = ByteBuffer.allocateDirect(capacity);
+            this.writer = buffer.duplicate();
+        }
+    }
+
+    private final int segmentBytes;
+    private final int maxPosts;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Segmentos vivos, do mais antigo para o mais novo; segments.get(i).sequence == firstSequence + i
+    private final List<Segment> segments = new ArrayList<>();
+    private int firstSequence;
+    private long allocatedBytes;
+
+    // Nomes internados (user_id e server_id)
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private volatile String[] names = new String[64];
+    private int nameCount;
+
+    // Ordem (created_at, id): arrays paralelos ordenados
+    private long[] createdAts = new long[1024];
+    private long[] addresses = new long[1024];
+    private long[] hashes = new long[1024];
+    private int count;
+
+    // Tabela de ids: hash (0 = vazio) -> endereço
+    private long[] slotHashes = new long[2048];
+    private long[] slotAddresses = new long[2048];
+    private long evicted;
+
+    // 0 em maxPosts, maxBytes ou maxAgeMillis = sem esse limite
+    public PostStore(int segmentBytes, int maxPosts, long maxBytes, long maxAgeMillis) {
+        this.segmentBytes = Math.max(MIN_SEGMENT_BYTES, segmentBytes);
+        this.maxPosts = maxPosts;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    // Store vazio com os mesmos limites
+    public PostStore emptyCopy() {
+        return new PostStore(segmentBytes, maxPosts, maxBytes, maxAgeMillis);
+    }
+
+    // Devolve false se o post já estava guardado
+    public boolean add(JSONObject post) {
+        byte[] id = post.getString("id").getBytes(StandardCharsets.UTF_8);
+        byte[] content = post.getString("content").getBytes(StandardCharsets.UTF_8);
+        long createdAt = post.getLong("created_at");
+        long hash = hash(id);
+        lock.writeLock().lock();
+        try {
+            if (find(hash, id) >= 0) {
+                return false;
+            }
+            int size = HEADER_BYTES + id.length + 4 + content.length;
+            Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.writer.remaining() < size) {
+                segment = new Segment(firstSequence + segments.size(), Math.max(segmentBytes, size));
+                segments.add(segment);
+                allocatedBytes += segment.buffer.capacity();
+            }
+            ByteBuffer out = segment.writer;
+            int offset = out.position();
+            out.putLong(createdAt);
+            out.putLong(post.has("client_timestamp") ? post.getLong("client_timestamp") : NO_TIMESTAMP);
+            out.putInt(intern(post.getString("user_id")));
+            out.putInt(post.has("server_id") ? intern(post.getString("server_id")) : -1);
+            out.putShort((short) id.length);
+            out.put(id);
+            out.putInt(content.length);
+            out.put(content);
+            segment.count++;
+            segment.newestCreatedAt = Math.max(segment.newestCreatedAt, createdAt);
+
+            long address = ((long) segment.sequence << 32) | offset;
+            insertOrdered(createdAt, post.getString("id"), address, hash);
+            putSlot(hash, address);
+            evictIfNeeded();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // O post cabe sem fazer descartar nada: abaixo do limite de quantidade, no segmento atual
+    // ou num novo ainda dentro do limite de bytes, e não mais velho que o limite de idade
+    public boolean accepts(JSONObject post) {
+        int size = HEADER_BYTES + post.getString("id").getBytes(StandardCharsets.UTF_8).length + 4
+                + post.getString("content").getBytes(StandardCharsets.UTF_8).length;
+        long createdAt = post.getLong("created_at");
+        lock.readLock().lock();
+        try {
+            boolean fitsBytes = maxBytes <= 0 || segments.isEmpty()
+                    || segments.get(segments.size() - 1).writer.remaining() >= size
+                    || allocatedBytes + Math.max(segmentBytes, size) <= maxBytes;
+            return (maxPosts <= 0 || count < maxPosts) && fitsBytes
+                    && (maxAgeMillis <= 0 || createdAt >= System.currentTimeMillis() - maxAgeMillis);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String postId) {
+        byte[] id = postId.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            return find(hash(id), id) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // null quando o post não está (ou não está mais) no store
+    public PostView get(String postId) {
+        byte[] id = postId.getBytes(StandardCharsets.UTF_8);
+        lock.readLock().lock();
+        try {
+            long address = find(hash(id), id);
+            return address < 0 ? null : view(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Memória direta dos segmentos vivos
+    public long getAllocatedBytes() {
+        lock.readLock().lock();
+        try {
+            return allocatedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEvictedCount() {
+        lock.readLock().lock();
+        try {
+            return evicted;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            evicted += count;
+            count = 0;
+            firstSequence += segments.size();
+            segments.clear();
+            allocatedBytes = 0;
+            Arrays.fill(slotHashes, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Até "limit" posts mais antigos que o cursor (null = a partir do mais recente), do mais novo para o mais velho
+    public List<PostView> newestBefore(PostCursor before, int limit) {
+        lock.readLock().lock();
+        try {
+            int index = before == null ? count - 1 : lowerBound(before.createdAt, before.id) - 1;
+            List<PostView> page = new ArrayList<>(Math.max(0, Math.min(limit, Math.min(count, 1024))));
+            for (; index >= 0 && page.size() < limit; index--) {
+                page.add(view(addresses[index]));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Todos os posts, do mais velho para o mais novo (created_at, id), com o lock de leitura
+    public void forEach(Consumer<PostView> action) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < count; i++) {
+                action.accept(view(addresses[i]));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    private int intern(String name) {
+        Integer id = nameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        String[] current = names;
+        if (nameCount == current.length) {
+            current = Arrays.copyOf(current, nameCount * 2);
+        }
+        current[nameCount] = name;
+        names = current;
+        nameIds.put(name, nameCount);
+        return nameCount++;
+    }
+
+    private PostView view(long address) {
+        Segment segment = segments.get((int) (address >>> 32) - firstSequence);
+        return new PostView(this, segment.buffer, (int) address);
+    }
+
+    private ByteBuffer bufferOf(long address) {
+        return segments.get((int) (address >>> 32) - firstSequence).buffer;
+    }
+
+    // Primeira posição com (created_at, id) >= a chave
+    private int lowerBound(long createdAt, String id) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareAt(middle, createdAt, id) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int compareAt(int index, long createdAt, String id) {
+        int byTime = Long.compare(createdAts[index], createdAt);
+        if (byTime != 0) {
+            return byTime;
+        }
+        return readId(bufferOf(addresses[index]), (int) addresses[index]).compareTo(id);
+    }
+
+    // Quase sempre no fim (posts chegam em ordem); fora de ordem desloca a cauda
+    private void insertOrdered(long createdAt, String id, long address, long hash) {
+        if (count == createdAts.length) {
+            createdAts = Arrays.copyOf(createdAts, count * 2);
+            addresses = Arrays.copyOf(addresses, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        int index = count == 0 || createdAts[count - 1] < createdAt ? count : lowerBound(createdAt, id);
+        if (index < count) {
+            System.arraycopy(createdAts, index, createdAts, index + 1, count - index);
+            System.arraycopy(addresses, index, addresses, index + 1, count - index);
+            System.arraycopy(hashes, index, hashes, index + 1, count - index);
+        }
+        createdAts[index] = createdAt;
+        addresses[index] = address;
+        hashes[index] = hash;
+        count++;
+    }
+
+    // Bytes e idade: segmentos inteiros. Quantidade: segmentos inteiros enquanto todos os posts
+    // deles sobram; o excesso restante sai do começo do segmento mais antigo (mesmo o atual),
+    // com uma folga de maxPosts/64 para não refazer a ordem a cada post. Os bytes desses posts
+    // só voltam quando o segmento inteiro sai.
+    private void evictIfNeeded() {
+        int removed = 0;
+        int remaining = count;
+        long now = System.currentTimeMillis();
+        while (segments.size() - removed > 1) {
+            Segment oldest = segments.get(removed);
+            boolean overCount = maxPosts > 0 && remaining - oldest.count >= maxPosts;
+            boolean overBytes = maxBytes > 0 && allocatedBytes > maxBytes;
+            boolean tooOld = maxAgeMillis > 0 && oldest.newestCreatedAt < now - maxAgeMillis;
+            if (!overCount && !overBytes && !tooOld) {
+                break;
+            }
+            allocatedBytes -= oldest.buffer.capacity();
+            remaining -= oldest.count;
+            removed++;
+        }
+        int dropped = 0;
+        if (maxPosts > 0 && remaining > maxPosts) {
+            Segment oldest = segments.get(removed);
+            dropped = Math.min(oldest.count, remaining - maxPosts + maxPosts / 64);
+            for (int i = 0; i < dropped; i++) {
+                oldest.firstLive += recordSize(oldest.buffer, oldest.firstLive);
+            }
+            oldest.count -= dropped;
+        }
+        if (removed > 0 || dropped > 0) {
+            evict(removed);
+        }
+    }
+
+    private static int recordSize(ByteBuffer buffer, int offset) {
+        int idLength = buffer.getShort(offset + ID_LENGTH);
+        return HEADER_BYTES + idLength + 4 + buffer.getInt(offset + HEADER_BYTES + idLength);
+    }
+
+    // Tira os "removed" segmentos mais antigos e os posts antes do firstLive do novo primeiro;
+    // refaz a ordem e a tabela de ids sem eles
+    private void evict(int removed) {
+        int newFirst = firstSequence + removed;
+        long firstAddress = ((long) newFirst << 32) | segments.get(removed).firstLive;
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (addresses[i] >= firstAddress) {
+                createdAts[kept] = createdAts[i];
+                addresses[kept] = addresses[i];
+                hashes[kept] = hashes[i];
+                kept++;
+            }
+        }
+        evicted += count - kept;
+        count = kept;
+        segments.subList(0, removed).clear();
+        firstSequence = newFirst;
+        int slots = Integer.highestOneBit(Math.max(1024, count * 2 - 1)) << 1;
+        slotHashes = new long[slots];
+        slotAddresses = new long[slots];
+        for (int i = 0; i < count; i++) {
+            putSlot(hashes[i], addresses[i]);
+        }
+    }
+
+    // Endereço do post com esse id, ou -1
+    private long find(long hash, byte[] id) {
+        int mask = slotHashes.length - 1;
+        for (int slot = (int) hash & mask; slotHashes[slot] != 0; slot = (slot + 1) & mask) {
+            if (slotHashes[slot] == hash && sameId(slotAddresses[slot], id)) {
+                return slotAddresses[slot];
+            }
+        }
+        return -1;
+    }
+
+    private boolean sameId(long address, byte[] id) {
+        ByteBuffer buffer = bufferOf(address);
+        int offset = (int) address;
+        if (buffer.getShort(offset + ID_LENGTH) != id.length) {
+            return false;
+        }
+        for (int i = 0; i < id.length; i++) {
+            if (buffer.get(offset + HEADER_BYTES + i) != id[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void putSlot(long hash, long address) {
+        // Ocupação máxima de 1/2
+        if (count * 2 > slotHashes.length) {
+            long[] oldHashes = slotHashes;
+            long[] oldAddresses = slotAddresses;
+            slotHashes = new long[oldHashes.length * 2];
+            slotAddresses = new long[oldHashes.length * 2];
+            for (int i = 0; i < oldHashes.length; i++) {
+                if (oldHashes[i] != 0) {
+                    place(oldHashes[i], oldAddresses[i]);
+                }
+            }
+        }
+        place(hash, address);
+    }
+
+    private void place(long hash, long address) {
+        int mask = slotHashes.length - 1;
+        int slot = (int) hash & mask;
+        while (slotHashes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slotHashes[slot] = hash;
+        slotAddresses[slot] = address;
+    }
+
+    // FNV-1a de 64 bits com mistura final; 0 fica reservado para slot vazio
+    private static long hash(byte[] id) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : id) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+
+    static String readId(ByteBuffer buffer, int offset) {
+        return new String(read(buffer, offset + HEADER_BYTES, buffer.getShort(offset + ID_LENGTH)),
+                StandardCharsets.UTF_8);
+    }
+
+    // Leitura absoluta (não mexe na posição do buffer compartilhado)
+    static byte[] read(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,85 @@
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+// LEITOR EM STREAMING da resposta de get_all_posts
+// Percorre o JSON com o JSONTokener e entrega cada elemento de "posts" ao consumidor
+// assim que é lido, sem montar o JSONArray inteiro. Os demais campos vão para o header.
+// Respostas binárias (BinaryCodec) são percorridas do mesmo jeito.
+public final class PostStreamReader {
+    private PostStreamReader() {
+    }
+
+    public static PostPage read(byte[] reply, Consumer<JSONObject> sink) {
+        if (BinaryCodec.isBinary(reply, 0)) {
+            JSONObject header = new JSONObject();
+            int count = BinaryCodec.readStreaming(reply, "posts", header, sink);
+            return new PostPage(header, count);
+        }
+        JSONTokener tokener = new JSONTokener(
+                new InputStreamReader(new ByteArrayInputStream(reply), StandardCharsets.UTF_8));
+        JSONObject header = new JSONObject();
+        int count = 0;
+
+        if (tokener.nextClean() != '{') {
+            throw tokener.syntaxError("A JSON object text must begin with '{'");
+        }
+        if (tokener.nextClean() == '}') {
+            return new PostPage(header, 0);
+        }
+        tokener.back();
+
+        while (true) {
+            String key = tokener.nextValue().toString();
+            if (tokener.nextClean() != ':') {
+                throw tokener.syntaxError("Expected a ':' after a key");
+            }
+            if (key.equals("posts")) {
+                count += readPosts(tokener, sink);
+            } else {
+                header.put(key, tokener.nextValue());
+            }
+
+            char next = tokener.nextClean();
+            if (next == '}') {
+                return new PostPage(header, count);
+            }
+            if (next != ',') {
+                throw tokener.syntaxError("Expected a ',' or '}'");
+            }
+        }
+    }
+
+    private static int readPosts(JSONTokener tokener, Consumer<JSONObject> sink) {
+        if (tokener.nextClean() != '[') {
+            throw tokener.syntaxError("Expected '[' for posts");
+        }
+        if (tokener.nextClean() == ']') {
+            return 0;
+        }
+        tokener.back();
+
+        int count = 0;
+        while (true) {
+            Object value = tokener.nextValue();
+            if (!(value instanceof JSONObject)) {
+                throw new JSONException("Expected a post object but got " + value);
+            }
+            sink.accept((JSONObject) value);
+            count++;
+
+            char next = tokener.nextClean();
+            if (next == ']') {
+                return count;
+            }
+            if (next != ',') {
+                throw tokener.syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import org.json.JSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// VISÃO LEVE de um post guardado no PostStore
+// Só guarda o segmento e a posição do registro; cada campo é lido do buffer quando pedido.
+// O registro nunca é sobrescrito, então a visão continua válida mesmo depois que o segmento
+// sai do store (o buffer só é liberado quando nenhuma visão o referencia).
+public final class PostView {
+    private final PostStore store;
+    private final ByteBuffer buffer;
+    private final int offset;
+
+    PostView(PostStore store, ByteBuffer buffer, int offset) {
+        this.store = store;
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+
+    public long getCreatedAt() {
+        return buffer.getLong(offset + PostStore.CREATED_AT);
+    }
+
+    // PostStore.NO_TIMESTAMP quando o post não tinha client_timestamp
+    public long getClientTimestamp() {
+        return buffer.getLong(offset + PostStore.CLIENT_TIMESTAMP);
+    }
+
+    public String getUserId() {
+        return store.name(buffer.getInt(offset + PostStore.USER));
+    }
+
+    // null quando o post não tinha server_id
+    public String getServerId() {
+        int server = buffer.getInt(offset + PostStore.SERVER);
+        return server < 0 ? null : store.name(server);
+    }
+
+    public String getId() {
+        return PostStore.readId(buffer, offset);
+    }
+
+    public String getContent() {
+        int idLength = buffer.getShort(offset + PostStore.ID_LENGTH);
+        int contentAt = offset + PostStore.HEADER_BYTES + idLength;
+        return new String(PostStore.read(buffer, contentAt + 4, buffer.getInt(contentAt)), StandardCharsets.UTF_8);
+    }
+
+    public PostCursor cursor() {
+        return new PostCursor(getCreatedAt(), getId());
+    }
+
+    // Cópia em JSONObject no formato do server
+    public JSONObject toJSON() {
+        JSONObject post = new JSONObject();
+        post.put("id", getId());
+        post.put("user_id", getUserId());
+        post.put("content", getContent());
+        String serverId = getServerId();
+        if (serverId != null) {
+            post.put("server_id", serverId);
+        }
+        post.put("created_at", getCreatedAt());
+        long clientTimestamp = getClientTimestamp();
+        if (clientTimestamp != PostStore.NO_TIMESTAMP) {
+            post.put("client_timestamp", clientTimestamp);
+        }
+        return post;
+    }
+
+    @Override
+    public String toString() {
+        return toJSON().toString();
+    }
+}
@@ -0,0 +1,563 @@
+import org.zeromq.SocketType;
+import org.zeromq.ZContext;
+import org.zeromq.ZMQ;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// MOTOR DE REQUISIÇÕES ASSÍNCRONO
+// Um socket DEALER permite várias requisições em voo ao mesmo tempo. O request_id
+// vai como frame de envelope ([request_id, "", payload]); o REP do server devolve o
+// envelope intacto, então a resposta é casada com a requisição sem mudar o protocolo.
+// Somente a thread de I/O toca no socket; as outras threads enfileiram e acordam a
+// thread de I/O por um Pipe registrado no mesmo poller.
+// A codificação começa em JSON e pode trocar para binário depois de negotiate(); as
+// respostas são decodificadas pelo primeiro byte, então as duas convivem na conexão. A
+// negociação fala com um server só, mas o broker reparte as requisições entre todos: uma
+// requisição binária respondida em JSON foi parar num server que só fala JSON, e é
+// reenviada em JSON, que a conexão passa a usar.
+// Cada requisição tem um prazo (por tipo de operação). Ao estourar, é reenviada com o
+// mesmo request_id, que os servers usam para não repetir a operação. Timeouts seguidos
+// no mesmo broker marcam o broker como fora por um tempo, e o socket é recriado no
+// próximo broker saudável da lista, reenviando o que estava em voo.
+// Uma requisição cancelada por quem a enviou (ex.: o perdedor de uma leitura com hedge)
+// sai da janela na hora e não conta como timeout.
+public class RequestEngine implements AutoCloseable {
+    public static final int DEFAULT_WINDOW = 64;
+
+    private static final byte[] EMPTY_FRAME = new byte[0];
+
+    // POLÍTICA DE TIMEOUT, RETENTATIVA E FAILOVER (não alterar depois de criar o engine)
+    public static final class Policy {
+        long timeoutMillis = 5000;
+        final Map<String, Long> timeoutsByType = new HashMap<>();
+        int maxRetries = 2;
+        // Timeouts seguidos no broker atual antes de trocar de broker (ou recriar o socket)
+        int failoverAfter = 2;
+        // Tempo que um broker que falhou fica fora da escolha
+        long cooldownMillis = 5000;
+
+        long timeoutFor(String type) {
+            Long timeout = timeoutsByType.get(type);
+            return timeout != null ? timeout : timeoutMillis;
+        }
+    }
+
+    private final ZContext context;
+    private final List<Endpoint> endpoints;
+    private final int window;
+    private final Policy policy;
+    private final Pipe wakeupPipe;
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final ByteBuffer wakeupByte = ByteBuffer.allocate(1);
+    private final ByteBuffer drainBuffer = ByteBuffer.allocate(64);
+    private final Queue<PendingRequest> outbox = new ConcurrentLinkedQueue<>();
+    private final Queue<PendingRequest> cancelled = new ConcurrentLinkedQueue<>();
+    private final Thread ioThread;
+    private volatile boolean running = true;
+    private volatile int pendingCount;
+    private volatile WireCodec codec = WireCodec.JSON;
+    private volatile WireCodec preferredCodec = WireCodec.JSON;
+    private volatile String activeAddress;
+    // Tempo de ida e volta por tipo de operação (opcional)
+    private volatile ClientMetrics metrics;
+    // Captura de cada envio e resposta para o TraceReplayer (opcional)
+    private volatile TraceRecorder recorder;
+
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    // Estado exclusivo da thread de I/O
+    private ZMQ.Socket dealer;
+    private ZMQ.Poller poller;
+    private int current;
+    private final ArrayDeque<PendingRequest> backlog = new ArrayDeque<>();
+    private final Map<String, PendingRequest> inFlight = new HashMap<>();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>(Comparator.comparingLong(d -> d.at));
+
+    public RequestEngine(ZContext context, String address, int window) {
+        this(context, Collections.singletonList(address), window, new Policy());
+    }
+
+    public RequestEngine(ZContext context, List<String> addresses, int window, Policy policy) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Request window must be at least 1, got " + window);
+        }
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one broker address is required");
+        }
+        this.context = context;
+        this.window = window;
+        this.policy = policy;
+        this.endpoints = new ArrayList<>();
+        for (String address : addresses) {
+            endpoints.add(new Endpoint(address));
+        }
+
+        try {
+            this.wakeupPipe = Pipe.open();
+            this.wakeupPipe.source().configureBlocking(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open wakeup pipe: " + e.getMessage(), e);
+        }
+
+        connect(0);
+
+        this.ioThread = new Thread(this::ioLoop, "request-engine-" + addresses.get(0));
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    // Broker em uso no momento
+    public String getAddress() {
+        return activeAddress;
+    }
+
+    public int getWindow() {
+        return window;
+    }
+
+    // Número de requisições aguardando resposta ou aguardando espaço na janela
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    public long getFailoverCount() {
+        return failovers.get();
+    }
+
+    public void setMetrics(ClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setRecorder(TraceRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public WireCodec getCodec() {
+        return codec;
+    }
+
+    // Propõe a codificação ao server; se ele não a conhecer (ou falhar), a conexão segue em JSON.
+    // Requisições enviadas antes da resposta vão em JSON, o que todo server entende.
+    public CompletableFuture<WireCodec> negotiate(WireCodec preferred) {
+        preferredCodec = preferred;
+        if (preferred == WireCodec.JSON) {
+            codec = WireCodec.JSON;
+            return CompletableFuture.completedFuture(codec);
+        }
+        JSONObject request = Requests.negotiateCodec(System.currentTimeMillis(), preferred.name(),
+                WireCodec.JSON.name());
+        return submitEncoded(request.getString("request_id"), "negotiate_codec", WireCodec.JSON.encode(request),
+                policy.timeoutFor("negotiate_codec"))
+                .thenApply(reply -> {
+                    JSONObject response = WireCodec.decodeAny(reply);
+                    if (Requests.isSuccess(response) && preferred.name().equals(response.optString("codec"))) {
+                        codec = preferred;
+                    }
+                    return codec;
+                })
+                .exceptionally(error -> codec);
+    }
+
+    // Envia a requisição (que já deve conter request_id) e devolve a resposta futura; o
+    // prazo vem da política, pelo tipo da operação. A decodificação (e o que for encadeado
+    // com thenApply) roda na thread de I/O: para respostas grandes ou tratamento pesado, use
+    // submitRaw e decodifique num executor próprio, como o Client faz
+    public CompletableFuture<JSONObject> submit(JSONObject request) {
+        return submitRaw(request).thenApply(WireCodec::decodeAny);
+    }
+
+    public CompletableFuture<JSONObject> submit(JSONObject request, long timeoutMillis) {
+        return submitRaw(request, timeoutMillis).thenApply(WireCodec::decodeAny);
+    }
+
+    // Igual ao submit, mas devolve os bytes da resposta para quem quer interpretá-los
+    // por conta própria (ex.: leitura em streaming de páginas de posts)
+    public CompletableFuture<byte[]> submitRaw(JSONObject request) {
+        return submitRaw(request, policy.timeoutFor(request.optString("type")));
+    }
+
+    public CompletableFuture<byte[]> submitRaw(JSONObject request, long timeoutMillis) {
+        return submitEncoded(request.getString("request_id"), request.optString("type"), codec.encode(request),
+                timeoutMillis);
+    }
+
+    private CompletableFuture<byte[]> submitEncoded(String requestId, String type, byte[] payload,
+            long timeoutMillis) {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("Request engine is closed"));
+            return future;
+        }
+        PendingRequest request = new PendingRequest(requestId, type, payload, timeoutMillis, future);
+        future.whenComplete((reply, error) -> {
+            if (future.isCancelled()) {
+                cancelled.add(request);
+                wakeup();
+            }
+        });
+        outbox.add(request);
+        wakeup();
+        return future;
+    }
+
+    private void wakeup() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            try {
+                synchronized (wakeupByte) {
+                    wakeupByte.clear();
+                    wakeupPipe.sink().write(wakeupByte);
+                }
+            } catch (IOException e) {
+                // A thread de I/O ainda acorda pelo timeout do poll
+                wakeupPending.set(false);
+            }
+        }
+    }
+
+    // Cria o DEALER (e o poller) para o broker de índice "index"
+    private void connect(int index) {
+        current = index;
+        activeAddress = endpoints.get(index).address;
+        dealer = context.createSocket(SocketType.DEALER);
+        dealer.setLinger(0);
+        dealer.connect(activeAddress);
+        poller = context.createPoller(2);
+        poller.register(dealer, ZMQ.Poller.POLLIN);
+        poller.register(wakeupPipe.source(), ZMQ.Poller.POLLIN);
+    }
+
+    private void ioLoop() {
+        while (running) {
+            try {
+                poller.poll(pollTimeout());
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                System.err.println("Error polling request engine: " + e.getMessage());
+                continue;
+            }
+
+            if (poller.pollin(1)) {
+                drainWakeup();
+            }
+
+            PendingRequest request;
+            while ((request = outbox.poll()) != null) {
+                backlog.add(request);
+            }
+
+            if (poller.pollin(0)) {
+                receiveReplies();
+            }
+
+            while ((request = cancelled.poll()) != null) {
+                inFlight.remove(request.requestId, request);
+            }
+            expireDeadlines();
+            flushBacklog();
+            pendingCount = backlog.size() + inFlight.size();
+        }
+        failAll(new IllegalStateException("Request engine closed"));
+        poller.close();
+        dealer.close();
+    }
+
+    // Acorda a tempo do próximo prazo; no máximo a cada 100 ms
+    private long pollTimeout() {
+        Deadline next = deadlines.peek();
+        if (next == null) {
+            return 100;
+        }
+        return Math.max(0, Math.min(100, next.at - nowMillis()));
+    }
+
+    private void drainWakeup() {
+        wakeupPending.set(false);
+        try {
+            drainBuffer.clear();
+            while (wakeupPipe.source().read(drainBuffer) > 0) {
+                drainBuffer.clear();
+            }
+        } catch (IOException e) {
+            System.err.println("Error draining request engine wakeup: " + e.getMessage());
+        }
+    }
+
+    // Envia o que couber na janela de requisições em voo
+    private void flushBacklog() {
+        while (inFlight.size() < window && !backlog.isEmpty()) {
+            PendingRequest request = backlog.poll();
+            if (request.future.isDone()) {
+                continue;
+            }
+            boolean sent = dealer.sendMore(request.requestId)
+                    && dealer.sendMore(EMPTY_FRAME)
+                    && dealer.send(request.payload, 0);
+            if (!sent) {
+                request.future.completeExceptionally(
+                        new IllegalStateException("Could not send request " + request.requestId));
+                continue;
+            }
+            request.sends++;
+            TraceRecorder capture = recorder;
+            if (capture != null) {
+                capture.recordRequest(request.requestId, request.payload);
+            }
+            inFlight.put(request.requestId, request);
+            deadlines.add(new Deadline(nowMillis() + request.timeoutMillis, request, request.sends));
+        }
+    }
+
+    // Lê todas as respostas disponíveis: [request_id, "", payload]
+    private void receiveReplies() {
+        while (true) {
+            byte[] idFrame = dealer.recv(ZMQ.DONTWAIT);
+            if (idFrame == null) {
+                return;
+            }
+            byte[] payload = null;
+            while (dealer.hasReceiveMore()) {
+                payload = dealer.recv(0);
+            }
+            endpoints.get(current).consecutiveTimeouts = 0;
+            String requestId = new String(idFrame, ZMQ.CHARSET);
+            // Resposta atrasada de uma tentativa anterior já respondida: ignorada
+            PendingRequest request = inFlight.remove(requestId);
+            if (request == null || payload == null) {
+                continue;
+            }
+            if (BinaryCodec.isBinary(request.payload, 0) && !BinaryCodec.isBinary(payload, 0)) {
+                resendAsJson(request);
+                continue;
+            }
+            ClientMetrics observer = metrics;
+            if (observer != null) {
+                observer.recordRequest(request.type, System.nanoTime() - request.submittedNanos);
+            }
+            TraceRecorder capture = recorder;
+            if (capture != null) {
+                capture.recordReply(requestId, payload);
+            }
+            request.future.complete(payload);
+        }
+    }
+
+    // Requisição binária respondida em JSON: o broker a entregou a um server que não fala
+    // binário (a negociação só ouviu um dos servers por trás dele). Esse server não leu a
+    // requisição, então ela volta para a frente da fila em JSON, com o mesmo request_id, e a
+    // conexão passa a usar JSON. O que já foi codificado em binário cai aqui do mesmo jeito.
+    private void resendAsJson(PendingRequest request) {
+        if (codec != WireCodec.JSON) {
+            codec = WireCodec.JSON;
+            System.err.println("Request engine: a server behind " + activeAddress
+                    + " does not accept " + preferredCodec.name() + ", falling back to JSON");
+        }
+        request.payload = WireCodec.JSON.encode(WireCodec.BINARY.decode(request.payload));
+        retries.incrementAndGet();
+        backlog.addFirst(request);
+    }
+
+    // Requisições com prazo vencido voltam para a frente da fila ou falham de vez
+    private void expireDeadlines() {
+        long now = nowMillis();
+        List<PendingRequest> retry = null;
+        while (!deadlines.isEmpty() && deadlines.peek().at <= now) {
+            Deadline deadline = deadlines.poll();
+            PendingRequest request = deadline.request;
+            // Prazo de um envio antigo (já respondido ou reenviado)
+            if (inFlight.get(request.requestId) != request || request.sends != deadline.sends) {
+                continue;
+            }
+            inFlight.remove(request.requestId);
+            // Já concluída por fora (cancelada): só libera a vaga, sem contar timeout nem reenviar
+            if (request.future.isDone()) {
+                continue;
+            }
+            timeouts.incrementAndGet();
+            endpoints.get(current).consecutiveTimeouts++;
+            request.attempts++;
+            if (request.attempts > policy.maxRetries) {
+                request.future.completeExceptionally(new TimeoutException("Request " + request.requestId
+                        + " timed out after " + request.attempts + " attempts (" + request.timeoutMillis
+                        + " ms each)"));
+                continue;
+            }
+            retries.incrementAndGet();
+            if (retry == null) {
+                retry = new ArrayList<>();
+            }
+            retry.add(request);
+        }
+        if (retry != null) {
+            for (int i = retry.size() - 1; i >= 0; i--) {
+                backlog.addFirst(retry.get(i));
+            }
+        }
+        if (endpoints.get(current).consecutiveTimeouts >= policy.failoverAfter) {
+            failover(now);
+        }
+    }
+
+    // Tira o broker atual da escolha por um tempo e recria o socket no próximo saudável.
+    // O que estava em voo no socket antigo nunca terá resposta e é reenviado.
+    private void failover(long now) {
+        Endpoint failed = endpoints.get(current);
+        failed.downUntil = now + policy.cooldownMillis;
+        failed.consecutiveTimeouts = 0;
+
+        int next = chooseEndpoint(now);
+        poller.close();
+        dealer.close();
+        connect(next);
+        failovers.incrementAndGet();
+        System.err.println("Request engine failover: " + failed.address + " -> " + activeAddress);
+
+        List<PendingRequest> resend = new ArrayList<>(inFlight.values());
+        inFlight.clear();
+        for (PendingRequest request : resend) {
+            retries.incrementAndGet();
+            backlog.addFirst(request);
+        }
+
+        // A codificação foi combinada com o broker anterior
+        if (preferredCodec != WireCodec.JSON) {
+            codec = WireCodec.JSON;
+            negotiate(preferredCodec);
+        }
+    }
+
+    // Próximo broker fora do período de espera; se todos falharam, o que volta primeiro
+    private int chooseEndpoint(long now) {
+        int count = endpoints.size();
+        for (int i = 1; i <= count; i++) {
+            int index = (current + i) % count;
+            if (endpoints.get(index).downUntil <= now) {
+                return index;
+            }
+        }
+        int best = current;
+        for (int i = 0; i < count; i++) {
+            if (endpoints.get(i).downUntil < endpoints.get(best).downUntil) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    private static long nowMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    private void failAll(Exception cause) {
+        for (PendingRequest request : inFlight.values()) {
+            request.future.completeExceptionally(cause);
+        }
+        inFlight.clear();
+        for (PendingRequest request : backlog) {
+            request.future.completeExceptionally(cause);
+        }
+        backlog.clear();
+        deadlines.clear();
+        PendingRequest request;
+        while ((request = outbox.poll()) != null) {
+            request.future.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        wakeup();
+        try {
+            ioThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Requisições enfileiradas depois que a thread de I/O parou
+        PendingRequest request;
+        while ((request = outbox.poll()) != null) {
+            request.future.completeExceptionally(new IllegalStateException("Request engine closed"));
+        }
+        try {
+            wakeupPipe.sink().close();
+            wakeupPipe.source().close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static final class Endpoint {
+        final String address;
+        int consecutiveTimeouts;
+        long downUntil = Long.MIN_VALUE;
+
+        Endpoint(String address) {
+            this.address = address;
+        }
+    }
+
+    private static final class PendingRequest {
+        final String requestId;
+        final String type;
+        // Regravado em JSON se um server não aceitar o binário (só na thread de I/O)
+        byte[] payload;
+        final long timeoutMillis;
+        final CompletableFuture<byte[]> future;
+        final long submittedNanos = System.nanoTime();
+        // Timeouts sofridos e envios feitos (o prazo de um envio antigo é descartado)
+        int attempts;
+        int sends;
+
+        PendingRequest(String requestId, String type, byte[] payload, long timeoutMillis,
+                CompletableFuture<byte[]> future) {
+            this.requestId = requestId;
+            this.type = type;
+            this.payload = payload;
+            this.timeoutMillis = timeoutMillis;
+            this.future = future;
+        }
+    }
+
+    private static final class Deadline {
+        final long at;
+        final PendingRequest request;
+        final int sends;
+
+        Deadline(long at, PendingRequest request, int sends) {
+            this.at = at;
+            this.request = request;
+            this.sends = sends;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+import java.util.UUID;
+
+// ENVELOPES DE REQUISIÇÃO - formato único usado pelo Client e pelo LoadGenerator
+public final class Requests {
+    private Requests() {
+    }
+
+    public static JSONObject createPost(String userId, String content, long clientTimestamp) {
+        JSONObject message = envelope("create_post", clientTimestamp);
+        message.put("user_id", userId);
+        message.put("content", content);
+        return message;
+    }
+
+    public static JSONObject sendPrivateMessage(String senderId, String receiverId, String content,
+            long clientTimestamp) {
+        JSONObject message = envelope("send_private_message", clientTimestamp);
+        message.put("sender_id", senderId);
+        message.put("receiver_id", receiverId);
+        message.put("content", content);
+        return message;
+    }
+
+    public static JSONObject followUser(String followerId, String targetUserId, long clientTimestamp) {
+        JSONObject message = envelope("follow_user", clientTimestamp);
+        message.put("follower_id", followerId);
+        message.put("target_user_id", targetUserId);
+        return message;
+    }
+
+    public static JSONObject unfollowUser(String followerId, String targetUserId, long clientTimestamp) {
+        JSONObject message = envelope("unfollow_user", clientTimestamp);
+        message.put("follower_id", followerId);
+        message.put("target_user_id", targetUserId);
+        return message;
+    }
+
+    // Lote: cada item é um envelope completo (create_post, follow_user, ...) e a resposta
+    // traz "results" com uma resposta por item, na mesma ordem
+    public static JSONObject batch(List<JSONObject> requests, long clientTimestamp) {
+        JSONObject message = envelope("batch", clientTimestamp);
+        message.put("requests", new JSONArray(requests));
+        return message;
+    }
+
+    public static JSONObject getFollowing(String userId, long clientTimestamp) {
+        JSONObject message = envelope("get_following", clientTimestamp);
+        message.put("user_id", userId);
+        return message;
+    }
+
+    public static JSONObject getAllPosts(String userId, long clientTimestamp) {
+        JSONObject message = envelope("get_all_posts", clientTimestamp);
+        message.put("user_id", userId);
+        return message;
+    }
+
+    // Página de get_all_posts: "before" anda para trás (mais recentes primeiro),
+    // "after" anda para frente (mais antigos primeiro); sem cursor começa do mais recente
+    public static JSONObject getPostsPage(String userId, long clientTimestamp, int limit, PostCursor before,
+            PostCursor after) {
+        JSONObject message = getAllPosts(userId, clientTimestamp);
+        message.put("limit", limit);
+        if (before != null) {
+            message.put("before", before.toJSON());
+        }
+        if (after != null) {
+            message.put("after", after.toJSON());
+        }
+        return message;
+    }
+
+    // Codificações em ordem de preferência; o server responde com a escolhida em "codec"
+    public static JSONObject negotiateCodec(long clientTimestamp, String... codecs) {
+        JSONObject message = envelope("negotiate_codec", clientTimestamp);
+        message.put("codecs", new JSONArray(codecs));
+        return message;
+    }
+
+    // Resposta local para uma requisição que não teve resposta do server
+    public static JSONObject failure(String message) {
+        JSONObject response = new JSONObject();
+        response.put("status", "error");
+        response.put("message", message);
+        return response;
+    }
+
+    public static boolean isSuccess(JSONObject response) {
+        return response.has("status") && response.getString("status").equals("success");
+    }
+
+    private static JSONObject envelope(String type, long clientTimestamp) {
+        JSONObject message = new JSONObject();
+        message.put("type", type);
+        message.put("request_id", UUID.randomUUID().toString());
+        message.put("client_timestamp", clientTimestamp); // Enviar timestamp
+        return message;
+    }
+}
@@ -0,0 +1,491 @@
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+// ÍNDICE INVERTIDO LOCAL de posts e mensagens privadas
+// Atualizado a cada post aceito (notificação ou página do server) e a cada mensagem
+// recebida. Os documentos ficam em segmentos de até SEGMENT_DOCS itens, com arrays por
+// documento que crescem conforme chegam e são cortados no tamanho certo ao selar; o segmento
+// ativo guarda as listas de ocorrência (postings) em int[] crescentes e, ao selar, cada lista
+// vira deltas em varint num byte[]. Há postings por termo do "content" (em minúsculas, sem
+// acentos) e por autor. Frases são resolvidas pela interseção dos termos e conferidas no
+// texto do candidato. Posts não ficam no heap: o índice guarda só o id e lê o post pelo
+// resolvedor (o PostStore da linha do tempo); um post que já saiu do store não aparece nos
+// resultados. Mensagens guardam o próprio JSONObject, o mesmo que o MessageStore retém.
+// Itens com "id" entram uma vez só: o mesmo post pode voltar numa ressincronização ou depois
+// de sair do store da linha do tempo. Cada segmento sabe o menor e o maior created_at, então
+// filtros de tempo pulam segmentos inteiros. A memória estimada do índice (postings, termos,
+// ids, arrays por documento e mensagens) fica dentro do orçamento descartando os segmentos
+// mais antigos.
+// Escritas (listener, sincronização) e buscas (menu) usam um lock de leitura/escrita.
+public class SearchIndex {
+    static final int SEGMENT_DOCS = 65_536;
+    private static final int MAX_TERM_LENGTH = 64;
+    // Custo aproximado de uma entrada de termo: String, array de chars e entrada do HashMap
+    private static final int TERM_OVERHEAD = 96;
+    // Custo aproximado de um JSONObject de mensagem além do texto (mapa, chaves, Longs)
+    private static final int DOCUMENT_OVERHEAD = 400;
+    private static final int INITIAL_DOCS = 1024;
+
+    public enum Kind {
+        POST,
+        PRIVATE_MESSAGE
+    }
+
+    public static final class Query {
+        // Termos (todos precisam aparecer) ou, com phrase, a sequência exata
+        public String text = "";
+        public boolean phrase;
+        public String author;
+        public long from = Long.MIN_VALUE;
+        public long to = Long.MAX_VALUE;
+        public Kind kind;
+        public int limit = 20;
+    }
+
+    // Um post (lido do store) ou uma mensagem
+    public static final class Hit {
+        public final Kind kind;
+        public final PostView post;
+        public final JSONObject message;
+
+        Hit(Kind kind, PostView post, JSONObject message) {
+            this.kind = kind;
+            this.post = post;
+            this.message = message;
+        }
+    }
+
+    private final long budgetBytes;
+    private final Function<String, PostView> posts;
+    private final int segmentDocs;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Segment active;
+    private long sealedBytes;
+    private long evictedDocs;
+
+    // posts: post guardado com esse id, ou null se ele já saiu do store
+    public SearchIndex(long budgetBytes, Function<String, PostView> posts) {
+        this(budgetBytes, posts, SEGMENT_DOCS);
+    }
+
+    SearchIndex(long budgetBytes, Function<String, PostView> posts, int segmentDocs) {
+        this.budgetBytes = budgetBytes;
+        this.posts = posts;
+        this.segmentDocs = segmentDocs;
+        this.active = new Segment();
+        segments.addLast(active);
+    }
+
+    // Posts sem id não são guardados pelo PostStore, então também não são indexados
+    public void addPost(JSONObject post) {
+        if (post.has("id")) {
+            add(Kind.POST, post, post.optString("user_id"));
+        }
+    }
+
+    public void addMessage(JSONObject message) {
+        add(Kind.PRIVATE_MESSAGE, message, message.optString("sender_id"));
+    }
+
+    private void add(Kind kind, JSONObject item, String author) {
+        List<String> terms = distinct(tokenize(item.optString("content")));
+        long createdAt = item.optLong("created_at");
+        String id = item.optString("id", null);
+        String key = id == null ? null : kind.ordinal() + id;
+        lock.writeLock().lock();
+        try {
+            if (key != null && isIndexed(key)) {
+                return;
+            }
+            if (active.size == segmentDocs) {
+                sealedBytes += active.seal();
+                active = new Segment();
+                segments.addLast(active);
+            }
+            active.add(kind, item, key, author, createdAt, terms);
+            // O segmento ativo nunca é descartado
+            while (sealedBytes + active.estimatedBytes() > budgetBytes && segments.size() > 1) {
+                Segment oldest = segments.removeFirst();
+                sealedBytes -= oldest.estimatedBytes();
+                evictedDocs += oldest.size;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean isIndexed(String key) {
+        for (Segment segment : segments) {
+            if (segment.ids.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Do mais novo para o mais velho (created_at), até query.limit
+    public List<Hit> search(Query query) {
+        if (query.limit <= 0) {
+            throw new IllegalArgumentException("Search limit must be positive, got " + query.limit);
+        }
+        List<String> tokens = tokenize(query.text);
+        List<String> terms = distinct(tokens);
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Iterator<Segment> newestFirst = segments.descendingIterator();
+            while (newestFirst.hasNext()) {
+                Segment segment = newestFirst.next();
+                // Já há resultados suficientes e mais novos que tudo neste segmento
+                if (matches.size() >= query.limit && segment.maxCreatedAt < matches.get(query.limit - 1).createdAt) {
+                    continue;
+                }
+                if (segment.size == 0 || segment.maxCreatedAt < query.from || segment.minCreatedAt > query.to) {
+                    continue;
+                }
+                segment.collect(query, terms, query.phrase && tokens.size() > 1 ? tokens : null, posts, matches);
+                matches.sort((a, b) -> Long.compare(b.createdAt, a.createdAt));
+                if (matches.size() > query.limit) {
+                    matches.subList(query.limit, matches.size()).clear();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Hit> hits = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            hits.add(new Hit(match.kind, match.post, match.message));
+        }
+        return hits;
+    }
+
+    public int getDocumentCount() {
+        lock.readLock().lock();
+        try {
+            int total = 0;
+            for (Segment segment : segments) {
+                total += segment.size;
+            }
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEstimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return sealedBytes + active.estimatedBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getEvictedDocuments() {
+        lock.readLock().lock();
+        try {
+            return evictedDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Minúsculas, sem acentos ("ação" -> "acao"), separado em tudo que não é letra ou dígito
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (token.length() < MAX_TERM_LENGTH) {
+                    token.append(c);
+                }
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (token.length() > 0) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    private static List<String> distinct(List<String> tokens) {
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            if (!terms.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    private static final class Match {
+        final Kind kind;
+        final PostView post;
+        final JSONObject message;
+        final long createdAt;
+
+        Match(Kind kind, PostView post, JSONObject message, long createdAt) {
+            this.kind = kind;
+            this.post = post;
+            this.message = message;
+            this.createdAt = createdAt;
+        }
+    }
+
+    // SEGMENTO: documentos com id local 0..size-1, na ordem de chegada
+    private static final class Segment {
+        // Post: a chave (tipo + id); mensagem: o JSONObject
+        private Object[] items = new Object[INITIAL_DOCS];
+        private long[] createdAt = new long[INITIAL_DOCS];
+        private byte[] kinds = new byte[INITIAL_DOCS];
+        private final Map<String, Postings> terms = new HashMap<>();
+        private final Map<String, Postings> authors = new HashMap<>();
+        // Tipo + id dos documentos que têm id
+        private final Set<String> ids = new HashSet<>();
+        private int size;
+        private long minCreatedAt = Long.MAX_VALUE;
+        private long maxCreatedAt = Long.MIN_VALUE;
+        private long postingsBytes;
+        private long keyBytes;
+        private long documentBytes;
+
+        void add(Kind kind, JSONObject item, String key, String author, long created, List<String> documentTerms) {
+            if (size == items.length) {
+                int capacity = size * 2;
+                items = Arrays.copyOf(items, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+            }
+            int doc = size++;
+            if (key != null) {
+                ids.add(key);
+                keyBytes += TERM_OVERHEAD + 2L * key.length();
+            }
+            if (kind == Kind.POST) {
+                items[doc] = key;
+            } else {
+                items[doc] = item;
+                documentBytes += DOCUMENT_OVERHEAD + 2L * item.optString("content").length();
+            }
+            createdAt[doc] = created;
+            kinds[doc] = (byte) kind.ordinal();
+            minCreatedAt = Math.min(minCreatedAt, created);
+            maxCreatedAt = Math.max(maxCreatedAt, created);
+            for (String term : documentTerms) {
+                append(terms, term, doc);
+            }
+            append(authors, author, doc);
+        }
+
+        private void append(Map<String, Postings> index, String key, int doc) {
+            Postings postings = index.get(key);
+            if (postings == null) {
+                postings = new Postings();
+                index.put(key, postings);
+                keyBytes += TERM_OVERHEAD + 2L * key.length();
+            }
+            postingsBytes -= postings.bytes();
+            postings.add(doc);
+            postingsBytes += postings.bytes();
+        }
+
+        // Compacta todas as listas e corta os arrays; devolve a memória estimada depois disso
+        long seal() {
+            items = Arrays.copyOf(items, size);
+            createdAt = Arrays.copyOf(createdAt, size);
+            kinds = Arrays.copyOf(kinds, size);
+            postingsBytes = 0;
+            for (Postings postings : terms.values()) {
+                postings.compress();
+                postingsBytes += postings.bytes();
+            }
+            for (Postings postings : authors.values()) {
+                postings.compress();
+                postingsBytes += postings.bytes();
+            }
+            return estimatedBytes();
+        }
+
+        long estimatedBytes() {
+            // Referência, created_at e tipo de cada posição alocada
+            return postingsBytes + keyBytes + documentBytes + items.length * (8L + 8 + 1);
+        }
+
+        void collect(Query query, List<String> queryTerms, List<String> phrase, Function<String, PostView> posts,
+                List<Match> matches) {
+            int[] candidates = null;
+            if (query.author != null && !query.author.isEmpty()) {
+                Postings postings = authors.get(query.author);
+                if (postings == null) {
+                    return;
+                }
+                candidates = postings.toArray();
+            }
+            // Interseção começando pela lista mais curta
+            List<Postings> lists = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                Postings postings = terms.get(term);
+                if (postings == null) {
+                    return;
+                }
+                lists.add(postings);
+            }
+            lists.sort((a, b) -> Integer.compare(a.count, b.count));
+            for (Postings postings : lists) {
+                candidates = candidates == null ? postings.toArray() : intersect(candidates, postings.toArray());
+                if (candidates.length == 0) {
+                    return;
+                }
+            }
+            if (candidates == null) {
+                // Só filtros de tempo/tipo: todos os documentos do segmento
+                candidates = new int[size];
+                for (int i = 0; i < size; i++) {
+                    candidates[i] = i;
+                }
+            }
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                int doc = candidates[i];
+                long created = createdAt[doc];
+                Kind kind = Kind.values()[kinds[doc]];
+                if (created < query.from || created > query.to || (query.kind != null && query.kind != kind)) {
+                    continue;
+                }
+                PostView post = null;
+                JSONObject message = null;
+                String content;
+                if (kind == Kind.POST) {
+                    // A chave é o tipo (um dígito) seguido do id
+                    post = posts.apply(((String) items[doc]).substring(1));
+                    if (post == null) {
+                        continue;
+                    }
+                    content = phrase != null ? post.getContent() : null;
+                } else {
+                    message = (JSONObject) items[doc];
+                    content = message.optString("content");
+                }
+                if (phrase != null && !containsPhrase(content, phrase)) {
+                    continue;
+                }
+                matches.add(new Match(kind, post, message, created));
+            }
+        }
+
+        private static boolean containsPhrase(String content, List<String> phrase) {
+            List<String> tokens = tokenize(content);
+            for (int start = 0; start + phrase.size() <= tokens.size(); start++) {
+                if (tokens.subList(start, start + phrase.size()).equals(phrase)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] result = new int[Math.min(a.length, b.length)];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[count++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, count);
+        }
+    }
+
+    // Ids locais em ordem crescente: int[] enquanto o segmento recebe documentos,
+    // deltas em varint depois de selado
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private byte[] packed;
+        private int count;
+
+        void add(int doc) {
+            // Cada documento entra uma vez por lista
+            if (count > 0 && docs[count - 1] == doc) {
+                return;
+            }
+            if (count == docs.length) {
+                docs = Arrays.copyOf(docs, count * 2);
+            }
+            docs[count++] = doc;
+        }
+
+        void compress() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(count * 2);
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = docs[i] - previous;
+                previous = docs[i];
+                while ((delta & ~0x7F) != 0) {
+                    out.write((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                out.write(delta);
+            }
+            packed = out.toByteArray();
+            docs = null;
+        }
+
+        int[] toArray() {
+            if (packed == null) {
+                return Arrays.copyOf(docs, count);
+            }
+            int[] result = new int[count];
+            int position = 0;
+            int previous = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = packed[position++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                previous += delta;
+                result[i] = previous;
+            }
+            return result;
+        }
+
+        long bytes() {
+            return 16 + (packed != null ? 16 + packed.length : 16 + 4L * docs.length);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// FILA LIMITADA ENTRE ESTÁGIOS do pipeline de notificações
+// Um produtor e um consumidor, sem lock: cada posição guarda dois objetos e um carimbo
+// de tempo em arrays paralelos, então enfileirar não aloca nada. A capacidade é
+// arredondada para potência de 2.
+final class StageQueue<A, B> {
+
+    interface Consumer<A, B> {
+        void accept(A first, B second, long stamp);
+    }
+
+    private final int mask;
+    private final Object[] firsts;
+    private final Object[] seconds;
+    private final long[] stamps;
+    // Próxima posição a consumir e a produzir
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    StageQueue(int capacity) {
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.firsts = new Object[size];
+        this.seconds = new Object[size];
+        this.stamps = new long[size];
+    }
+
+    // PRODUTOR: false quando a fila está cheia
+    boolean offer(A first, B second, long stamp) {
+        long position = tail.get();
+        if (position - head.get() > mask) {
+            return false;
+        }
+        int index = (int) (position & mask);
+        firsts[index] = first;
+        seconds[index] = second;
+        stamps[index] = stamp;
+        // Escrita volátil: precisa ser vista antes de o produtor ler se o consumidor dorme
+        tail.set(position + 1);
+        return true;
+    }
+
+    // CONSUMIDOR: entrega até "max" itens na ordem de chegada; devolve quantos
+    @SuppressWarnings("unchecked")
+    int drain(Consumer<A, B> consumer, int max) {
+        long position = head.get();
+        long limit = Math.min(tail.get(), position + max);
+        int drained = 0;
+        while (position < limit) {
+            int index = (int) (position & mask);
+            A first = (A) firsts[index];
+            B second = (B) seconds[index];
+            long stamp = stamps[index];
+            firsts[index] = null;
+            seconds[index] = null;
+            head.lazySet(++position);
+            consumer.accept(first, second, stamp);
+            drained++;
+        }
+        return drained;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,35 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// TEMPOS DE INICIALIZAÇÃO do cliente
+// Cada fase anota quanto durou e em que momento terminou (relativo ao início), então fases
+// que correm em paralelo aparecem sobrepostas no relatório. As fases podem terminar em
+// threads diferentes (listener, resposta do server).
+public class StartupTimer {
+    private final long startNanos = System.nanoTime();
+    private final List<String> phases = new ArrayList<>();
+
+    public long begin() {
+        return System.nanoTime();
+    }
+
+    // detail pode ser null
+    public synchronized void end(String phase, long beganNanos, String detail) {
+        long now = System.nanoTime();
+        phases.add(phase + " " + millis(now - beganNanos) + "ms (done at " + millis(now - startNanos) + "ms"
+                + (detail != null ? ", " + detail : "") + ")");
+    }
+
+    public long elapsedMillis() {
+        return millis(System.nanoTime() - startNanos);
+    }
+
+    // "sockets 2ms (done at 9ms), listener 4ms (done at 11ms, 3 topics), ..."
+    public synchronized String report() {
+        return String.join(", ", phases);
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+}
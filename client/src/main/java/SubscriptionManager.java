@@ -0,0 +1,244 @@
+import org.zeromq.ZMQ;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// GERENCIADOR DE ASSINATURAS do socket SUB
+// Guarda quem o cliente segue (conjunto concorrente para consultas de qualquer thread e
+// TopicSet em bytes para o decodificador) e as assinaturas desejadas. Sockets ZeroMQ não
+// são thread-safe, então follow/unfollow só enfileiram a mudança e acordam a thread dona
+// do socket (o listener) por um Pipe registrado no poller dela; lá as mudanças são
+// aplicadas em lote. Um socket recriado recebe todas as assinaturas de novo.
+public class SubscriptionManager implements AutoCloseable {
+    private static final byte[] PM_SUFFIX = "PM:".getBytes(ZMQ.CHARSET);
+
+    private final String userId;
+    private final Set<String> following = ConcurrentHashMap.newKeySet();
+    private final TopicSet followIndex = new TopicSet();
+    private final Queue<Change> changes = new ConcurrentLinkedQueue<>();
+    private final Pipe wakeupPipe;
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final ByteBuffer wakeupByte = ByteBuffer.allocate(1);
+    private final ByteBuffer drainBuffer = ByteBuffer.allocate(64);
+
+    public SubscriptionManager(String userId) {
+        this.userId = userId;
+        try {
+            this.wakeupPipe = Pipe.open();
+            this.wakeupPipe.source().configureBlocking(false);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open subscription wakeup pipe: " + e.getMessage(), e);
+        }
+        // Os próprios posts e as mensagens privadas dirigidas a este usuário
+        following.add(userId);
+        followIndex.add(userId);
+        changes.add(new Change(topicOf(userId), true));
+        changes.add(new Change(privateMessageTopic(), true));
+    }
+
+    // Conjunto em bytes consultado pelo NotificationDecoder
+    public TopicSet getFollowIndex() {
+        return followIndex;
+    }
+
+    public boolean isFollowing(String targetUserId) {
+        return following.contains(targetUserId);
+    }
+
+    public int getFollowingCount() {
+        return following.size();
+    }
+
+    public Set<String> getFollowing() {
+        return Collections.unmodifiableSet(following);
+    }
+
+    public boolean follow(String targetUserId) {
+        return followAll(Collections.singletonList(targetUserId)) > 0;
+    }
+
+    public boolean unfollow(String targetUserId) {
+        return unfollowAll(Collections.singletonList(targetUserId)) > 0;
+    }
+
+    // Segue vários usuários com uma única cópia do índice e um único despertar do listener;
+    // devolve quantos eram novos
+    public synchronized int followAll(Collection<String> userIds) {
+        List<String> added = new ArrayList<>();
+        for (String targetUserId : userIds) {
+            if (following.add(targetUserId)) {
+                added.add(targetUserId);
+            }
+        }
+        if (added.isEmpty()) {
+            return 0;
+        }
+        followIndex.addAll(added);
+        for (String targetUserId : added) {
+            changes.add(new Change(topicOf(targetUserId), true));
+        }
+        wakeup();
+        return added.size();
+    }
+
+    // Deixa de seguir; o próprio usuário nunca sai (seus posts continuam assinados)
+    public synchronized int unfollowAll(Collection<String> userIds) {
+        List<String> removed = new ArrayList<>();
+        for (String targetUserId : userIds) {
+            if (!targetUserId.equals(userId) && following.remove(targetUserId)) {
+                removed.add(targetUserId);
+            }
+        }
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        followIndex.removeAll(removed);
+        for (String targetUserId : removed) {
+            changes.add(new Change(topicOf(targetUserId), false));
+        }
+        wakeup();
+        return removed.size();
+    }
+
+    // SNAPSHOT LOCAL dos seguidos (um usuário por linha, sem o próprio), para a próxima
+    // inicialização assinar tudo antes da resposta do server. Gravado num arquivo temporário
+    // e renomeado, para nunca deixar um snapshot pela metade.
+    public void writeSnapshot(Path file) throws IOException {
+        List<String> lines = new ArrayList<>(following.size());
+        for (String targetUserId : following) {
+            if (!targetUserId.equals(userId)) {
+                lines.add(targetUserId);
+            }
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // null se ainda não há snapshot
+    public static List<String> readSnapshot(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        List<String> users = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                users.add(line.trim());
+            }
+        }
+        return users;
+    }
+
+    // Canal a registrar no poller da thread dona do socket
+    public SelectableChannel wakeupChannel() {
+        return wakeupPipe.source();
+    }
+
+    // Há mudanças esperando o listener (com ou sem o byte de despertar no pipe)
+    public boolean hasPending() {
+        return !changes.isEmpty();
+    }
+
+    // THREAD DONA DO SOCKET: aplica as mudanças pendentes; devolve quantas foram aplicadas
+    public int applyPending(ZMQ.Socket socket) {
+        drainWakeup();
+        int applied = 0;
+        Change change;
+        while ((change = changes.poll()) != null) {
+            if (change.subscribe) {
+                socket.subscribe(change.topic);
+            } else {
+                socket.unsubscribe(change.topic);
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    // THREAD DONA DO SOCKET: assina tudo num socket novo. As mudanças pendentes já estão
+    // refletidas no conjunto e são descartadas, para não assinar duas vezes.
+    public synchronized int resubscribeAll(ZMQ.Socket socket) {
+        drainWakeup();
+        changes.clear();
+        int applied = 0;
+        for (String targetUserId : following) {
+            socket.subscribe(topicOf(targetUserId));
+            applied++;
+        }
+        socket.subscribe(privateMessageTopic());
+        return applied + 1;
+    }
+
+    private byte[] topicOf(String targetUserId) {
+        return (targetUserId + ":").getBytes(ZMQ.CHARSET);
+    }
+
+    private byte[] privateMessageTopic() {
+        byte[] user = topicOf(userId);
+        byte[] topic = new byte[user.length + PM_SUFFIX.length];
+        System.arraycopy(user, 0, topic, 0, user.length);
+        System.arraycopy(PM_SUFFIX, 0, topic, user.length, PM_SUFFIX.length);
+        return topic;
+    }
+
+    private void wakeup() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            try {
+                synchronized (wakeupByte) {
+                    wakeupByte.clear();
+                    wakeupPipe.sink().write(wakeupByte);
+                }
+            } catch (IOException e) {
+                // O listener confere hasPending() a cada volta, então aplica no próximo timeout do poll
+                wakeupPending.set(false);
+            }
+        }
+    }
+
+    private void drainWakeup() {
+        wakeupPending.set(false);
+        try {
+            drainBuffer.clear();
+            while (wakeupPipe.source().read(drainBuffer) > 0) {
+                drainBuffer.clear();
+            }
+        } catch (IOException e) {
+            System.err.println("Error draining subscription wakeup: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            wakeupPipe.sink().close();
+            wakeupPipe.source().close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static final class Change {
+        final byte[] topic;
+        final boolean subscribe;
+
+        Change(byte[] topic, boolean subscribe) {
+            this.topic = topic;
+            this.subscribe = subscribe;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// LINHA DO TEMPO LOCAL - posts ordenados por (created_at, id) e sem duplicatas por id.
+// Pode receber posts do listener e das páginas do server ao mesmo tempo.
+// Os posts ficam num PostStore (fora do heap, com os limites dele); newestBefore devolve cópias
+// só da página pedida, e quem só exibe pode ler as visões direto de getStore().
+// Uma ressincronização completa monta um store novo (beginRebuild) e só o troca pelo atual
+// quando todas as páginas chegaram (finishRebuild); se falhar, a linha do tempo fica como estava.
+public class Timeline {
+    private static final int SEGMENT_BYTES = 1024 * 1024;
+
+    private volatile PostStore posts;
+    // Store em reconstrução: até a troca, os posts de add() entram nele também
+    private PostStore rebuilding;
+    // Avisado uma vez por post novo (ex.: índice de busca)
+    private volatile Consumer<JSONObject> listener;
+
+    public Timeline() {
+        this(new PostStore(SEGMENT_BYTES, 0, 0, 0));
+    }
+
+    public Timeline(PostStore posts) {
+        this.posts = posts;
+    }
+
+    public void setListener(Consumer<JSONObject> listener) {
+        this.listener = listener;
+    }
+
+    // Devolve false se o post já estava na linha do tempo
+    public boolean add(JSONObject post) {
+        synchronized (this) {
+            if (rebuilding != null) {
+                rebuilding.add(post);
+            }
+            if (!posts.add(post)) {
+                return false;
+            }
+        }
+        Consumer<JSONObject> current = listener;
+        if (current != null) {
+            current.accept(post);
+        }
+        return true;
+    }
+
+    public boolean contains(String postId) {
+        return posts.contains(postId);
+    }
+
+    // null quando o post não está (ou não está mais) na linha do tempo
+    public PostView get(String postId) {
+        return posts.get(postId);
+    }
+
+    public int size() {
+        return posts.size();
+    }
+
+    public PostCursor newest() {
+        List<PostView> last = posts.newestBefore(null, 1);
+        return last.isEmpty() ? null : last.get(0).cursor();
+    }
+
+    public void clear() {
+        posts.clear();
+    }
+
+    // Store vazio, com os mesmos limites, para as páginas de uma ressincronização completa
+    public synchronized PostStore beginRebuild() {
+        rebuilding = posts.emptyCopy();
+        return rebuilding;
+    }
+
+    // Troca o conteúdo pelo store reconstruído. O listener só é avisado dos posts que não
+    // estavam na linha do tempo; devolve quantos eram
+    public int finishRebuild(PostStore rebuilt) {
+        List<PostView> added = new ArrayList<>();
+        synchronized (this) {
+            PostStore previous = posts;
+            rebuilt.forEach(view -> {
+                if (!previous.contains(view.getId())) {
+                    added.add(view);
+                }
+            });
+            posts = rebuilt;
+            rebuilding = null;
+        }
+        Consumer<JSONObject> current = listener;
+        if (current != null) {
+            for (PostView view : added) {
+                current.accept(view.toJSON());
+            }
+        }
+        return added.size();
+    }
+
+    // Ressincronização que falhou: o store reconstruído é descartado
+    public synchronized void abortRebuild() {
+        rebuilding = null;
+    }
+
+    public PostStore getStore() {
+        return posts;
+    }
+
+    // Até "limit" posts mais antigos que o cursor (null = a partir do mais recente), do mais novo para o mais velho
+    public List<JSONObject> newestBefore(PostCursor before, int limit) {
+        List<PostView> views = posts.newestBefore(before, limit);
+        List<JSONObject> page = new ArrayList<>(views.size());
+        for (PostView view : views) {
+            page.add(view.toJSON());
+        }
+        return page;
+    }
+}
@@ -0,0 +1,180 @@
+import org.json.JSONObject;
+
+import java.util.function.Consumer;
+
+// SINCRONIZAÇÃO INCREMENTAL DA LINHA DO TEMPO
+// Guarda uma marca d'água (created_at + id do post mais novo já trazido do server) e
+// pede só o que veio depois dela, em páginas crescentes. A replicação entre servers
+// pode entregar posts com created_at um pouco anterior à marca, então cada sincronização
+// relê uma janela de sobreposição e as duplicatas são descartadas pela Timeline.
+// Se a marca estiver velha demais, ou se houver páginas demais para alcançar o server,
+// é feita uma ressincronização completa, montada à parte e trocada só se todas as páginas chegarem.
+public class TimelineSync {
+
+    public interface PageFetcher {
+        PostPage fetch(int limit, PostCursor before, PostCursor after, Consumer<JSONObject> sink);
+    }
+
+    public static final class Result {
+        public final boolean full;
+        public final int pages;
+        public final int received;
+        public final int added;
+        public final boolean success;
+
+        Result(boolean full, int pages, int received, int added, boolean success) {
+            this.full = full;
+            this.pages = pages;
+            this.received = received;
+            this.added = added;
+            this.success = success;
+        }
+
+        @Override
+        public String toString() {
+            return (full ? "full resync" : "incremental") + ": " + added + " new posts, " + received
+                    + " received in " + pages + " page(s)" + (success ? "" : " (FAILED)");
+        }
+    }
+
+    private final Timeline timeline;
+    private final PageFetcher fetcher;
+    private final int pageSize;
+    private final int maxIncrementalPages;
+    private final long maxMarkAgeMillis;
+    private final long overlapMillis;
+
+    // Marca d'água: só avança com posts vindos do server, nunca com notificações
+    private PostCursor highWaterMark;
+    private long lastSyncMillis;
+
+    public TimelineSync(Timeline timeline, PageFetcher fetcher, int pageSize, int maxIncrementalPages,
+            long maxMarkAgeMillis, long overlapMillis) {
+        this.timeline = timeline;
+        this.fetcher = fetcher;
+        this.pageSize = pageSize;
+        this.maxIncrementalPages = maxIncrementalPages;
+        this.maxMarkAgeMillis = maxMarkAgeMillis;
+        this.overlapMillis = overlapMillis;
+    }
+
+    public synchronized PostCursor getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public synchronized long getLastSyncMillis() {
+        return lastSyncMillis;
+    }
+
+    // Retoma de um checkpoint (cache local): a próxima sincronização só pede o que veio
+    // depois da marca, a não ser que ela já esteja velha demais
+    public synchronized void restore(PostCursor mark, long syncedAtMillis) {
+        if (highWaterMark == null) {
+            highWaterMark = mark;
+            lastSyncMillis = syncedAtMillis;
+        }
+    }
+
+    public synchronized Result sync() {
+        long now = System.currentTimeMillis();
+        if (highWaterMark == null || now - lastSyncMillis > maxMarkAgeMillis) {
+            return fullResync();
+        }
+
+        // Recua a marca pela janela de sobreposição; o id vazio pega todos os posts daquele instante
+        PostCursor cursor = new PostCursor(highWaterMark.createdAt - overlapMillis, "");
+        Collector collector = new Collector(highWaterMark);
+        int pages = 0;
+        int received = 0;
+        while (true) {
+            if (pages == maxIncrementalPages) {
+                // Atrasado demais: mais barato reconstruir do que seguir página a página
+                Result full = fullResync();
+                return new Result(true, pages + full.pages, received + full.received, collector.added + full.added,
+                        full.success);
+            }
+            PostPage page = fetcher.fetch(pageSize, null, cursor, collector);
+            pages++;
+            if (!page.isSuccess()) {
+                return new Result(false, pages, received, collector.added, false);
+            }
+            received += page.count;
+            cursor = page.nextCursor();
+            if (!page.hasMore() || cursor == null) {
+                break;
+            }
+        }
+        highWaterMark = collector.newest;
+        lastSyncMillis = now;
+        return new Result(false, pages, received, collector.added, true);
+    }
+
+    // Refaz a linha do tempo do zero, do post mais recente para o mais antigo, num store à
+    // parte; a Timeline só é trocada depois da última página
+    public synchronized Result fullResync() {
+        long now = System.currentTimeMillis();
+        PostStore rebuilt = timeline.beginRebuild();
+        boolean swapped = false;
+        try {
+            Collector collector = new Collector(null, rebuilt);
+            PostCursor cursor = null;
+            int pages = 0;
+            int received = 0;
+            while (true) {
+                PostPage page = fetcher.fetch(pageSize, cursor, null, collector);
+                pages++;
+                if (!page.isSuccess()) {
+                    return new Result(true, pages, received, 0, false);
+                }
+                received += page.count;
+                cursor = page.nextCursor();
+                // Com o store cheio, as páginas seguintes (mais velhas) seriam descartadas
+                if (!page.hasMore() || cursor == null || collector.full) {
+                    break;
+                }
+            }
+            int added = timeline.finishRebuild(rebuilt);
+            swapped = true;
+            highWaterMark = collector.newest;
+            lastSyncMillis = now;
+            return new Result(true, pages, received, added, true);
+        } finally {
+            if (!swapped) {
+                timeline.abortRebuild();
+            }
+        }
+    }
+
+    // Junta cada post na Timeline (ou no store em reconstrução) e acompanha o mais novo visto vindo do server
+    private final class Collector implements Consumer<JSONObject> {
+        private final PostStore rebuilt;
+        int added;
+        PostCursor newest;
+        // Reconstrução: o store chegou aos limites e não aceita posts mais velhos
+        boolean full;
+
+        Collector(PostCursor newest) {
+            this(newest, null);
+        }
+
+        Collector(PostCursor newest, PostStore rebuilt) {
+            this.newest = newest;
+            this.rebuilt = rebuilt;
+        }
+
+        @Override
+        public void accept(JSONObject post) {
+            if (rebuilt != null && (full || !rebuilt.accepts(post))) {
+                // As páginas vêm do mais novo para o mais velho; descartar pelo segmento mais
+                // antigo (na ordem de chegada) tiraria justamente os mais novos
+                full = true;
+            } else if (rebuilt != null ? rebuilt.add(post) : timeline.add(post)) {
+                added++;
+            }
+            PostCursor key = PostCursor.of(post);
+            if (newest == null || key.compareTo(newest) > 0) {
+                newest = key;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// CONJUNTO DE TÓPICOS EM BYTES
+// Usado pelo listener para saber se o autor de um frame é seguido sem converter o
+// tópico em String. Leitura sem lock (tabela imutável publicada por volatile);
+// escritas copiam a tabela, então inclusões em massa devem usar addAll.
+public class TopicSet {
+    private static final byte[][] EMPTY = new byte[16][];
+
+    private volatile byte[][] table = EMPTY;
+    private volatile int size;
+
+    public boolean add(String userId) {
+        return addAll(Collections.singletonList(userId)) > 0;
+    }
+
+    public synchronized int addAll(Collection<String> userIds) {
+        byte[][] current = table;
+        byte[][] next = new byte[tableSizeFor(size + userIds.size())][];
+        for (byte[] key : current) {
+            if (key != null) {
+                insert(next, key);
+            }
+        }
+        int added = 0;
+        for (String userId : userIds) {
+            if (insert(next, userId.getBytes(StandardCharsets.UTF_8))) {
+                added++;
+            }
+        }
+        table = next;
+        size += added;
+        return added;
+    }
+
+    public boolean remove(String userId) {
+        return removeAll(Collections.singletonList(userId)) > 0;
+    }
+
+    // Uma única cópia da tabela para o lote inteiro
+    public synchronized int removeAll(Collection<String> userIds) {
+        List<String> present = new ArrayList<>();
+        for (String userId : userIds) {
+            if (contains(userId)) {
+                present.add(userId);
+            }
+        }
+        TopicSet removed = new TopicSet();
+        removed.addAll(present);
+        if (removed.size() == 0) {
+            return 0;
+        }
+        byte[][] current = table;
+        byte[][] next = new byte[tableSizeFor(size - removed.size())][];
+        for (byte[] key : current) {
+            if (key != null && !removed.contains(key, 0, key.length)) {
+                insert(next, key);
+            }
+        }
+        table = next;
+        size -= removed.size();
+        return removed.size();
+    }
+
+    public boolean contains(String userId) {
+        byte[] bytes = userId.getBytes(StandardCharsets.UTF_8);
+        return contains(bytes, 0, bytes.length);
+    }
+
+    public boolean contains(byte[] buffer, int offset, int length) {
+        byte[][] keys = table;
+        int mask = keys.length - 1;
+        int slot = hash(buffer, offset, length) & mask;
+        while (true) {
+            byte[] key = keys[slot];
+            if (key == null) {
+                return false;
+            }
+            if (equals(key, buffer, offset, length)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static boolean insert(byte[][] keys, byte[] key) {
+        int mask = keys.length - 1;
+        int slot = hash(key, 0, key.length) & mask;
+        while (keys[slot] != null) {
+            if (equals(keys[slot], key, 0, key.length)) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        return true;
+    }
+
+    // Fator de carga máximo de 50%
+    private static int tableSizeFor(int entries) {
+        int capacity = 16;
+        while (capacity < entries * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    // FNV-1a
+    static int hash(byte[] buffer, int offset, int length) {
+        int h = 0x811C9DC5;
+        for (int i = offset; i < offset + length; i++) {
+            h ^= buffer[i] & 0xFF;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    static boolean equals(byte[] key, byte[] buffer, int offset, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (key[i] != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,133 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// GRAVAÇÃO DE TRÁFEGO (captura) para reproduzir regressões com o TraceReplayer
+// Arquivo binário só de acréscimo, escrito por mapeamento de memória em blocos de
+// "chunkBytes": cada registro é um put no buffer mapeado, sem syscall por frame.
+//   cabeçalho: magic "SNTR" (int), versão (short), início em epoch millis (long)
+//   registro:  tipo (byte), nanos desde o início (long), tamanho A (int), A,
+//              tamanho B (int, -1 = ausente), B
+// Tipos: FRAME (A = frame do SUB, B = corpo no modo multipart), REQUEST e REPLY
+// (A = request_id, B = payload no fio). Bytes zerados depois do último registro marcam o fim,
+// e no close o arquivo é truncado no tamanho escrito.
+// Thread-safe: listener e threads de I/O dos motores gravam no mesmo arquivo.
+public class TraceRecorder implements AutoCloseable {
+    static final int MAGIC = 0x534E5452;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 4 + 2 + 8;
+    static final byte FRAME = 1;
+    static final byte REQUEST = 2;
+    static final byte REPLY = 3;
+    private static final int RECORD_OVERHEAD = 1 + 8 + 4 + 4;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int chunkBytes;
+    private final long startNanos;
+    private MappedByteBuffer buffer;
+    // Posição no arquivo do início do buffer mapeado
+    private long mappedStart;
+    private long records;
+    private boolean closed;
+    private long closedSize;
+
+    public TraceRecorder(Path file, int chunkBytes) throws IOException {
+        this.file = file;
+        this.chunkBytes = Math.max(64 * 1024, chunkBytes);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.startNanos = System.nanoTime();
+        map(0, this.chunkBytes);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putLong(System.currentTimeMillis());
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized long getRecordCount() {
+        return records;
+    }
+
+    public synchronized long getBytesWritten() {
+        return closed ? closedSize : mappedStart + buffer.position();
+    }
+
+    // body é null no modo de frame único
+    public void recordFrame(byte[] frame, byte[] body) {
+        append(FRAME, frame, body);
+    }
+
+    public void recordRequest(String requestId, byte[] payload) {
+        append(REQUEST, requestId.getBytes(StandardCharsets.UTF_8), payload);
+    }
+
+    public void recordReply(String requestId, byte[] payload) {
+        append(REPLY, requestId.getBytes(StandardCharsets.UTF_8), payload);
+    }
+
+    private synchronized void append(byte kind, byte[] first, byte[] second) {
+        if (closed) {
+            return;
+        }
+        long nanos = System.nanoTime() - startNanos;
+        int size = RECORD_OVERHEAD + first.length + (second != null ? second.length : 0);
+        try {
+            if (buffer.remaining() < size) {
+                map(mappedStart + buffer.position(), Math.max(chunkBytes, size));
+            }
+        } catch (IOException e) {
+            // Sem espaço para mapear: a captura para, o cliente segue normalmente
+            System.err.println("Trace capture stopped: " + e.getMessage());
+            closeQuietly();
+            return;
+        }
+        buffer.put(kind);
+        buffer.putLong(nanos);
+        buffer.putInt(first.length);
+        buffer.put(first);
+        if (second != null) {
+            buffer.putInt(second.length);
+            buffer.put(second);
+        } else {
+            buffer.putInt(-1);
+        }
+        records++;
+    }
+
+    private void map(long position, int size) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        mappedStart = position;
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    // Descarta a área mapeada e não escrita; o mapeamento é liberado pelo GC
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closedSize = mappedStart + buffer.position();
+        buffer.force();
+        buffer = null;
+        try {
+            channel.truncate(closedSize);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,286 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.zeromq.ZContext;
+
+// REPRODUÇÃO DE UMA CAPTURA (TraceRecorder)
+// Lê o trace em sequência e entrega cada registro a um Target. Com speed 1 os intervalos
+// originais entre registros são mantidos, com 2 tudo anda no dobro da velocidade e com 0
+// vai o mais rápido possível. Da captura também saem as latências originais de cada par
+// requisição/resposta. O main entrega a captura a um Client de verdade (Client.replayTarget):
+// os frames passam pelo pipeline e pelos handlers de notificação do cliente, e as respostas
+// de páginas e de get_all_posts pelo mesmo tratamento das operações (as demais só são
+// decodificadas). Imprime vazão e latências, para comparar execuções sobre a mesma captura.
+public class TraceReplayer {
+
+    public interface Target {
+        void frame(byte[] frame, byte[] body);
+
+        void request(String requestId, byte[] payload);
+
+        void reply(String requestId, byte[] payload);
+    }
+
+    public static final class Result {
+        public long frames;
+        public long requests;
+        public long replies;
+        public long elapsedNanos;
+        // Duração da captura, do primeiro ao último registro
+        public long traceNanos;
+        // Requisição -> resposta como foi capturado (primeiro envio até a resposta)
+        public final LatencyHistogram recordedLatency = new LatencyHistogram();
+
+        @Override
+        public String toString() {
+            long records = frames + requests + replies;
+            return frames + " frames, " + requests + " requests, " + replies + " replies in "
+                    + elapsedNanos / 1_000_000 + "ms (captured over " + traceNanos / 1_000_000 + "ms, "
+                    + (elapsedNanos > 0 ? records * 1_000_000_000L / elapsedNanos : 0) + " records/s)";
+        }
+    }
+
+    // Dono da captura (tópico "<user>:PM:") e autores dos posts recebidos
+    public static final class Topics {
+        public String owner;
+        public final Set<String> authors = new LinkedHashSet<>();
+    }
+
+    private final Path file;
+
+    public TraceReplayer(Path file) {
+        this.file = file;
+    }
+
+    public Result replay(double speed, Target target) throws IOException {
+        Result result = new Result();
+        Map<String, Long> requestNanos = new HashMap<>();
+        long startNanos = System.nanoTime();
+        long firstNanos = -1;
+        long lastNanos = 0;
+        try (DataInputStream in = open()) {
+            while (true) {
+                byte kind;
+                try {
+                    kind = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                // Bytes zerados: fim de uma captura que não foi fechada
+                if (kind == 0) {
+                    break;
+                }
+                long nanos = in.readLong();
+                byte[] first = readBlock(in);
+                byte[] second = readBlock(in);
+                if (firstNanos < 0) {
+                    firstNanos = nanos;
+                }
+                lastNanos = nanos;
+                if (speed > 0) {
+                    pace(startNanos + (long) ((nanos - firstNanos) / speed));
+                }
+                switch (kind) {
+                    case TraceRecorder.FRAME:
+                        result.frames++;
+                        target.frame(first, second);
+                        break;
+                    case TraceRecorder.REQUEST: {
+                        String requestId = new String(first, StandardCharsets.UTF_8);
+                        // Retentativas têm o mesmo request_id: vale o primeiro envio
+                        requestNanos.putIfAbsent(requestId, nanos);
+                        result.requests++;
+                        target.request(requestId, second);
+                        break;
+                    }
+                    case TraceRecorder.REPLY: {
+                        String requestId = new String(first, StandardCharsets.UTF_8);
+                        Long sent = requestNanos.remove(requestId);
+                        if (sent != null) {
+                            result.recordedLatency.record(nanos - sent);
+                        }
+                        result.replies++;
+                        target.reply(requestId, second);
+                        break;
+                    }
+                    default:
+                        throw new IOException("Unknown trace record type " + kind + " in " + file);
+                }
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - startNanos;
+        result.traceNanos = firstNanos < 0 ? 0 : lastNanos - firstNanos;
+        return result;
+    }
+
+    // Passada rápida só pelos tópicos dos frames
+    public Topics scanTopics() throws IOException {
+        Topics topics = new Topics();
+        replay(0, new Target() {
+            @Override
+            public void frame(byte[] frame, byte[] body) {
+                int separator = indexOf(frame, (byte) ':');
+                if (separator <= 0) {
+                    return;
+                }
+                String user = new String(frame, 0, separator, StandardCharsets.UTF_8);
+                if (frame.length >= separator + 4 && frame[separator + 1] == 'P' && frame[separator + 2] == 'M'
+                        && frame[separator + 3] == ':') {
+                    topics.owner = user;
+                } else {
+                    topics.authors.add(user);
+                }
+            }
+
+            @Override
+            public void request(String requestId, byte[] payload) {
+            }
+
+            @Override
+            public void reply(String requestId, byte[] payload) {
+            }
+        });
+        return topics;
+    }
+
+    private DataInputStream open() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try {
+            if (in.readInt() != TraceRecorder.MAGIC) {
+                throw new IOException(file + " is not a trace file");
+            }
+            short version = in.readShort();
+            if (version != TraceRecorder.VERSION) {
+                throw new IOException("Unsupported trace version " + version + " in " + file);
+            }
+            in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return in;
+    }
+
+    private static byte[] readBlock(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] block = new byte[length];
+        in.readFully(block);
+        return block;
+    }
+
+    private static void pace(long dueNanos) {
+        long wait;
+        while ((wait = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private static int indexOf(byte[] frame, byte value) {
+        for (int i = 0; i < frame.length; i++) {
+            if (frame[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // java TraceReplayer <trace> [speed (1 = ritmo original, 0 = o mais rápido possível)] [user]
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: TraceReplayer <trace file> [speed] [user id]");
+            return;
+        }
+        TraceReplayer replayer = new TraceReplayer(Paths.get(args[0]));
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        Topics topics = replayer.scanTopics();
+        String userId = args.length > 2 ? args[2] : topics.owner != null ? topics.owner : "replay";
+
+        // Um Client de verdade, ligado a um cluster embutido em inproc:// só para subir; frames e
+        // respostas da captura entram pelos handlers dele (Client.replayTarget). Sem cache local
+        // nem captura, para não misturar a reprodução com os arquivos da execução original
+        ZContext context = new ZContext();
+        EmbeddedCluster cluster = EmbeddedCluster.inproc(context, "replay", 1);
+        ClientConfig config = ClientConfig.fromProperties(new Properties());
+        config.brokerAddress = cluster.brokerAddress;
+        config.subAddress = cluster.subscriberAddress;
+        config.fastStart = false;
+        config.localCache = false;
+        config.traceCapture = false;
+        Client client = new Client(userId, config, context);
+        client.awaitReady(10_000);
+        // Todo autor recebido era seguido na captura: o proxy só entrega tópicos assinados
+        Target target = client.replayTarget(topics.authors);
+        NotificationPipeline pipeline = client.getNotificationPipeline();
+        ClientMetrics metrics = client.getMetrics();
+        long completedBefore = pipeline.getCompletedCount();
+
+        LatencyHistogram replyHandling = new LatencyHistogram();
+        AtomicLong replyErrors = new AtomicLong();
+        System.out.println("Replaying " + args[0] + " as user " + userId + " (following " + topics.authors.size()
+                + " authors) at " + (speed > 0 ? speed + "x" : "full speed"));
+        long replayStart = System.nanoTime();
+        Result result = replayer.replay(speed, new Target() {
+            @Override
+            public void frame(byte[] frame, byte[] body) {
+                target.frame(frame, body);
+            }
+
+            @Override
+            public void request(String requestId, byte[] payload) {
+                target.request(requestId, payload);
+            }
+
+            @Override
+            public void reply(String requestId, byte[] payload) {
+                long start = System.nanoTime();
+                try {
+                    target.reply(requestId, payload);
+                } catch (Exception e) {
+                    replyErrors.incrementAndGet();
+                }
+                replyHandling.record(System.nanoTime() - start);
+            }
+        });
+
+        // Espera cada frame sair do pipeline: entregue, ignorado pelo filtro ou descartado
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (pipeline.getCompletedCount() - completedBefore < result.frames && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        long drainedNanos = System.nanoTime();
+
+        System.out.println("Replayed " + result);
+        System.out.println("Processed " + (pipeline.getCompletedCount() - completedBefore) + " frames: "
+                + client.getReceivedPosts().size() + " posts, " + client.getMessageStore().getReceivedCount()
+                + " private messages, " + metrics.getDuplicatesSuppressed() + " duplicates, "
+                + (pipeline.getDecodeDrops() + pipeline.getSinkDrops()) + " dropped; timeline "
+                + client.getTimeline().size() + " posts");
+        System.out.println("Captured request latency (us): " + describe(result.recordedLatency));
+        System.out.println("Reply handling (us): " + describe(replyHandling) + ", " + replyErrors.get() + " errors");
+        System.out.println("Metrics: " + metrics.snapshot());
+        System.out.println("Pipeline drained " + (drainedNanos - replayStart) / 1_000_000 + "ms after start");
+        client.close();
+        cluster.close();
+        context.close();
+    }
+
+    private static String describe(LatencyHistogram histogram) {
+        return histogram.getCount() + " samples, p50 " + histogram.getPercentile(50) / 1000 + ", p99 "
+                + histogram.getPercentile(99) / 1000 + ", max " + histogram.getMax() / 1000;
+    }
+}
@@ -0,0 +1,40 @@
+import org.json.JSONObject;
+
+// CODIFICAÇÃO DAS MENSAGENS NO FIO
+// O JSON continua sendo o padrão; o binário (BinaryCodec) é combinado por conexão com
+// a requisição negotiate_codec. Todo frame binário começa com um byte mágico que nunca
+// inicia um JSON, então quem recebe descobre a codificação pelo primeiro byte.
+public interface WireCodec {
+
+    WireCodec JSON = new JsonCodec();
+    WireCodec BINARY = new BinaryCodec();
+
+    String name();
+
+    byte[] encode(JSONObject message);
+
+    JSONObject decode(byte[] frame, int offset, int length);
+
+    default JSONObject decode(byte[] frame) {
+        return decode(frame, 0, frame.length);
+    }
+
+    static WireCodec forName(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "json":
+                return JSON;
+            case "binary":
+                return BINARY;
+            default:
+                throw new IllegalArgumentException("Unknown wire codec: " + name);
+        }
+    }
+
+    static WireCodec detect(byte[] frame, int offset) {
+        return BinaryCodec.isBinary(frame, offset) ? BINARY : JSON;
+    }
+
+    static JSONObject decodeAny(byte[] frame) {
+        return detect(frame, 0).decode(frame);
+    }
+}
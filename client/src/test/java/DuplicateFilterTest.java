@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// SUPRESSÃO DE DUPLICADAS - janela exata, rotação das gerações do Bloom e taxa de falsos positivos
+public class DuplicateFilterTest {
+
+    @Test
+    public void repeatsInsideTheWindowAreDuplicates() {
+        DuplicateFilter filter = new DuplicateFilter(4, 4096, 0.000001);
+        assertTrue(filter.firstSeen("a"));
+        assertTrue(filter.firstSeen("b"));
+        assertFalse(filter.firstSeen("a"));
+        assertFalse(filter.firstSeen("b"));
+        assertTrue(filter.firstSeen("c"));
+        assertEquals(5, filter.getChecked());
+        assertEquals(2, filter.getDuplicates());
+    }
+
+    @Test
+    public void identitiesLeavingTheWindowAreRememberedByTheBloom() {
+        DuplicateFilter filter = new DuplicateFilter(2, 4096, 0.000001);
+        assertTrue(filter.firstSeen("old"));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(filter.firstSeen("post-" + i));
+        }
+        assertFalse(filter.firstSeen("old"));
+    }
+
+    @Test
+    public void oldestGenerationIsForgottenAfterTwoRotations() {
+        DuplicateFilter filter = new DuplicateFilter(1, 4096, 0.000001);
+        int capacity = filter.getGenerationCapacity();
+        assertTrue(filter.firstSeen("old"));
+
+        // Com janela de 1, cada identidade nova manda a anterior para o Bloom
+        int next = 0;
+        while (next < capacity + 10) {
+            assertTrue(filter.firstSeen("post-" + next++));
+        }
+        // A geração de "old" virou a anterior, mas ainda é consultada
+        assertFalse(filter.firstSeen("old"));
+
+        while (next < 2 * capacity + 10) {
+            assertTrue(filter.firstSeen("post-" + next++));
+        }
+        assertTrue(filter.firstSeen("old"));
+    }
+
+    @Test
+    public void falsePositiveRateStaysNearTheConfiguredValue() {
+        double rate = 0.01;
+        DuplicateFilter filter = new DuplicateFilter(1, 64 * 1024, rate);
+        int fresh = 10 * filter.getGenerationCapacity();
+        for (int i = 0; i < fresh; i++) {
+            filter.firstSeen("user-" + (i % 97) + ":post-" + i);
+        }
+
+        // Duas gerações: no máximo o dobro da taxa configurada, e não muito abaixo dela
+        double measured = (double) filter.getDuplicates() / fresh;
+        assertTrue(measured <= 2 * rate, "false positive rate " + measured);
+        assertTrue(measured >= rate / 2, "false positive rate " + measured);
+    }
+}
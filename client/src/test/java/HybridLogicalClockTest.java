@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// RELÓGIO LÓGICO HÍBRIDO - nunca anda para trás, nem com CAS concorrente nem com ajuste manual
+public class HybridLogicalClockTest {
+
+    @Test
+    public void tickIncrementsLogicalWhilePhysicalStands() {
+        AtomicLong physical = new AtomicLong(1000);
+        HybridLogicalClock clock = new HybridLogicalClock(physical::get);
+
+        long first = clock.tick();
+        long second = clock.tick();
+        assertEquals(1000, HybridLogicalClock.millis(second));
+        assertEquals(HybridLogicalClock.logical(first) + 1, HybridLogicalClock.logical(second));
+
+        physical.set(1005);
+        long third = clock.tick();
+        assertEquals(HybridLogicalClock.pack(1005, 0), third);
+    }
+
+    @Test
+    public void mergeMovesPastRemoteAndLocal() {
+        AtomicLong physical = new AtomicLong(1000);
+        HybridLogicalClock clock = new HybridLogicalClock(physical::get);
+
+        assertEquals(HybridLogicalClock.pack(2000, 1), clock.merge(2000));
+        // Remoto atrasado: continua à frente do próprio relógio
+        assertEquals(HybridLogicalClock.pack(2000, 2), clock.merge(1500));
+    }
+
+    @Test
+    public void fullLogicalCounterRollsIntoNextMillisecond() {
+        HybridLogicalClock clock = new HybridLogicalClock(() -> 1000);
+        long last = clock.current();
+        for (int i = 0; i <= HybridLogicalClock.LOGICAL_MASK; i++) {
+            long next = clock.tick();
+            assertTrue(next > last);
+            last = next;
+        }
+        assertEquals(1001, HybridLogicalClock.millis(last));
+    }
+
+    @Test
+    public void negativeAdjustNeverMovesTheClockBack() {
+        AtomicLong physical = new AtomicLong(10_000);
+        HybridLogicalClock clock = new HybridLogicalClock(physical::get);
+        long before = clock.tick();
+
+        long adjusted = clock.adjust(-1);
+        assertTrue(adjusted > before);
+        long heldBack = clock.adjust(-5000);
+        assertTrue(heldBack > adjusted);
+        assertEquals(10_000, HybridLogicalClock.millis(heldBack));
+
+        // O físico ajustado só passa a valer quando alcança o valor atual
+        physical.set(14_000);
+        assertTrue(clock.tick() > heldBack);
+        assertEquals(10_000, clock.currentMillis());
+        physical.set(15_002);
+        assertEquals(HybridLogicalClock.pack(10_001, 0), clock.tick());
+    }
+
+    @Test
+    public void concurrentTicksAndMergesAreUniqueAndMonotonic() throws InterruptedException {
+        AtomicLong physical = new AtomicLong(1000);
+        HybridLogicalClock clock = new HybridLogicalClock(physical::get);
+        int threads = 4;
+        int operations = 20_000;
+        List<long[]> results = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long[] values = new long[operations];
+            results.add(values);
+            int worker = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < operations; i++) {
+                    if (worker == 0 && i % 1000 == 0) {
+                        physical.addAndGet(1);
+                    }
+                    values[i] = i % 3 == 0 ? clock.merge(1000 + i / 100) : clock.tick();
+                }
+            });
+            workers.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+
+        Set<Long> all = new HashSet<>();
+        for (long[] values : results) {
+            for (int i = 0; i < values.length; i++) {
+                assertTrue(i == 0 || values[i] > values[i - 1], "went backwards at " + i);
+                all.add(values[i]);
+            }
+        }
+        assertEquals(threads * operations, all.size());
+    }
+}
@@ -0,0 +1,145 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// RECUPERAÇÃO DO CACHE LOCAL - caudas rasgadas, CRC e segmentos não fechados
+public class LocalCacheTest {
+    private static final int SEGMENT_BYTES = 64 * 1024;
+    private static final int RECORD_OVERHEAD = 4 + 4 + 1;
+
+    @TempDir
+    Path directory;
+
+    private static JSONObject post(int i) {
+        return new JSONObject().put("id", "post-" + i).put("content", "content " + i);
+    }
+
+    private static int recordBytes(JSONObject item) {
+        return RECORD_OVERHEAD + item.toString().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // Primeira execução: grava os posts e fecha (o segmento é cortado no que foi escrito)
+    private Path writeSegment(int posts) throws IOException {
+        try (LocalCache cache = new LocalCache(directory, SEGMENT_BYTES, 0)) {
+            for (int i = 0; i < posts; i++) {
+                cache.append(LocalCache.RECEIVED_POST, post(i));
+            }
+        }
+        return directory.resolve("segment-00000001.log");
+    }
+
+    private LocalCache.Recovery recover(List<JSONObject> items) throws IOException {
+        try (LocalCache cache = new LocalCache(directory, SEGMENT_BYTES, 0)) {
+            return cache.recover((kind, item) -> items.add(item));
+        }
+    }
+
+    @Test
+    public void recordCutMidWayIsTruncated() throws IOException {
+        Path segment = writeSegment(3);
+        long full = Files.size(segment);
+        try (FileChannel out = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            out.truncate(full - 3);
+        }
+
+        List<JSONObject> items = new ArrayList<>();
+        LocalCache.Recovery recovery = recover(items);
+
+        assertEquals(2, recovery.records);
+        assertEquals(1, recovery.tornSegments);
+        assertEquals(recordBytes(post(2)) - 3, recovery.truncatedBytes);
+        assertEquals(recordBytes(post(0)) + recordBytes(post(1)), Files.size(segment));
+        assertEquals("post-1", items.get(1).getString("id"));
+    }
+
+    @Test
+    public void corruptedPayloadStopsRecoveryAtThatRecord() throws IOException {
+        Path segment = writeSegment(3);
+        long full = Files.size(segment);
+        // Um byte do payload do segundo registro
+        long position = recordBytes(post(0)) + RECORD_OVERHEAD + 2;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.flip();
+            byte flipped = (byte) (one.get() ^ 0x01);
+            channel.write(ByteBuffer.wrap(new byte[] {flipped}), position);
+        }
+
+        List<JSONObject> items = new ArrayList<>();
+        LocalCache.Recovery recovery = recover(items);
+
+        assertEquals(1, recovery.records);
+        assertEquals(1, recovery.tornSegments);
+        assertEquals(full - recordBytes(post(0)), recovery.truncatedBytes);
+        assertEquals(recordBytes(post(0)), Files.size(segment));
+        assertEquals("post-0", items.get(0).getString("id"));
+    }
+
+    @Test
+    public void zeroTailOfUnclosedRunIsNotTorn() throws IOException {
+        // Execução que caiu sem fechar: o segmento fica no tamanho mapeado, com zeros no fim
+        LocalCache crashed = new LocalCache(directory, SEGMENT_BYTES, 0);
+        for (int i = 0; i < 3; i++) {
+            crashed.append(LocalCache.RECEIVED_POST, post(i));
+        }
+        Path segment = directory.resolve("segment-00000001.log");
+        assertEquals(SEGMENT_BYTES, Files.size(segment));
+
+        List<JSONObject> items = new ArrayList<>();
+        LocalCache.Recovery recovery = recover(items);
+
+        assertEquals(3, recovery.records);
+        assertEquals(0, recovery.tornSegments);
+        assertEquals(0, recovery.truncatedBytes);
+        assertEquals(recordBytes(post(0)) + recordBytes(post(1)) + recordBytes(post(2)), Files.size(segment));
+    }
+
+    @Test
+    public void segmentWithoutRecordsIsDeleted() throws IOException {
+        writeSegment(0);
+        Path segment = directory.resolve("segment-00000001.log");
+
+        LocalCache.Recovery recovery = recover(new ArrayList<>());
+
+        assertEquals(1, recovery.segments);
+        assertEquals(0, recovery.records);
+        assertEquals(0, recovery.tornSegments);
+        assertFalse(Files.exists(segment));
+    }
+
+    @Test
+    public void oldestSegmentsOverMaxBytesAreSkipped() throws IOException {
+        // Três execuções fechadas, um segmento cada
+        for (int run = 0; run < 3; run++) {
+            try (LocalCache cache = new LocalCache(directory, SEGMENT_BYTES, 0)) {
+                cache.append(LocalCache.RECEIVED_POST, post(run));
+            }
+        }
+        // O segmento atual conta como SEGMENT_BYTES: só cabe o mais novo dos anteriores
+        long limit = SEGMENT_BYTES + recordBytes(post(2));
+        List<JSONObject> items = new ArrayList<>();
+        LocalCache.Recovery recovery;
+        try (LocalCache cache = new LocalCache(directory, SEGMENT_BYTES, limit)) {
+            recovery = cache.recover((kind, item) -> items.add(item));
+        }
+
+        assertEquals(1, recovery.records);
+        assertEquals("post-2", items.get(0).getString("id"));
+        assertFalse(Files.exists(directory.resolve("segment-00000001.log")));
+        assertFalse(Files.exists(directory.resolve("segment-00000002.log")));
+    }
+}
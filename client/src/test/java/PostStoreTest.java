@@ -0,0 +1,115 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// POST STORE - ordem, duplicatas, paginação por cursor e limites de descarte
+public class PostStoreTest {
+    private static final int SEGMENT_BYTES = 64 * 1024;
+
+    private static JSONObject post(String id, long createdAt) {
+        return new JSONObject().put("id", id).put("user_id", "alice").put("server_id", "1")
+                .put("content", "content of " + id).put("created_at", createdAt);
+    }
+
+    private static List<String> ids(List<PostView> views) {
+        List<String> ids = new ArrayList<>();
+        for (PostView view : views) {
+            ids.add(view.getId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void outOfOrderPostsAreKeptByCreatedAtThenId() {
+        PostStore store = new PostStore(SEGMENT_BYTES, 0, 0, 0);
+        store.add(post("c", 300));
+        store.add(post("a", 100));
+        store.add(post("b2", 200));
+        store.add(post("b1", 200));
+
+        assertEquals(List.of("c", "b2", "b1", "a"), ids(store.newestBefore(null, 10)));
+        PostView view = store.get("b1");
+        assertEquals("content of b1", view.getContent());
+        assertEquals("alice", view.getUserId());
+        assertEquals("1", view.getServerId());
+        assertEquals(200, view.getCreatedAt());
+    }
+
+    @Test
+    public void duplicatesAreRejectedUntilEvicted() {
+        PostStore store = new PostStore(SEGMENT_BYTES, 10, 0, 0);
+        assertTrue(store.add(post("p0", 0)));
+        assertFalse(store.add(post("p0", 0)));
+        for (int i = 1; i <= 20; i++) {
+            store.add(post("p" + i, i));
+        }
+        assertNull(store.get("p0"));
+
+        // Depois de sair, o mesmo id volta como post novo, uma vez só
+        assertTrue(store.add(post("p0", 0)));
+        assertFalse(store.add(post("p0", 0)));
+        assertTrue(store.contains("p0"));
+    }
+
+    @Test
+    public void cursorPagingVisitsEveryPostOnce() {
+        PostStore store = new PostStore(SEGMENT_BYTES, 0, 0, 0);
+        for (int i = 0; i < 25; i++) {
+            // Dois posts por created_at: o cursor também desempata pelo id
+            store.add(post(String.format("p%02d", i), i / 2));
+        }
+
+        List<String> seen = new ArrayList<>();
+        PostCursor cursor = null;
+        List<PostView> page;
+        while (!(page = store.newestBefore(cursor, 10)).isEmpty()) {
+            seen.addAll(ids(page));
+            cursor = page.get(page.size() - 1).cursor();
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 24; i >= 0; i--) {
+            expected.add(String.format("p%02d", i));
+        }
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    public void countLimitHoldsInsideASingleSegment() {
+        int maxPosts = 128;
+        PostStore store = new PostStore(SEGMENT_BYTES, maxPosts, 0, 0);
+        for (int i = 0; i < 1000; i++) {
+            store.add(post("p" + i, i));
+            assertTrue(store.size() <= maxPosts, "size " + store.size() + " after " + (i + 1) + " posts");
+        }
+        // Tudo coube num segmento só; saem lotes de maxPosts/64 dos mais antigos
+        assertEquals(SEGMENT_BYTES, store.getAllocatedBytes());
+        assertTrue(store.size() >= maxPosts - maxPosts / 64);
+        assertEquals(1000 - store.size(), store.getEvictedCount());
+        assertEquals("p999", store.newestBefore(null, 1).get(0).getId());
+        assertNull(store.get("p0"));
+    }
+
+    @Test
+    public void countLimitDropsWholeSegmentsFirst() {
+        int maxPosts = 3000;
+        PostStore store = new PostStore(SEGMENT_BYTES, maxPosts, 0, 0);
+        for (int i = 0; i < 10_000; i++) {
+            store.add(post("p" + i, i));
+        }
+        assertTrue(store.size() <= maxPosts);
+        assertTrue(store.size() >= maxPosts - maxPosts / 64);
+        // Só os segmentos que ainda têm posts no store continuam alocados
+        assertTrue(store.getAllocatedBytes() <= 3L * SEGMENT_BYTES, "allocated " + store.getAllocatedBytes());
+        List<PostView> all = store.newestBefore(null, Integer.MAX_VALUE);
+        assertEquals(store.size(), all.size());
+        assertEquals("p9999", all.get(0).getId());
+    }
+}
@@ -0,0 +1,134 @@
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ÍNDICE DE BUSCA - filtros, frases, descarte por orçamento e posts lidos do PostStore
+public class SearchIndexTest {
+    private final PostStore store = new PostStore(64 * 1024, 0, 0, 0);
+    private final SearchIndex index = new SearchIndex(Long.MAX_VALUE, store::get);
+
+    private void post(String id, String author, String content, long createdAt) {
+        JSONObject post = new JSONObject().put("id", id).put("user_id", author).put("content", content)
+                .put("created_at", createdAt);
+        store.add(post);
+        index.addPost(post);
+    }
+
+    private static SearchIndex.Query query(String text) {
+        SearchIndex.Query query = new SearchIndex.Query();
+        query.text = text;
+        return query;
+    }
+
+    private static List<String> ids(List<SearchIndex.Hit> hits) {
+        List<String> ids = new ArrayList<>();
+        for (SearchIndex.Hit hit : hits) {
+            ids.add(hit.kind == SearchIndex.Kind.POST ? hit.post.getId() : hit.message.getString("id"));
+        }
+        return ids;
+    }
+
+    @Test
+    public void termsMatchAllWordsNewestFirst() {
+        post("1", "alice", "Ação rápida no servidor", 100);
+        post("2", "bob", "servidor lento hoje", 200);
+        post("3", "alice", "rapida demais", 300);
+
+        assertEquals(List.of("2", "1"), ids(index.search(query("servidor"))));
+        // Sem acentos e sem maiúsculas
+        assertEquals(List.of("3", "1"), ids(index.search(query("RAPIDA"))));
+        assertEquals(List.of("1"), ids(index.search(query("acao servidor"))));
+    }
+
+    @Test
+    public void phraseNeedsTheExactSequence() {
+        post("1", "alice", "the quick brown fox", 100);
+        post("2", "bob", "brown and quick fox", 200);
+
+        SearchIndex.Query phrase = query("quick brown");
+        phrase.phrase = true;
+        assertEquals(List.of("1"), ids(index.search(phrase)));
+        assertEquals(List.of("2", "1"), ids(index.search(query("quick brown"))));
+    }
+
+    @Test
+    public void authorTimeAndKindFilters() {
+        post("1", "alice", "hello", 100);
+        post("2", "bob", "hello", 200);
+        post("3", "alice", "hello", 300);
+        index.addMessage(new JSONObject().put("id", "m1").put("sender_id", "alice").put("content", "hello")
+                .put("created_at", 250));
+
+        SearchIndex.Query byAuthor = query("hello");
+        byAuthor.author = "alice";
+        assertEquals(List.of("3", "m1", "1"), ids(index.search(byAuthor)));
+
+        SearchIndex.Query inRange = query("hello");
+        inRange.from = 150;
+        inRange.to = 250;
+        assertEquals(List.of("m1", "2"), ids(index.search(inRange)));
+
+        SearchIndex.Query postsOnly = query("");
+        postsOnly.kind = SearchIndex.Kind.POST;
+        postsOnly.limit = 2;
+        assertEquals(List.of("3", "2"), ids(index.search(postsOnly)));
+    }
+
+    @Test
+    public void duplicatesAreIndexedOnce() {
+        post("1", "alice", "hello", 100);
+        index.addPost(new JSONObject().put("id", "1").put("user_id", "alice").put("content", "hello")
+                .put("created_at", 100));
+
+        assertEquals(1, index.getDocumentCount());
+        assertEquals(List.of("1"), ids(index.search(query("hello"))));
+    }
+
+    @Test
+    public void postsThatLeftTheStoreAreNotReturned() {
+        PostStore bounded = new PostStore(64 * 1024, 0, 0, 0);
+        SearchIndex resolving = new SearchIndex(Long.MAX_VALUE, id -> id.equals("2") ? null : bounded.get(id));
+        for (int i = 1; i <= 3; i++) {
+            JSONObject post = new JSONObject().put("id", String.valueOf(i)).put("user_id", "alice")
+                    .put("content", "hello " + i).put("created_at", i);
+            bounded.add(post);
+            resolving.addPost(post);
+        }
+
+        List<SearchIndex.Hit> hits = resolving.search(query("hello"));
+        assertEquals(List.of("3", "1"), ids(hits));
+        assertEquals("hello 3", hits.get(0).post.getContent());
+    }
+
+    @Test
+    public void oldestSegmentsAreEvictedOverBudget() {
+        // Segmentos de 4 documentos e orçamento mínimo: só o segmento ativo fica
+        SearchIndex small = new SearchIndex(1, store::get, 4);
+        for (int i = 0; i < 10; i++) {
+            JSONObject post = new JSONObject().put("id", "p" + i).put("user_id", "alice")
+                    .put("content", "word" + i + " common").put("created_at", i);
+            store.add(post);
+            small.addPost(post);
+        }
+
+        assertEquals(8, small.getEvictedDocuments());
+        assertEquals(2, small.getDocumentCount());
+        assertTrue(small.search(query("word0")).isEmpty());
+        assertEquals(List.of("p9", "p8"), ids(small.search(query("common"))));
+        assertTrue(small.getEstimatedBytes() > 0);
+    }
+
+    @Test
+    public void nonPositiveLimitIsRejected() {
+        post("1", "alice", "hello", 100);
+        SearchIndex.Query query = query("hello");
+        query.limit = 0;
+        assertThrows(IllegalArgumentException.class, () -> index.search(query));
+    }
+}
@@ -9,6 +9,19 @@ class Server {
         this.brokerAddress = brokerAddress;
         this.pubAddress = pubAddress;
         
+        // Modo multipart: tópico e corpo em frames separados (NOTIFY_MULTIPART=1)
+        this.multipartTopics = process.env.NOTIFY_MULTIPART === '1';
+        
+        // Respostas recentes por request_id: retentativas do cliente (mesmo request_id)
+        // recebem a mesma resposta sem repetir a operação
+        this.completedRequests = new Map();
+        this.maxCompletedRequests = 10000;
+        
+        // Lotes ("batch"): limite de itens e gravação do arquivo adiada até o fim do lote
+        this.maxBatchItems = 1000;
+        this.deferSave = false;
+        this.saveDeferred = false;
+        
         // Storage
         this.posts = [];
         this.privateMessages = [];
@@ -43,7 +56,9 @@ class Server {
             console.log(`Server ${this.serverId} connected to broker at ${this.brokerAddress}`);
             
             // Socket PUB para publicação de posts/mensagens
-            this.pubSocket = new zmq.Publisher();
+            // Sem limite na fila de assinaturas recebidas: clientes que seguem milhares de
+            // usuários mandam milhares de assinaturas de uma vez
+            this.pubSocket = new zmq.Publisher({ receiveHighWaterMark: 0 });
             await this.pubSocket.connect(this.pubAddress);
             console.log(`Server ${this.serverId} connected to post proxy at ${this.pubAddress}`);
             
@@ -95,6 +110,13 @@ class Server {
                             case 'follow':
                                 replicated = this.addReplicatedFollow(data.payload.follower_id, data.payload.target_user_id);
                                 break;
+                            case 'unfollow':
+                                replicated = this.removeReplicatedFollow(data.payload.follower_id, data.payload.target_user_id);
+                                break;
+                            case 'request':
+                                // Resposta de outro server: a retentativa pode cair em qualquer um
+                                this.rememberResponse(data.payload.request_id, data.payload.response);
+                                break;
                         }
                         
                         if (replicated) {
@@ -132,6 +154,22 @@ class Server {
         }
     }
 
+    rememberResponse(requestId, response) {
+        this.completedRequests.set(requestId, response);
+        if (this.completedRequests.size > this.maxCompletedRequests) {
+            // Map mantém a ordem de inserção: remove a mais antiga
+            this.completedRequests.delete(this.completedRequests.keys().next().value);
+        }
+    }
+
+    async publish(topic, payload) {
+        if (this.multipartTopics) {
+            await this.pubSocket.send([topic, JSON.stringify(payload)]);
+        } else {
+            await this.pubSocket.send(topic + JSON.stringify(payload));
+        }
+    }
+
     async createPost(userId, content, clientTimestamp) {
         const post = {
             id: uuidv4(),
@@ -161,7 +199,7 @@ class Server {
                 post: post,
                 server_timestamp: Date.now() // INCLUIR TIMESTAMP DO SERVIDOR
             };
-            await this.pubSocket.send(userId + ":" + JSON.stringify(postMessage));
+            await this.publish(userId + ":", postMessage);
         } catch (error) {
             console.error(`Error publishing post notification:`, error);
         }
@@ -217,7 +255,7 @@ class Server {
                 client_timestamp: clientTimestamp, // TIMESTAMP DO REMETENTE
                 server_timestamp: Date.now() // TIMESTAMP DO SERVIDOR
             };
-            await this.pubSocket.send(receiverId + ":PM:" + JSON.stringify(notification));
+            await this.publish(receiverId + ":PM:", notification);
         } catch (error) {
             console.error(`Error publishing private message notification:`, error);
         }
@@ -277,6 +315,38 @@ class Server {
         return false;
     }
     
+    unfollowUser(followerId, targetUserId, clientTimestamp) {
+        const followers = this.followers[targetUserId];
+        if (!followers || !followers.includes(followerId)) {
+            return false;
+        }
+        
+        this.followers[targetUserId] = followers.filter(id => id !== followerId);
+        this.saveData();
+        
+        console.log(`\nFOLLOW RELATIONSHIP REMOVED in Server ${this.serverId}:`);
+        console.log(`   ${followerId} stopped following ${targetUserId}`);
+        console.log(`   Client timestamp: ${new Date(clientTimestamp).toLocaleTimeString()}`);
+        
+        this.log(`Unfollow: ${followerId} -> ${targetUserId}, ClientTime=${clientTimestamp}`);
+        
+        // Replicar para outros servidores
+        this.replicateData('unfollow', { follower_id: followerId, target_user_id: targetUserId });
+        
+        return true;
+    }
+    
+    removeReplicatedFollow(followerId, targetUserId) {
+        const followers = this.followers[targetUserId];
+        if (!followers || !followers.includes(followerId)) {
+            return false;
+        }
+        this.followers[targetUserId] = followers.filter(id => id !== followerId);
+        this.saveData();
+        this.log(`Unfollow replicated: ${followerId} -> ${targetUserId}`);
+        return true;
+    }
+    
     getFollowing(userId) {
         const following = [];
         for (const [targetId, followers] of Object.entries(this.followers)) {
@@ -291,6 +361,28 @@ class Server {
         return [...this.posts].sort((a, b) => b.created_at - a.created_at);
     }
     
+    // Paginação por cursor (created_at, id): "before" devolve os mais recentes primeiro,
+    // "after" devolve os mais antigos primeiro (para avançar a partir de um ponto conhecido)
+    getPostsPage(limit, before, after) {
+        const compare = (a, b) => (a.created_at - b.created_at) || (a.id < b.id ? -1 : (a.id > b.id ? 1 : 0));
+        let page;
+        if (after) {
+            page = this.posts.filter(p => compare(p, after) > 0).sort(compare);
+        } else {
+            page = (before ? this.posts.filter(p => compare(p, before) < 0) : [...this.posts])
+                .sort((a, b) => compare(b, a));
+        }
+        const pageSize = Math.max(1, Math.min(limit, 1000));
+        const hasMore = page.length > pageSize;
+        page = page.slice(0, pageSize);
+        const last = page[page.length - 1];
+        return {
+            posts: page,
+            has_more: hasMore,
+            next_cursor: last ? { created_at: last.created_at, id: last.id } : null
+        };
+    }
+    
     // Método para verificar status da replicação
     getReplicationStatus() {
         return {
@@ -310,6 +402,11 @@ class Server {
     }
     
     saveData() {
+        if (this.deferSave) {
+            this.saveDeferred = true;
+            return;
+        }
+        this.saveDeferred = false;
         try {
             const data = {
                 posts: this.posts,
@@ -356,6 +453,182 @@ class Server {
         }
     }
 
+    // Operações que alteram dados respondem a uma retentativa (mesmo request_id) com a
+    // resposta já dada, sem repetir a operação. As respostas guardadas vão para "replicate",
+    // que o loop replica depois de responder ao cliente.
+    async handle(message, replicate) {
+        const clientTimestamp = message.client_timestamp || Date.now();
+        const mutating = ["create_post", "follow_user", "unfollow_user", "send_private_message"].includes(message.type);
+        if (mutating && message.request_id && this.completedRequests.has(message.request_id)) {
+            console.log(`Server ${this.serverId} answering retried request ${message.request_id} from cache\n`);
+            this.log(`Duplicate request ${message.request_id} (${message.type}) answered from cache`);
+            return this.completedRequests.get(message.request_id);
+        }
+        
+        const response = await this.execute(message, clientTimestamp, replicate);
+        if (mutating && message.request_id && response.status === "success") {
+            this.rememberResponse(message.request_id, response);
+            replicate.push({ request_id: message.request_id, response: response });
+        }
+        return response;
+    }
+    
+    async execute(message, clientTimestamp, replicate) {
+        let response = { status: "error", message: "Unknown request type" };
+        
+        switch (message.type) {
+            case "batch":
+                response = await this.executeBatch(message.requests, replicate);
+                break;
+                
+            case "create_post":
+                const post = await this.createPost(message.user_id, message.content, clientTimestamp);
+                response = {
+                    status: "success",
+                    post: post,
+                    message: "Post created successfully",
+                    server_id: this.serverId
+                };
+                break;
+                
+            case "follow_user":
+                const followed = this.followUser(message.follower_id, message.target_user_id, clientTimestamp);
+                response = {
+                    status: "success",
+                    followed: followed,
+                    message: followed 
+                        ? `Now following user ${message.target_user_id}` 
+                        : `Already following user ${message.target_user_id}`,
+                    server_id: this.serverId
+                };
+                break;
+                
+            case "unfollow_user":
+                const unfollowed = this.unfollowUser(message.follower_id, message.target_user_id, clientTimestamp);
+                response = {
+                    status: "success",
+                    unfollowed: unfollowed,
+                    message: unfollowed
+                        ? `Stopped following user ${message.target_user_id}`
+                        : `Not following user ${message.target_user_id}`,
+                    server_id: this.serverId
+                };
+                break;
+                
+            case "get_following":
+                const following = this.getFollowing(message.user_id);
+                response = {
+                    status: "success",
+                    following: following,
+                    message: `Following ${following.length} users`,
+                    server_id: this.serverId
+                };
+                break;
+                
+            case "get_all_posts":
+                if (message.limit) {
+                    const page = this.getPostsPage(message.limit, message.before, message.after);
+                    response = {
+                        status: "success",
+                        message: `Found ${page.posts.length} posts`,
+                        server_id: this.serverId,
+                        has_more: page.has_more,
+                        next_cursor: page.next_cursor,
+                        posts: page.posts
+                    };
+                    break;
+                }
+                const allPosts = this.getAllPosts();
+                response = {
+                    status: "success",
+                    posts: allPosts,
+                    message: `Found ${allPosts.length} posts`,
+                    server_id: this.serverId,
+                    replication_status: this.getReplicationStatus()
+                };
+                break;
+                
+            case "send_private_message":
+                await this.sendPrivateMessage(message.sender_id, message.receiver_id, message.content, clientTimestamp);
+                response = {
+                    status: "success",
+                    message: `Message sent to user ${message.receiver_id}`,
+                    server_id: this.serverId
+                };
+                break;
+                
+            case "negotiate_codec":
+                // Este server só fala JSON; o cliente continua em JSON
+                response = {
+                    status: "success",
+                    codec: "json",
+                    message: "Using codec json",
+                    server_id: this.serverId
+                };
+                break;
+                
+            case "get_replication_status":
+                response = {
+                    status: "success",
+                    replication_status: this.getReplicationStatus(),
+                    server_id: this.serverId
+                };
+                break;
+        }
+        return response;
+    }
+    
+    // LOTE: cada item é uma requisição completa, com o próprio request_id, e recebe a
+    // própria resposta em "results" (mesma ordem). O arquivo de dados é gravado uma vez
+    // no fim do lote, e não a cada item.
+    async executeBatch(requests, replicate) {
+        if (!Array.isArray(requests)) {
+            return { status: "error", message: "Batch without requests", server_id: this.serverId };
+        }
+        if (requests.length > this.maxBatchItems) {
+            return {
+                status: "error",
+                message: `Batch too large: ${requests.length} requests (max ${this.maxBatchItems})`,
+                server_id: this.serverId
+            };
+        }
+        
+        const results = [];
+        let failed = 0;
+        this.deferSave = true;
+        try {
+            for (const item of requests) {
+                let result;
+                if (!item || item.type === "batch") {
+                    result = { status: "error", message: "Invalid batch item", server_id: this.serverId };
+                } else {
+                    try {
+                        result = await this.handle(item, replicate);
+                    } catch (error) {
+                        result = { status: "error", message: error.message, server_id: this.serverId };
+                    }
+                }
+                if (result.status !== "success") {
+                    failed++;
+                }
+                results.push(result);
+            }
+        } finally {
+            this.deferSave = false;
+            if (this.saveDeferred) {
+                this.saveData();
+            }
+        }
+        
+        this.log(`Batch processed: ${results.length} requests, ${failed} failed`);
+        return {
+            status: "success",
+            message: `Processed ${results.length} requests (${failed} failed)`,
+            results: results,
+            server_id: this.serverId
+        };
+    }
+
     async run() {
         console.log(`\nServer ${this.serverId} processing requests...\n`);
         
@@ -368,73 +641,16 @@ class Server {
                 console.log(`Server ${this.serverId} received request: ${message.type} from user ${userId}`);
                 console.log(`   Client timestamp: ${new Date(clientTimestamp).toLocaleTimeString()}`);
                 
-                let response = { status: "error", message: "Unknown request type" };
-                
-                switch (message.type) {
-                    case "create_post":
-                        const post = await this.createPost(message.user_id, message.content, clientTimestamp);
-                        response = {
-                            status: "success",
-                            post: post,
-                            message: "Post created successfully",
-                            server_id: this.serverId
-                        };
-                        break;
-                        
-                    case "follow_user":
-                        const followed = this.followUser(message.follower_id, message.target_user_id, clientTimestamp);
-                        response = {
-                            status: "success",
-                            followed: followed,
-                            message: followed 
-                                ? `Now following user ${message.target_user_id}` 
-                                : `Already following user ${message.target_user_id}`,
-                            server_id: this.serverId
-                        };
-                        break;
-                        
-                    case "get_following":
-                        const following = this.getFollowing(message.user_id);
-                        response = {
-                            status: "success",
-                            following: following,
-                            message: `Following ${following.length} users`,
-                            server_id: this.serverId
-                        };
-                        break;
-                        
-                    case "get_all_posts":
-                        const allPosts = this.getAllPosts();
-                        response = {
-                            status: "success",
-                            posts: allPosts,
-                            message: `Found ${allPosts.length} posts`,
-                            server_id: this.serverId,
-                            replication_status: this.getReplicationStatus()
-                        };
-                        break;
-                        
-                    case "send_private_message":
-                        await this.sendPrivateMessage(message.sender_id, message.receiver_id, message.content, clientTimestamp);
-                        response = {
-                            status: "success",
-                            message: `Message sent to user ${message.receiver_id}`,
-                            server_id: this.serverId
-                        };
-                        break;
-                        
-                    case "get_replication_status":
-                        response = {
-                            status: "success",
-                            replication_status: this.getReplicationStatus(),
-                            server_id: this.serverId
-                        };
-                        break;
-                }
+                const replicate = [];
+                const response = await this.handle(message, replicate);
                 
                 await this.socket.send(JSON.stringify(response));
                 console.log(`Server ${this.serverId} sent response: ${response.status}\n`);
                 
+                for (const completed of replicate) {
+                    await this.replicateData('request', completed);
+                }
+                
             } catch (error) {
                 console.error(`Error processing request in server ${this.serverId}:`, error);
                 await this.socket.send(JSON.stringify({
@@ -23,12 +23,16 @@ def main():
         # Socket para receber posts dos servidores (XSUB)
         # Servidores vão PUBLICAR posts aqui
         xsub_socket = context.socket(zmq.XSUB)
+        # Sem limite para as assinaturas repassadas aos servidores (clientes que seguem
+        # milhares de usuários assinam tudo de uma vez)
+        xsub_socket.setsockopt(zmq.SNDHWM, 0)
         xsub_socket.bind("tcp://*:5557")
         logger.info("XSUB socket bound to port 5557 (servers publish posts here)")
         
         # Socket para enviar posts para os clientes (XPUB)
         # Clientes vão ASSINAR posts aqui  
         xpub_socket = context.socket(zmq.XPUB)
+        xpub_socket.setsockopt(zmq.RCVHWM, 0)
         xpub_socket.bind("tcp://*:5558")
         logger.info("XPUB socket bound to port 5558 (clients subscribe here)")
         